@@ -5,6 +5,16 @@ plugins {
     id("com.gradleup.shadow") version "9.2.2"
 }
 
+val plataformaBrotli = run {
+    val so = System.getProperty("os.name").lowercase()
+    val arquitetura = System.getProperty("os.arch").let { if (it == "amd64") "x86_64" else it }
+    when {
+        so.contains("win") -> "windows-$arquitetura"
+        so.contains("mac") -> "osx-$arquitetura"
+        else -> "linux-$arquitetura"
+    }
+}
+
 repositories {
     mavenLocal()
     mavenCentral()
@@ -17,6 +27,10 @@ dependencies {
     implementation("io.javalin:javalin:6.7.0")
     implementation("com.fasterxml.jackson.core:jackson-databind:2.15.2")
     implementation("org.slf4j:slf4j-simple:2.0.16")
+    implementation("com.aayushatharva.brotli4j:brotli4j:1.16.0")
+    // O pom do brotli4j escolhe a biblioteca nativa por perfis do Maven,
+    // que o Gradle ignora: aqui vai a da máquina que faz o build.
+    runtimeOnly("com.aayushatharva.brotli4j:native-$plataformaBrotli:1.16.0")
 
     testImplementation("org.junit.jupiter:junit-jupiter:5.11.0")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.11.0")
@@ -35,8 +49,107 @@ sourceSets {
     test {
         java.srcDirs("src/test/java")
     }
+    // Microbenchmarks JMH: ./gradlew jmh (resultados em build/reports/jmh)
+    create("jmh") {
+        java.srcDirs("src/jmh/java")
+        compileClasspath += main.get().output
+        runtimeClasspath += main.get().output
+    }
+    // Ferramenta de build que gera as versões com hash e comprimidas dos
+    // arquivos estáticos (ver a tarefa precomprimirEstaticos)
+    create("estaticos") {
+        java.srcDirs("src/estaticos/java")
+        compileClasspath += main.get().output.classesDirs
+        runtimeClasspath += main.get().output.classesDirs
+    }
+    // Teste de carga HTTP ponta a ponta: ./gradlew carga
+    create("carga") {
+        java.srcDirs("src/carga/java")
+        compileClasspath += main.get().output
+        runtimeClasspath += main.get().output
+    }
+}
+
+val jmhImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val jmhAnnotationProcessor by configurations.getting
+
+val estaticosImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val estaticosRuntimeOnly by configurations.getting {
+    extendsFrom(configurations.runtimeOnly.get())
+}
+
+val cargaImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val cargaRuntimeOnly by configurations.getting {
+    extendsFrom(configurations.runtimeOnly.get())
+}
+
+dependencies {
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+    jmhImplementation("org.openjdk.jol:jol-core:0.17")
+    cargaImplementation("org.hdrhistogram:HdrHistogram:2.2.2")
+}
+
+// Parâmetros opcionais: -PjmhThreads=1,4,8 -PjmhInclude=Repository
+// -PjmhRapido=true (poucas iterações, só para conferir que roda),
+// -PjmhProf=gc (perfiladores do JMH, separados por vírgula).
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Executa os benchmarks JMH e grava os resultados em JSON."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.biblioteca.benchmark.ExecutorBenchmarks")
+    val saida = layout.buildDirectory.dir("reports/jmh")
+    outputs.dir(saida)
+    outputs.upToDateWhen { false }
+    systemProperty("jmh.resultados", saida.get().asFile.absolutePath)
+    // O commit entra no nome do arquivo para comparar execuções entre versões.
+    val commit = providers.exec {
+        commandLine("git", "rev-parse", "--short", "HEAD")
+        isIgnoreExitValue = true
+    }.standardOutput.asText.map { it.trim().ifEmpty { "local" } }
+    systemProperty("jmh.commit", commit.get())
+    listOf("jmhThreads", "jmhInclude", "jmhRapido", "jmhProf").forEach { nome ->
+        project.findProperty(nome)?.let { systemProperty(nome, it.toString()) }
+    }
+}
+
+// Memória ocupada pelo catálogo, medida com o JOL: -PmemoriaLivros=2000000
+tasks.register<JavaExec>("memoriaCatalogo") {
+    group = "benchmark"
+    description = "Mede com o JOL a memória por livro de um catálogo sintético."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.biblioteca.benchmark.MemoriaCatalogo")
+    maxHeapSize = "4g"
+    jvmArgs("-Djdk.attach.allowAttachSelf", "-XX:+EnableDynamicAgentLoading")
+    args(project.findProperty("memoriaLivros")?.toString() ?: "1000000")
+    outputs.upToDateWhen { false }
 }
 
+// Arquivos estáticos com nome por hash de conteúdo (exceto as páginas
+// HTML, que são pontos de entrada) e as variantes .gz e .br já prontas;
+// entram no classpath em /estaticos e o servidor só lê os bytes.
+val precomprimirEstaticos = tasks.register<JavaExec>("precomprimirEstaticos") {
+    group = "build"
+    description = "Gera os arquivos estáticos com hash no nome e pré-comprimidos em gzip e brotli."
+    classpath = sourceSets["estaticos"].runtimeClasspath
+    mainClass.set("com.biblioteca.estaticos.PrecomprimirEstaticos")
+    val entrada = layout.projectDirectory.dir("src/main/resources/static")
+    val saida = layout.buildDirectory.dir("generated/estaticos")
+    inputs.dir(entrada)
+    outputs.dir(saida)
+    val diretorioSaida = saida.get().asFile
+    args(entrada.asFile.absolutePath, diretorioSaida.resolve("estaticos").absolutePath)
+    // Sem restos de uma geração anterior (arquivos com hash antigo).
+    doFirst { diretorioSaida.deleteRecursively() }
+}
+sourceSets.main { resources.srcDir(files(layout.buildDirectory.dir("generated/estaticos")).builtBy(precomprimirEstaticos)) }
+
 group = "com.biblioteca"
 version = "1.0-SNAPSHOT"
 description = "TP5_PB"
@@ -52,6 +165,38 @@ publishing {
     }
 }
 
+// Argumentos no formato --nome=valor, por exemplo:
+// ./gradlew carga --args="--modo=aberto --taxa=2000 --duracao=60 --p99MaximoMs=50"
+tasks.register<JavaExec>("carga") {
+    group = "verification"
+    description = "Sobe a API numa porta efêmera e mede vazão e latência sob carga."
+    classpath = sourceSets["carga"].runtimeClasspath
+    mainClass.set("com.biblioteca.carga.GeradorCarga")
+    outputs.upToDateWhen { false }
+}
+
+// Mesma carga (10 mil clientes simultâneos em laço fechado) contra o pool
+// de threads de plataforma do Jetty e contra threads virtuais.
+val compararThreads = tasks.register("compararThreads") {
+    group = "verification"
+    description = "Compara threads de plataforma e virtuais com 10 mil conexões simultâneas."
+}
+listOf("plataforma" to false, "virtual" to true).forEach { (nome, virtuais) ->
+    val tarefa = tasks.register<JavaExec>("carga${nome.replaceFirstChar { it.uppercase() }}") {
+        group = "verification"
+        classpath = sourceSets["carga"].runtimeClasspath
+        mainClass.set("com.biblioteca.carga.GeradorCarga")
+        maxHeapSize = "2g"
+        args(
+            "--modo=fechado", "--clientes=10000", "--duracao=60", "--threadsVirtuais=$virtuais",
+            "--relatorio=" + layout.buildDirectory.file("reports/carga/threads-$nome.json").get().asFile.absolutePath
+        )
+        outputs.upToDateWhen { false }
+    }
+    compararThreads.configure { dependsOn(tarefa) }
+}
+tasks.named("cargaVirtual") { mustRunAfter("cargaPlataforma") }
+
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
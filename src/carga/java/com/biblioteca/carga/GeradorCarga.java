@@ -0,0 +1,251 @@
+package com.biblioteca.carga;
+
+import com.biblioteca.BibliotecaWebApplication;
+import com.biblioteca.carga.OpcoesCarga.Modo;
+import com.biblioteca.carga.OpcoesCarga.Operacao;
+import io.javalin.Javalin;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga ponta a ponta: sobe a aplicação de createApp numa
+// porta efêmera e dispara requisições HTTP de clientes em threads
+// virtuais. As latências vão para histogramas HdrHistogram, em duas
+// versões: o tempo de serviço (envio -> resposta) e a latência corrigida
+// para omissão coordenada, medida a partir de quando a requisição deveria
+// ter saído.
+public final class GeradorCarga {
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.MINUTES.toMicros(1);
+    private static final String PREFIXO_CATALOGO = "Carga ";
+    private static final Duration PRAZO_RESPOSTA = Duration.ofSeconds(30);
+
+    private final OpcoesCarga opcoes;
+    private final URI base;
+    private final HttpClient cliente;
+    private final Operacao[] sorteio;
+    private final ConcurrentLinkedQueue<String> adicionados = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    GeradorCarga(OpcoesCarga opcoes, URI base, ExecutorService executor) {
+        this.opcoes = opcoes;
+        this.base = base;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                // Clientes e servidor dividem a mesma JVM (e, com threads
+                // virtuais, as mesmas threads portadoras): com milhares de
+                // conexões, o accept demora e não deve virar falso erro.
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        this.sorteio = tabelaDeSorteio(opcoes.mix());
+    }
+
+    public static void main(String[] args) throws Exception {
+        OpcoesCarga opcoes = OpcoesCarga.de(args);
+        Javalin app = BibliotecaWebApplication.createApp(0, opcoes.threadsVirtuais()).start(0);
+        ResultadoCarga resultado;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            GeradorCarga gerador = new GeradorCarga(opcoes, URI.create("http://localhost:" + app.port()), executor);
+            gerador.popular();
+            if (!opcoes.aquecimento().isZero()) {
+                gerador.executar(opcoes.aquecimento());
+            }
+            resultado = gerador.executar(opcoes.duracao());
+        } finally {
+            app.stop();
+        }
+        resultado.imprimir(System.out);
+        if (opcoes.relatorio() != null) {
+            resultado.gravarJson(Path.of(opcoes.relatorio()));
+        }
+        double p99 = resultado.corrigida().getValueAtPercentile(99.0) / 1000.0;
+        if (opcoes.p99MaximoMs() > 0 && p99 > opcoes.p99MaximoMs()) {
+            System.out.printf("REPROVADO: p99 corrigido %.2f ms acima do limite de %.2f ms%n", p99, opcoes.p99MaximoMs());
+            System.exit(1);
+        }
+    }
+
+    // Carrega o catálogo inicial de uma vez pelo endpoint de importação.
+    void popular() throws IOException, InterruptedException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < opcoes.catalogoInicial(); i++) {
+            ndjson.append("{\"titulo\":\"").append(PREFIXO_CATALOGO).append(i)
+                    .append("\",\"autor\":\"Autor ").append(i % 500)
+                    .append("\",\"categoria\":\"FICCAO\"}\n");
+        }
+        HttpResponse<String> resposta = cliente.send(novaRequisicao(base.resolve("/api/livros/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString())).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("Falha ao popular o catálogo: " + resposta.statusCode());
+        }
+    }
+
+    ResultadoCarga executar(Duration duracao) throws InterruptedException {
+        ResultadoCarga resultado = new ResultadoCarga(opcoes.modo(), opcoes.threadsVirtuais(),
+                novoHistograma(), novoHistograma());
+        long inicio = System.nanoTime();
+        if (opcoes.modo() == Modo.ABERTO) {
+            executarAberto(inicio, duracao.toNanos(), resultado);
+        } else {
+            executarFechado(inicio, duracao.toNanos(), resultado);
+        }
+        resultado.encerrar(System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    // Uma requisição a cada 1/taxa segundos, cada uma na sua thread virtual.
+    // Se o servidor atrasar, as requisições se acumulam em vez de esperar
+    // a vez, e o atraso aparece inteiro na latência corrigida.
+    private void executarAberto(long inicio, long duracao, ResultadoCarga resultado) {
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / opcoes.taxa();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i * intervalo < duracao; i++) {
+                long previsto = inicio + i * intervalo;
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                clientes.execute(() -> {
+                    long enviado = System.nanoTime();
+                    requisitar(resultado);
+                    long fim = System.nanoTime();
+                    resultado.servico().recordValue(microssegundos(fim - enviado));
+                    resultado.corrigida().recordValue(microssegundos(fim - previsto));
+                });
+            }
+        }
+    }
+
+    // N clientes em laço. Com --taxa, cada cliente é cadenciado em
+    // taxa/N por segundo e o HdrHistogram preenche as amostras que um
+    // cliente bloqueado deixou de enviar; sem taxa não há intervalo
+    // esperado e as duas latências coincidem.
+    private void executarFechado(long inicio, long duracao, ResultadoCarga resultado) throws InterruptedException {
+        long intervalo = opcoes.taxa() > 0
+                ? TimeUnit.SECONDS.toNanos(1) * opcoes.clientes() / opcoes.taxa()
+                : 0;
+        Thread[] threads = new Thread[opcoes.clientes()];
+        for (int c = 0; c < threads.length; c++) {
+            threads[c] = Thread.ofVirtual().name("cliente-carga-", c).start(() -> {
+                long proximo = inicio;
+                while (System.nanoTime() - inicio < duracao) {
+                    if (intervalo > 0) {
+                        long espera = proximo - System.nanoTime();
+                        if (espera > 0) {
+                            LockSupport.parkNanos(espera);
+                        }
+                        proximo += intervalo;
+                    }
+                    long enviado = System.nanoTime();
+                    requisitar(resultado);
+                    long servico = microssegundos(System.nanoTime() - enviado);
+                    resultado.servico().recordValue(servico);
+                    if (intervalo > 0) {
+                        resultado.corrigida().recordValueWithExpectedInterval(servico, microssegundos(intervalo));
+                    } else {
+                        resultado.corrigida().recordValue(servico);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void requisitar(ResultadoCarga resultado) {
+        Operacao operacao = sorteio[ThreadLocalRandom.current().nextInt(sorteio.length)];
+        String novo = operacao == Operacao.POST ? "Novo " + sequencia.incrementAndGet() : null;
+        HttpRequest requisicao = switch (operacao) {
+            case GET -> novaRequisicao(uriDoLivro(tituloExistente())).GET().build();
+            case LIST -> novaRequisicao(base.resolve("/api/livros?limit=50")).GET().build();
+            case POST -> novaRequisicao(base.resolve("/api/livros"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo(novo, "Autor novo"))).build();
+            case PUT -> {
+                String titulo = tituloExistente();
+                yield novaRequisicao(uriDoLivro(titulo))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(corpo(titulo, "Autor atualizado"))).build();
+            }
+            case DELETE -> {
+                // Só remove o que a própria carga adicionou, para o catálogo
+                // de leitura não encolher; sem candidatos, vira uma leitura.
+                String titulo = adicionados.poll();
+                yield titulo != null
+                        ? novaRequisicao(uriDoLivro(titulo)).DELETE().build()
+                        : novaRequisicao(uriDoLivro(tituloExistente())).GET().build();
+            }
+        };
+        try {
+            HttpResponse<Void> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding());
+            resultado.contar(operacao, resposta.statusCode());
+            if (novo != null && resposta.statusCode() == 200) {
+                adicionados.add(novo);
+            }
+        } catch (IOException e) {
+            resultado.contar(operacao, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Sem prazo, um cliente preso numa resposta que não vem nunca
+    // terminaria a rodada.
+    private static HttpRequest.Builder novaRequisicao(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(PRAZO_RESPOSTA);
+    }
+
+    private String tituloExistente() {
+        return PREFIXO_CATALOGO + ThreadLocalRandom.current().nextInt(opcoes.catalogoInicial());
+    }
+
+    private URI uriDoLivro(String titulo) {
+        return base.resolve("/api/livros/" + URLEncoder.encode(titulo, StandardCharsets.UTF_8).replace("+", "%20"));
+    }
+
+    private static String corpo(String titulo, String autor) {
+        return "{\"titulo\":\"" + titulo + "\",\"autor\":\"" + autor + "\",\"categoria\":\"FICCAO\"}";
+    }
+
+    private static Operacao[] tabelaDeSorteio(Map<Operacao, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operacao[] tabela = new Operacao[total];
+        int i = 0;
+        for (Map.Entry<Operacao, Integer> e : new EnumMap<>(mix).entrySet()) {
+            for (int n = 0; n < e.getValue(); n++) {
+                tabela[i++] = e.getKey();
+            }
+        }
+        return tabela;
+    }
+
+    private static Histogram novoHistograma() {
+        return new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3);
+    }
+
+    private static long microssegundos(long nanos) {
+        return Math.min(LATENCIA_MAXIMA_US, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.biblioteca.carga;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Parâmetros do gerador de carga, lidos de argumentos --nome=valor.
+record OpcoesCarga(
+        Modo modo,
+        Duration duracao,
+        Duration aquecimento,
+        int taxa,
+        int clientes,
+        int catalogoInicial,
+        Map<Operacao, Integer> mix,
+        double p99MaximoMs,
+        String relatorio,
+        boolean threadsVirtuais) {
+
+    enum Modo {
+        // Aberto: as requisições chegam numa taxa fixa, independente das
+        // respostas, como usuários de verdade. Fechado: N clientes, cada um
+        // só envia a próxima depois da resposta da anterior.
+        ABERTO, FECHADO
+    }
+
+    enum Operacao {
+        GET, LIST, POST, PUT, DELETE
+    }
+
+    static OpcoesCarga de(String[] args) {
+        Map<String, String> valores = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido (use --nome=valor): " + arg);
+            }
+            int igual = arg.indexOf('=');
+            valores.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        Modo modo = Modo.valueOf(valores.getOrDefault("modo", "aberto").toUpperCase(Locale.ROOT));
+        // No laço fechado a taxa é opcional: sem ela, os clientes não são
+        // cadenciados.
+        String taxaPadrao = modo == Modo.ABERTO ? "1000" : "0";
+        OpcoesCarga opcoes = new OpcoesCarga(
+                modo,
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("duracao", "30"))),
+                Duration.ofSeconds(Long.parseLong(valores.getOrDefault("aquecimento", "5"))),
+                Integer.parseInt(valores.getOrDefault("taxa", taxaPadrao)),
+                Integer.parseInt(valores.getOrDefault("clientes", "64")),
+                Integer.parseInt(valores.getOrDefault("catalogo", "10000")),
+                mixDe(valores.getOrDefault("mix", "GET=70,LIST=10,POST=10,PUT=5,DELETE=5")),
+                Double.parseDouble(valores.getOrDefault("p99MaximoMs", "0")),
+                valores.get("relatorio"),
+                Boolean.parseBoolean(valores.getOrDefault("threadsVirtuais", "false")));
+        if (opcoes.taxa() < 0 || opcoes.clientes() <= 0 || opcoes.catalogoInicial() <= 0) {
+            throw new IllegalArgumentException("taxa, clientes e catalogo devem ser positivos");
+        }
+        if (opcoes.modo() == Modo.ABERTO && opcoes.taxa() == 0) {
+            throw new IllegalArgumentException("O modo aberto precisa de --taxa");
+        }
+        return opcoes;
+    }
+
+    // "GET=70,POST=30" -> pesos relativos por operação
+    private static Map<Operacao, Integer> mixDe(String texto) {
+        Map<Operacao, Integer> mix = new EnumMap<>(Operacao.class);
+        for (String parte : texto.split(",")) {
+            String[] chaveValor = parte.trim().split("=");
+            if (chaveValor.length != 2) {
+                throw new IllegalArgumentException("Mix inválido: " + texto);
+            }
+            int peso = Integer.parseInt(chaveValor[1].trim());
+            if (peso < 0) {
+                throw new IllegalArgumentException("Peso negativo no mix: " + parte);
+            }
+            mix.put(Operacao.valueOf(chaveValor[0].trim().toUpperCase(Locale.ROOT)), peso);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix sem nenhuma operação: " + texto);
+        }
+        return mix;
+    }
+}
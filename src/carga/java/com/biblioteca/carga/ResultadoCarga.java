@@ -0,0 +1,104 @@
+package com.biblioteca.carga;
+
+import com.biblioteca.carga.OpcoesCarga.Modo;
+import com.biblioteca.carga.OpcoesCarga.Operacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latências em microssegundos; status -1 conta falhas de conexão.
+record ResultadoCarga(Modo modo, boolean threadsVirtuais, Histogram servico, Histogram corrigida,
+                      Map<Operacao, Map<Integer, LongAdder>> respostas, long[] duracaoNanos) {
+    private static final double[] PERCENTIS = {50.0, 90.0, 99.0, 99.9};
+
+    ResultadoCarga(Modo modo, boolean threadsVirtuais, Histogram servico, Histogram corrigida) {
+        this(modo, threadsVirtuais, servico, corrigida, new ConcurrentHashMap<>(), new long[1]);
+    }
+
+    void contar(Operacao operacao, int status) {
+        respostas.computeIfAbsent(operacao, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    void encerrar(long nanos) {
+        duracaoNanos[0] = nanos;
+    }
+
+    long total() {
+        return servico.getTotalCount();
+    }
+
+    long erros() {
+        return respostas.values().stream()
+                .flatMap(porStatus -> porStatus.entrySet().stream())
+                .filter(e -> e.getKey() < 0 || e.getKey() >= 500)
+                .mapToLong(e -> e.getValue().sum())
+                .sum();
+    }
+
+    double vazao() {
+        return total() / (duracaoNanos[0] / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    void imprimir(PrintStream saida) {
+        saida.printf("modo=%s servidor=%s requisicoes=%d vazao=%.1f req/s erros=%d%n", modo,
+                threadsVirtuais ? "virtual" : "plataforma", total(), vazao(), erros());
+        saida.printf("%-12s %10s %10s %10s %10s %10s%n", "latencia ms", "p50", "p90", "p99", "p99.9", "max");
+        imprimirLinha(saida, "servico", servico);
+        imprimirLinha(saida, "corrigida", corrigida);
+        new EnumMap<>(respostas).forEach((operacao, porStatus) ->
+                saida.printf("%-8s %s%n", operacao, new TreeMap<>(porStatus)));
+    }
+
+    void gravarJson(Path arquivo) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("modo", modo.name());
+        json.put("threadsVirtuais", threadsVirtuais);
+        json.put("requisicoes", total());
+        json.put("vazao", vazao());
+        json.put("erros", erros());
+        json.put("servicoMs", percentis(servico));
+        json.put("corrigidaMs", percentis(corrigida));
+        Map<String, Map<String, Long>> status = new LinkedHashMap<>();
+        new EnumMap<>(respostas).forEach((operacao, porStatus) -> {
+            Map<String, Long> contagem = new LinkedHashMap<>();
+            porStatus.forEach((codigo, n) -> contagem.put(String.valueOf(codigo), n.sum()));
+            status.put(operacao.name(), contagem);
+        });
+        json.put("status", status);
+        if (arquivo.getParent() != null) {
+            Files.createDirectories(arquivo.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(arquivo.toFile(), json);
+    }
+
+    private static void imprimirLinha(PrintStream saida, String nome, Histogram h) {
+        saida.printf("%-12s", nome);
+        for (double p : PERCENTIS) {
+            saida.printf(" %10.3f", h.getValueAtPercentile(p) / 1000.0);
+        }
+        saida.printf(" %10.3f%n", h.getMaxValue() / 1000.0);
+    }
+
+    private static Map<String, Double> percentis(Histogram h) {
+        Map<String, Double> valores = new LinkedHashMap<>();
+        for (double p : PERCENTIS) {
+            valores.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)),
+                    h.getValueAtPercentile(p) / 1000.0);
+        }
+        valores.put("max", h.getMaxValue() / 1000.0);
+        return valores;
+    }
+}
@@ -0,0 +1,128 @@
+package com.biblioteca.estaticos;
+
+import com.biblioteca.controller.EstaticosPrecomprimidos;
+import com.biblioteca.controller.OpcoesCompressao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Roda no build (./gradlew precomprimirEstaticos, dependência do
+// processResources): copia src/main/resources/static para o diretório de
+// saída trocando o nome de cada arquivo não-HTML por um com o hash do
+// conteúdo, reescreve as referências nas páginas e grava ao lado as
+// versões .gz e .br, mais o manifesto lido por EstaticosPrecomprimidos.
+public final class PrecomprimirEstaticos {
+    private static final OpcoesCompressao COMPRESSAO = OpcoesCompressao.MAXIMA;
+    private static final int TAMANHO_HASH = 12;
+
+    private PrecomprimirEstaticos() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: PrecomprimirEstaticos <entrada> <saida>");
+            System.exit(2);
+        }
+        Path entrada = Path.of(args[0]);
+        Path saida = Path.of(args[1]);
+        Files.createDirectories(saida);
+        List<String> relativos = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.walk(entrada)) {
+            arquivos.filter(Files::isRegularFile)
+                    .map(p -> entrada.relativize(p).toString().replace('\\', '/'))
+                    .sorted()
+                    .forEach(relativos::add);
+        }
+
+        // Primeiro os recursos, para que as páginas já apontem para os nomes com hash.
+        Map<String, String> renomeados = new LinkedHashMap<>();
+        List<String> manifesto = new ArrayList<>();
+        for (String relativo : relativos) {
+            if (!ehPagina(relativo)) {
+                byte[] bytes = Files.readAllBytes(entrada.resolve(relativo));
+                String hash = hash(bytes);
+                String comHash = comHash(relativo, hash);
+                renomeados.put(relativo, comHash);
+                manifesto.add(gravar(saida, comHash, bytes, hash, true));
+            }
+        }
+        for (String relativo : relativos) {
+            if (ehPagina(relativo)) {
+                String html = Files.readString(entrada.resolve(relativo), StandardCharsets.UTF_8);
+                byte[] bytes = reescrever(html, renomeados).getBytes(StandardCharsets.UTF_8);
+                manifesto.add(gravar(saida, relativo, bytes, hash(bytes), false));
+            }
+        }
+        Files.write(saida.resolve(EstaticosPrecomprimidos.MANIFESTO), manifesto, StandardCharsets.UTF_8);
+        System.out.println("Arquivos estáticos gerados em " + saida + ": " + manifesto.size()
+                + (OpcoesCompressao.brotliDisponivel() ? "" : " (sem brotli nesta plataforma)"));
+    }
+
+    // Devolve a linha do manifesto do arquivo.
+    private static String gravar(Path saida, String relativo, byte[] bytes, String hash, boolean imutavel)
+            throws IOException {
+        Path destino = saida.resolve(relativo);
+        Files.createDirectories(destino.getParent());
+        Files.write(destino, bytes);
+        List<String> codificacoes = new ArrayList<>();
+        // Só guarda a variante se ela for de fato menor.
+        byte[] brotli = COMPRESSAO.brotli(bytes);
+        if (brotli != null && brotli.length < bytes.length) {
+            Files.write(saida.resolve(relativo + ".br"), brotli);
+            codificacoes.add("br");
+        }
+        byte[] gzip = COMPRESSAO.gzip(bytes);
+        if (gzip.length < bytes.length) {
+            Files.write(saida.resolve(relativo + ".gz"), gzip);
+            codificacoes.add("gzip");
+        }
+        return String.join("\t", "/" + relativo, hash, imutavel ? "1" : "0", String.join(",", codificacoes));
+    }
+
+    // Troca href/src que apontam para um recurso renomeado, com ou sem a
+    // barra inicial.
+    static String reescrever(String html, Map<String, String> renomeados) {
+        String resultado = html;
+        for (Map.Entry<String, String> e : renomeados.entrySet()) {
+            Pattern referencia = Pattern.compile("([\"'])(/?)" + Pattern.quote(e.getKey()) + "([\"'?#])");
+            resultado = referencia.matcher(resultado)
+                    .replaceAll("$1$2" + Matcher.quoteReplacement(e.getValue()) + "$3");
+        }
+        return resultado;
+    }
+
+    private static boolean ehPagina(String relativo) {
+        return relativo.toLowerCase(Locale.ROOT).endsWith(".html");
+    }
+
+    private static String comHash(String relativo, String hash) {
+        int barra = relativo.lastIndexOf('/');
+        int ponto = relativo.lastIndexOf('.');
+        if (ponto <= barra) {
+            return relativo + "." + hash;
+        }
+        return relativo.substring(0, ponto) + "." + hash + relativo.substring(ponto);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(resumo).substring(0, TAMANHO_HASH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
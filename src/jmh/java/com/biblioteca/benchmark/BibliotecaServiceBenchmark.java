@@ -0,0 +1,40 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.BibliotecaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BibliotecaServiceBenchmark {
+
+    @Param({"100", "10000"})
+    public int tamanho;
+
+    private BibliotecaService service;
+
+    @Setup
+    public void preparar() {
+        service = new BibliotecaService(Catalogos.repositorio(tamanho));
+    }
+
+    @Benchmark
+    public List<Livro> listarLivros() {
+        return service.listarLivros();
+    }
+}
@@ -0,0 +1,27 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+
+// Dados sintéticos compartilhados pelos benchmarks: títulos únicos,
+// autores repetidos e categorias em rodízio, como num acervo real.
+final class Catalogos {
+    private static final Categoria[] CATEGORIAS = Categoria.values();
+
+    private Catalogos() {
+    }
+
+    static Livro livro(long i) {
+        return new Livro("Livro " + i, "Autor " + (i % 997), CATEGORIAS[(int) (i % CATEGORIAS.length)]);
+    }
+
+    static LivroRepository repositorio(int tamanho) {
+        LivroRepository repository = new LivroRepositoryMemoria();
+        for (int i = 0; i < tamanho; i++) {
+            repository.adicionar(livro(i));
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,53 @@
+package com.biblioteca.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Roda os benchmarks uma vez para cada quantidade de threads pedida, cada
+// rodada gravando seu próprio JSON (jmh-<commit>-<n>t.json), no formato
+// que o JMH Visualizer e o jmh-compare entendem.
+public final class ExecutorBenchmarks {
+
+    private ExecutorBenchmarks() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        Path resultados = Path.of(System.getProperty("jmh.resultados", "build/reports/jmh"));
+        String commit = System.getProperty("jmh.commit", "local");
+        String include = System.getProperty("jmhInclude", "com\\.biblioteca\\.benchmark\\..*");
+        boolean rapido = Boolean.parseBoolean(System.getProperty("jmhRapido", "false"));
+        // Perfiladores do JMH pelo nome, separados por vírgula (gc mostra
+        // bytes alocados por operação).
+        String perfiladores = System.getProperty("jmhProf", "");
+        Files.createDirectories(resultados);
+
+        for (String valor : System.getProperty("jmhThreads", "1,4").split(",")) {
+            int threads = Integer.parseInt(valor.trim());
+            ChainedOptionsBuilder opcoes = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .forks(1)
+                    .jvmArgsAppend("-Xmx2g")
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultados.resolve("jmh-%s-%dt.json".formatted(commit, threads)).toString());
+            for (String perfilador : perfiladores.split(",")) {
+                if (!perfilador.isBlank()) {
+                    opcoes.addProfiler(perfilador.trim());
+                }
+            }
+            if (rapido) {
+                opcoes.warmupIterations(1).warmupTime(TimeValue.milliseconds(200))
+                        .measurementIterations(1).measurementTime(TimeValue.milliseconds(200));
+            }
+            new Runner(opcoes.build()).run();
+        }
+    }
+}
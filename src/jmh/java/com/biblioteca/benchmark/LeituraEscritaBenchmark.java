@@ -0,0 +1,65 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Carga mista sobre o repositório: cada operação é, com a probabilidade
+// dada, uma listagem completa percorrida até o fim; senão, a atualização
+// de um livro aleatório (o tamanho do catálogo não muda). Com várias
+// threads (-PjmhThreads) mostra o quanto as escritas atrapalham as
+// leituras do instantâneo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LeituraEscritaBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tamanho;
+
+    // Percentual de leituras: 90/10 e 99/1.
+    @Param({"90", "99"})
+    public int leituras;
+
+    private LivroRepository repository;
+    private String[] titulos;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        repository = Catalogos.repositorio(tamanho);
+        titulos = new String[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            titulos[i] = "Livro " + i;
+        }
+    }
+
+    @Benchmark
+    public void misto(Blackhole bh) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        if (aleatorio.nextInt(100) < leituras) {
+            for (Livro livro : repository.listarTodos()) {
+                bh.consume(livro);
+            }
+        } else {
+            int i = aleatorio.nextInt(tamanho);
+            Livro atual = repository.buscarPorTitulo(titulos[i]);
+            repository.atualizar(titulos[i], new Livro(titulos[i], "Autor " + aleatorio.nextInt(997), atual.getCategoria()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.dto.LivroDto;
+import com.biblioteca.model.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LivroDtoBenchmark {
+
+    private final Livro livro = Catalogos.livro(42);
+    // Categoria em minúsculas, como chega dos formulários do front-end.
+    private final LivroDto dto = new LivroDto("Livro 42", "Autor 42", "ficcao");
+
+    @Benchmark
+    public LivroDto from() {
+        return LivroDto.from(livro);
+    }
+
+    @Benchmark
+    public Livro toModel() {
+        return dto.toModel();
+    }
+}
@@ -0,0 +1,84 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LivroRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int tamanho;
+
+    private LivroRepository repository;
+    private String[] titulos;
+    private String[] chaves;
+
+    // Buscas e listagens não mudam o catálogo: montado uma vez só, ele fica
+    // fora da conta de bytes por operação do -PjmhProf=gc.
+    @Setup(Level.Trial)
+    public void preparar() {
+        repository = Catalogos.repositorio(tamanho);
+        titulos = new String[tamanho];
+        chaves = new String[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            titulos[i] = "Livro " + i;
+            chaves[i] = "livro " + i;
+        }
+    }
+
+    // As adições vão para um catálogo próprio, recriado a cada iteração para
+    // que as de uma não inflem o tamanho medido na seguinte.
+    @State(Scope.Benchmark)
+    public static class Escrita {
+        LivroRepository repository;
+        final AtomicLong proximo = new AtomicLong();
+
+        @Setup(Level.Iteration)
+        public void preparar(LivroRepositoryBenchmark benchmark) {
+            repository = Catalogos.repositorio(benchmark.tamanho);
+            proximo.set(benchmark.tamanho);
+        }
+    }
+
+    @Benchmark
+    public void adicionar(Escrita escrita) {
+        escrita.repository.adicionar(Catalogos.livro(escrita.proximo.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Livro buscarPorTitulo() {
+        return repository.buscarPorTitulo(titulos[ThreadLocalRandom.current().nextInt(tamanho)]);
+    }
+
+    // O título já na forma normalizada vai direto ao mapa.
+    @Benchmark
+    public Livro buscarPorTituloNormalizado() {
+        return repository.buscarPorTitulo(chaves[ThreadLocalRandom.current().nextInt(tamanho)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Livro> listarTodos() {
+        return repository.listarTodos();
+    }
+}
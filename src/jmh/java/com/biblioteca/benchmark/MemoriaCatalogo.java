@@ -0,0 +1,77 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.busca.IndiceSugestoes;
+import com.biblioteca.busca.Tokenizador;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.util.Multiset;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+// Mede com o JOL o grafo inteiro alcançável a partir do repositório (mapas,
+// índices, instantâneo, revisões e os próprios livros) e imprime o custo por
+// livro e as classes que mais ocupam. Os autores chegam como strings novas a
+// cada livro, como viriam de um import ou do diário.
+//
+// Depois mede à parte as árvores de sugestões contra as próprias chaves
+// (títulos e autores dobrados, sem repetição): a diferença é o que os nós,
+// rótulos e listas dos melhores custam além do texto. As listas dos
+// melhores vêm contadas à parte, pelo tamanho de uma lista cheia: se
+// passarem do custo das chaves, vale guardá-las só nos nós mais rasos.
+//
+// ./gradlew memoriaCatalogo -PmemoriaLivros=2000000
+public final class MemoriaCatalogo {
+    private static final int CLASSES_NO_RELATORIO = 15;
+
+    private MemoriaCatalogo() {
+    }
+
+    public static void main(String[] args) {
+        int livros = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        LivroRepository repository = Catalogos.repositorio(livros);
+        GraphLayout grafo = GraphLayout.parseInstance(repository);
+        long total = grafo.totalSize();
+        System.out.printf("Livros: %,d%nTotal: %,d bytes (%.1f MiB)%nPor livro: %.1f bytes%n%n",
+                livros, total, total / (1024.0 * 1024), (double) total / livros);
+        imprimirClasses(grafo, livros);
+
+        IndiceSugestoes sugestoes = new IndiceSugestoes();
+        Set<String> chaves = new HashSet<>();
+        for (Livro livro : repository.percorrerTodos()) {
+            sugestoes.aoAdicionar(livro);
+            chaves.add(Tokenizador.dobrar(livro.getTitulo().trim()));
+            chaves.add(Tokenizador.dobrar(livro.getAutor().trim()));
+        }
+        // Só as strings: o conjunto em volta delas não conta.
+        long bytesChaves = GraphLayout.parseInstance(chaves.toArray()).totalSize()
+                - GraphLayout.parseInstance((Object) new Object[chaves.size()]).totalSize();
+        GraphLayout arvores = GraphLayout.parseInstance(sugestoes);
+        int listas = sugestoes.totalListasMelhores(IndiceSugestoes.Campo.TITULO)
+                + sugestoes.totalListasMelhores(IndiceSugestoes.Campo.AUTOR);
+        long bytesMelhores = listas * ClassLayout.parseInstance(new Object[IndiceSugestoes.LIMITE_MAXIMO]).instanceSize();
+        System.out.printf("%nSugestões: %,d bytes (%.1f por livro), %,d nós%n"
+                        + "Chaves cruas: %,d bytes em %,d chaves (%.1fx)%n"
+                        + "Listas dos melhores: %,d, até %,d bytes (%.0f%% das chaves)%n%n",
+                arvores.totalSize(), (double) arvores.totalSize() / livros,
+                sugestoes.totalNos(IndiceSugestoes.Campo.TITULO) + sugestoes.totalNos(IndiceSugestoes.Campo.AUTOR),
+                bytesChaves, chaves.size(), (double) arvores.totalSize() / bytesChaves,
+                listas, bytesMelhores, 100.0 * bytesMelhores / bytesChaves);
+        imprimirClasses(arvores, livros);
+    }
+
+    private static void imprimirClasses(GraphLayout grafo, int livros) {
+        System.out.printf("%12s %14s %8s   %s%n", "QUANTIDADE", "BYTES", "POR LIVRO", "CLASSE");
+        Multiset<Class<?>> tamanhos = grafo.getClassSizes();
+        Multiset<Class<?>> quantidades = grafo.getClassCounts();
+        grafo.getClasses().stream()
+                .sorted(Comparator.comparingLong((Class<?> c) -> tamanhos.count(c)).reversed())
+                .limit(CLASSES_NO_RELATORIO)
+                .forEach(classe -> System.out.printf("%,12d %,14d %8.1f   %s%n",
+                        quantidades.count(classe), tamanhos.count(classe),
+                        (double) tamanhos.count(classe) / livros, classe.getName()));
+    }
+}
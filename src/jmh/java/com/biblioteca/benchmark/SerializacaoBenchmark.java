@@ -0,0 +1,73 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.dto.EscritorLivrosJson;
+import com.biblioteca.dto.LivroDto;
+import com.biblioteca.model.Livro;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Payload de GET /api/livros: o caminho antigo (lista de DTOs passada ao
+// ObjectMapper) contra a escrita em streaming do EscritorLivrosJson.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializacaoBenchmark {
+
+    @Param({"100", "10000"})
+    public int tamanho;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<Livro> livros;
+
+    @Setup
+    public void preparar() {
+        livros = Catalogos.repositorio(tamanho).listarTodos();
+    }
+
+    @Benchmark
+    public byte[] jacksonListaDeDtos() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(livros.stream().map(LivroDto::from).toList());
+    }
+
+    @Benchmark
+    public void escritorEmStreaming(Blackhole bh) throws IOException {
+        EscritorLivrosJson.escreverArray(livros, new Descarte(bh));
+    }
+
+    // Saída que só consome os bytes, como um socket infinitamente rápido.
+    private static final class Descarte extends OutputStream {
+        private final Blackhole bh;
+
+        Descarte(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bh.consume(len);
+        }
+    }
+}
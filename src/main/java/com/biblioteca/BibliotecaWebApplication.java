@@ -1,43 +1,172 @@
 package com.biblioteca;
 
 import com.biblioteca.controller.BibliotecaRestController;
+import com.biblioteca.controller.EstaticosPrecomprimidos;
+import com.biblioteca.controller.MetricasController;
+import com.biblioteca.controller.OpcoesCompressao;
+import com.biblioteca.exception.BibliotecaExceptionHandler;
+import com.biblioteca.metricas.RegistroMetricas;
+import com.biblioteca.persistencia.OpcoesPersistencia;
+import com.biblioteca.persistencia.PersistenciaLivros;
+import com.biblioteca.persistencia.PoliticaFsync;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import com.biblioteca.repository.LivroRepositoryMapeado;
 import com.biblioteca.service.BibliotecaService;
+import com.biblioteca.service.PipelineEscrita;
 import io.javalin.Javalin;
+import io.javalin.config.JavalinConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class BibliotecaWebApplication {
+    private static final Logger log = LoggerFactory.getLogger(BibliotecaWebApplication.class);
+    // Com este diretório definido, o catálogo passa a ser persistido em
+    // disco (diário de escrita + instantâneos) em vez de só em memória.
+    public static final String PROP_DIRETORIO_DADOS = "biblioteca.dados.diretorio";
+    public static final String PROP_FSYNC = "biblioteca.dados.fsync";
+    // "diario" (padrão) ou "mapeado": livros em arquivos mapeados na
+    // memória, fora do heap, em vez de diário + catálogo em memória.
+    public static final String PROP_ARMAZENAMENTO = "biblioteca.dados.armazenamento";
+    // Tamanho máximo do lote de escritas; zero (padrão) desliga o pipeline.
+    public static final String PROP_LOTE_ESCRITA = "biblioteca.escrita.lote";
+    public static final String PROP_LATENCIA_LOTE_MS = "biblioteca.escrita.latenciaMs";
+    public static final String PROP_THREADS_VIRTUAIS = "biblioteca.http.threadsVirtuais";
+    // Respostas menores que o mínimo vão sem compressão.
+    public static final String PROP_COMPRESSAO_MINIMO = "biblioteca.http.compressao.minimoBytes";
+    public static final String PROP_COMPRESSAO_NIVEL_GZIP = "biblioteca.http.compressao.nivelGzip";
+    public static final String PROP_COMPRESSAO_NIVEL_BROTLI = "biblioteca.http.compressao.nivelBrotli";
+    public static final String PROP_CACHE_RESPOSTAS_BYTES = "biblioteca.cache.respostas.bytes";
 
     public static void main(String[] args) {
-        LivroRepository livroRepository = new LivroRepository();
-        BibliotecaService service = new BibliotecaService(livroRepository);
-
-        Javalin app = Javalin.create(config -> {
-            config.staticFiles.add(staticFileConfig -> {
-                staticFileConfig.hostedPath = "/";
-                staticFileConfig.directory = "/static";
-                staticFileConfig.location = io.javalin.http.staticfiles.Location.CLASSPATH;
-            });
-        }).start(7000);
+        // O que precisa ser fechado na saída, na ordem em que foi aberto.
+        List<AutoCloseable> recursos = new ArrayList<>();
+        RegistroMetricas metricas = new RegistroMetricas();
+        LivroRepository livroRepository = criarRepositorio(recursos, metricas);
+        BibliotecaService service = criarService(livroRepository, recursos, metricas);
 
-        app.get("/", ctx -> ctx.redirect("/lista.html"));
+        Javalin app = criarApp(service, metricas, threadsVirtuais());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> encerrar(app, recursos), "encerramento"));
+        app.start(7000);
+    }
 
-        new BibliotecaRestController(app, service);
+    // Um gancho só, com ordem: primeiro o servidor para de aceitar
+    // requisições, depois o pipeline aplica o que já estava na fila e só
+    // então o armazenamento é fechado. Ganchos separados rodam em paralelo e
+    // podiam fechar o diário com o pipeline ainda escrevendo nele.
+    private static void encerrar(Javalin app, List<AutoCloseable> recursos) {
+        app.stop();
+        for (int i = recursos.size() - 1; i >= 0; i--) {
+            try {
+                recursos.get(i).close();
+            } catch (Exception e) {
+                log.error("operacao=encerrar recurso={}", recursos.get(i).getClass().getSimpleName(), e);
+            }
+        }
     }
     public static Javalin createApp(int port) {
-        LivroRepository livroRepository = new LivroRepository();
-        BibliotecaService service = new BibliotecaService(livroRepository);
-        Javalin app = Javalin.create(config -> {
-            config.staticFiles.add(staticFile -> {
-                staticFile.hostedPath = "/";
-                staticFile.directory = "/public";
-                staticFile.location = io.javalin.http.staticfiles.Location.CLASSPATH;
-            });
-        });
+        return createApp(port, threadsVirtuais());
+    }
+
+    // Cada aplicação com o seu registro de métricas: duas no mesmo processo
+    // (os testes, a carga) não somam as contagens uma da outra.
+    public static Javalin createApp(int port, boolean threadsVirtuais) {
+        RegistroMetricas metricas = new RegistroMetricas();
+        LivroRepository livroRepository = new LivroRepositoryMemoria(metricas);
+        BibliotecaService service = new BibliotecaService(livroRepository, metricas);
+        return criarApp(service, metricas, threadsVirtuais);
+    }
+
+    private static Javalin criarApp(BibliotecaService service, RegistroMetricas registro, boolean threadsVirtuais) {
+        OpcoesCompressao compressao = opcoesCompressao();
+        MetricasController metricas = new MetricasController(registro);
+        EstaticosPrecomprimidos estaticos = EstaticosPrecomprimidos.carregar();
+        Javalin app = Javalin.create(config -> configurar(config, threadsVirtuais, metricas, compressao, estaticos));
 
         app.get("/", ctx -> ctx.redirect("/lista.html"));
 
-        new BibliotecaRestController(app, service);
+        BibliotecaExceptionHandler.register(app, registro);
+        metricas.registrarRotas(app);
+        if (estaticos != null) {
+            estaticos.registrarRotas(app);
+        }
+        new BibliotecaRestController(app, service,
+                Long.getLong(PROP_CACHE_RESPOSTAS_BYTES, BibliotecaRestController.ORCAMENTO_CACHE_PADRAO), compressao,
+                registro);
 
         return app;
     }
+
+    // Com threads virtuais, o Jetty atende cada requisição numa thread
+    // virtual em vez de no pool limitado de threads de plataforma: uma
+    // requisição bloqueada (cliente lento, fsync do diário) não ocupa mais
+    // uma vaga do pool. O repositório só usa ReentrantLock, que não prende
+    // a thread virtual à thread portadora como synchronized faria.
+    private static void configurar(JavalinConfig config, boolean threadsVirtuais, MetricasController metricas,
+                                   OpcoesCompressao compressao, EstaticosPrecomprimidos estaticos) {
+        config.useVirtualThreads = threadsVirtuais;
+        config.requestLogger.http(metricas.registrador());
+        config.http.customCompression(compressao.estrategiaJavalin());
+        // Sem os arquivos gerados no build, serve /static como está.
+        if (estaticos != null) {
+            return;
+        }
+        config.staticFiles.add(staticFile -> {
+            staticFile.hostedPath = "/";
+            staticFile.directory = "/static";
+            staticFile.location = io.javalin.http.staticfiles.Location.CLASSPATH;
+        });
+    }
+
+    private static OpcoesCompressao opcoesCompressao() {
+        OpcoesCompressao padrao = OpcoesCompressao.PADRAO;
+        return new OpcoesCompressao(
+                Integer.getInteger(PROP_COMPRESSAO_MINIMO, padrao.minimoBytes()),
+                Integer.getInteger(PROP_COMPRESSAO_NIVEL_GZIP, padrao.nivelGzip()),
+                Integer.getInteger(PROP_COMPRESSAO_NIVEL_BROTLI, padrao.nivelBrotli()));
+    }
+
+    private static boolean threadsVirtuais() {
+        return Boolean.getBoolean(PROP_THREADS_VIRTUAIS);
+    }
+
+    private static BibliotecaService criarService(LivroRepository livroRepository, List<AutoCloseable> recursos,
+                                                  RegistroMetricas metricas) {
+        int lote = Integer.getInteger(PROP_LOTE_ESCRITA, 0);
+        if (lote <= 0) {
+            return new BibliotecaService(livroRepository, metricas);
+        }
+        PipelineEscrita.Opcoes padrao = PipelineEscrita.Opcoes.PADRAO;
+        Duration latencia = Duration.ofMillis(Long.getLong(PROP_LATENCIA_LOTE_MS, padrao.maxLatencia().toMillis()));
+        PipelineEscrita pipeline = new PipelineEscrita(livroRepository,
+                new PipelineEscrita.Opcoes(lote, latencia, padrao.capacidadeFila()));
+        recursos.add(pipeline);
+        return new BibliotecaService(livroRepository, pipeline, metricas);
+    }
+
+    private static LivroRepository criarRepositorio(List<AutoCloseable> recursos, RegistroMetricas metricas) {
+        String diretorio = System.getProperty(PROP_DIRETORIO_DADOS);
+        if (diretorio == null || diretorio.isBlank()) {
+            return new LivroRepositoryMemoria(metricas);
+        }
+        if ("mapeado".equalsIgnoreCase(System.getProperty(PROP_ARMAZENAMENTO, "diario").trim())) {
+            LivroRepositoryMapeado mapeado = LivroRepositoryMapeado.abrir(Path.of(diretorio), metricas);
+            recursos.add(mapeado);
+            return mapeado;
+        }
+        OpcoesPersistencia opcoes = OpcoesPersistencia.PADRAO;
+        String fsync = System.getProperty(PROP_FSYNC);
+        if (fsync != null && !fsync.isBlank()) {
+            opcoes = opcoes.comPolitica(PoliticaFsync.valueOf(fsync.trim().toUpperCase(Locale.ROOT)));
+        }
+        PersistenciaLivros persistencia = PersistenciaLivros.abrir(Path.of(diretorio), opcoes, metricas);
+        recursos.add(persistencia);
+        return persistencia.repositorio();
+    }
 }
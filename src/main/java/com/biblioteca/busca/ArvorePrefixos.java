@@ -0,0 +1,301 @@
+package com.biblioteca.busca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Radix trie persistente: cada escrita copia só o caminho até a folha e
+// publica a nova raiz num campo volatile, então as leituras não travam e
+// sempre enxergam uma árvore consistente. Cada nó guarda os K melhores
+// textos da sua subárvore, o que torna a sugestão uma simples descida.
+final class ArvorePrefixos {
+    static final int K = 10;
+
+    private static final char[] SEM_ROTULO = new char[0];
+    private static final No[] SEM_FILHOS = new No[0];
+    private static final Entrada[] SEM_ENTRADAS = new Entrada[0];
+
+    // Mais ocorrências primeiro (autores com vários livros), depois os
+    // textos mais curtos, depois ordem alfabética.
+    private static final Comparator<Entrada> RANKING = Comparator
+            .comparingInt(Entrada::ocorrencias).reversed()
+            .thenComparingInt((Entrada e) -> e.texto().length())
+            .thenComparing(Entrada::texto);
+
+    record Entrada(String texto, int ocorrencias) {
+    }
+
+    private record No(char[] rotulo, No[] filhos, Entrada[] entradas, Entrada[] melhores) {
+        static No de(char[] rotulo, No[] filhos, Entrada[] entradas) {
+            return new No(rotulo, filhos, entradas, melhoresDe(filhos, entradas));
+        }
+
+        boolean vazio() {
+            return filhos.length == 0 && entradas.length == 0;
+        }
+    }
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private volatile No raiz = No.de(SEM_ROTULO, SEM_FILHOS, SEM_ENTRADAS);
+
+    void adicionar(String chave, String texto) {
+        trava.lock();
+        try {
+            raiz = inserir(raiz, chave, 0, texto);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    void remover(String chave, String texto) {
+        trava.lock();
+        try {
+            No nova = retirar(raiz, chave, 0, texto);
+            raiz = nova != null ? nova : No.de(SEM_ROTULO, SEM_FILHOS, SEM_ENTRADAS);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    void limpar() {
+        trava.lock();
+        try {
+            raiz = No.de(SEM_ROTULO, SEM_FILHOS, SEM_ENTRADAS);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    List<String> sugerir(String prefixo, int limite) {
+        No no = raiz;
+        int pos = 0;
+        while (pos < prefixo.length()) {
+            No filho = filhoPor(no, prefixo.charAt(pos));
+            if (filho == null) {
+                return List.of();
+            }
+            int comparar = Math.min(filho.rotulo().length, prefixo.length() - pos);
+            for (int i = 0; i < comparar; i++) {
+                if (filho.rotulo()[i] != prefixo.charAt(pos + i)) {
+                    return List.of();
+                }
+            }
+            pos += comparar;
+            no = filho;
+        }
+        int n = Math.min(limite, no.melhores().length);
+        List<String> textos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            textos.add(no.melhores()[i].texto());
+        }
+        return textos;
+    }
+
+    int contarNos() {
+        return contar(raiz);
+    }
+
+    private static int contar(No no) {
+        int total = 1;
+        for (No filho : no.filhos()) {
+            total += contar(filho);
+        }
+        return total;
+    }
+
+    // Nós com lista dos melhores própria; nas folhas de uma entrada só ela
+    // é o próprio array de entradas e não custa nada a mais.
+    int contarListasMelhores() {
+        return contarListas(raiz);
+    }
+
+    private static int contarListas(No no) {
+        int total = no.melhores() != no.entradas() ? 1 : 0;
+        for (No filho : no.filhos()) {
+            total += contarListas(filho);
+        }
+        return total;
+    }
+
+    // pos aponta para o primeiro caractere da chave depois do rótulo de "no".
+    private static No inserir(No no, String chave, int pos, String texto) {
+        if (pos == chave.length()) {
+            return No.de(no.rotulo(), no.filhos(), somar(no.entradas(), texto, 1));
+        }
+        int i = indiceFilho(no.filhos(), chave.charAt(pos));
+        if (i < 0) {
+            No folha = No.de(chave.substring(pos).toCharArray(), SEM_FILHOS,
+                    new Entrada[]{new Entrada(texto, 1)});
+            return No.de(no.rotulo(), inserirFilho(no.filhos(), -(i + 1), folha), no.entradas());
+        }
+        No filho = no.filhos()[i];
+        int comum = prefixoComum(filho.rotulo(), chave, pos);
+        if (comum < filho.rotulo().length) {
+            // Quebra a aresta: o trecho comum vira um nó intermediário.
+            No resto = new No(Arrays.copyOfRange(filho.rotulo(), comum, filho.rotulo().length),
+                    filho.filhos(), filho.entradas(), filho.melhores());
+            filho = No.de(Arrays.copyOf(filho.rotulo(), comum), new No[]{resto}, SEM_ENTRADAS);
+        }
+        No[] filhos = no.filhos().clone();
+        filhos[i] = inserir(filho, chave, pos + comum, texto);
+        return No.de(no.rotulo(), filhos, no.entradas());
+    }
+
+    // Devolve null quando o nó fica sem conteúdo; nós com um único filho e
+    // nenhuma entrada são fundidos com ele para manter a árvore compacta.
+    private static No retirar(No no, String chave, int pos, String texto) {
+        No[] filhos = no.filhos();
+        Entrada[] entradas = no.entradas();
+        if (pos == chave.length()) {
+            entradas = somar(entradas, texto, -1);
+            if (entradas == no.entradas()) {
+                return no;
+            }
+        } else {
+            int i = indiceFilho(filhos, chave.charAt(pos));
+            if (i < 0) {
+                return no;
+            }
+            No filho = filhos[i];
+            if (prefixoComum(filho.rotulo(), chave, pos) < filho.rotulo().length) {
+                return no;
+            }
+            No novoFilho = retirar(filho, chave, pos + filho.rotulo().length, texto);
+            if (novoFilho == filho) {
+                return no;
+            }
+            filhos = novoFilho == null ? removerFilho(filhos, i) : substituirFilho(filhos, i, novoFilho);
+        }
+        boolean ehRaiz = no.rotulo().length == 0;
+        if (!ehRaiz && entradas.length == 0) {
+            if (filhos.length == 0) {
+                return null;
+            }
+            if (filhos.length == 1) {
+                No unico = filhos[0];
+                char[] rotulo = Arrays.copyOf(no.rotulo(), no.rotulo().length + unico.rotulo().length);
+                System.arraycopy(unico.rotulo(), 0, rotulo, no.rotulo().length, unico.rotulo().length);
+                return new No(rotulo, unico.filhos(), unico.entradas(), unico.melhores());
+            }
+        }
+        return No.de(no.rotulo(), filhos, entradas);
+    }
+
+    private static Entrada[] somar(Entrada[] entradas, String texto, int delta) {
+        for (int i = 0; i < entradas.length; i++) {
+            if (entradas[i].texto().equals(texto)) {
+                int ocorrencias = entradas[i].ocorrencias() + delta;
+                if (ocorrencias > 0) {
+                    Entrada[] copia = entradas.clone();
+                    copia[i] = new Entrada(texto, ocorrencias);
+                    return copia;
+                }
+                Entrada[] menor = new Entrada[entradas.length - 1];
+                System.arraycopy(entradas, 0, menor, 0, i);
+                System.arraycopy(entradas, i + 1, menor, i, entradas.length - i - 1);
+                return menor;
+            }
+        }
+        if (delta <= 0) {
+            return entradas;
+        }
+        Entrada[] maior = Arrays.copyOf(entradas, entradas.length + 1);
+        maior[entradas.length] = new Entrada(texto, delta);
+        return maior;
+    }
+
+    // Os melhores de cada filho já vêm ordenados: basta uma intercalação
+    // dos K primeiros, sem juntar e ordenar todos os candidatos. É o
+    // trecho mais quente da inserção, refeito em cada nó do caminho.
+    private static Entrada[] melhoresDe(No[] filhos, Entrada[] entradas) {
+        if (filhos.length == 0 && entradas.length <= 1) {
+            return entradas;
+        }
+        Entrada[] proprias = entradas;
+        if (entradas.length > 1) {
+            proprias = entradas.clone();
+            Arrays.sort(proprias, RANKING);
+        }
+        int disponiveis = proprias.length;
+        for (No filho : filhos) {
+            disponiveis += filho.melhores().length;
+        }
+        Entrada[] melhores = new Entrada[Math.min(K, disponiveis)];
+        int[] posicoes = new int[filhos.length + 1];
+        for (int n = 0; n < melhores.length; n++) {
+            int fonte = -1;
+            Entrada melhor = null;
+            if (posicoes[0] < proprias.length) {
+                melhor = proprias[posicoes[0]];
+                fonte = 0;
+            }
+            for (int f = 0; f < filhos.length; f++) {
+                Entrada[] doFilho = filhos[f].melhores();
+                int p = posicoes[f + 1];
+                if (p < doFilho.length && (melhor == null || RANKING.compare(doFilho[p], melhor) < 0)) {
+                    melhor = doFilho[p];
+                    fonte = f + 1;
+                }
+            }
+            melhores[n] = melhor;
+            posicoes[fonte]++;
+        }
+        return melhores;
+    }
+
+    private static No filhoPor(No no, char c) {
+        int i = indiceFilho(no.filhos(), c);
+        return i >= 0 ? no.filhos()[i] : null;
+    }
+
+    // Busca binária pelo primeiro caractere do rótulo, no estilo de
+    // Arrays.binarySearch: negativo indica o ponto de inserção.
+    private static int indiceFilho(No[] filhos, char c) {
+        int baixo = 0;
+        int alto = filhos.length - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            char atual = filhos[meio].rotulo()[0];
+            if (atual < c) {
+                baixo = meio + 1;
+            } else if (atual > c) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(baixo + 1);
+    }
+
+    private static int prefixoComum(char[] rotulo, String chave, int pos) {
+        int max = Math.min(rotulo.length, chave.length() - pos);
+        int i = 0;
+        while (i < max && rotulo[i] == chave.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static No[] inserirFilho(No[] filhos, int posicao, No filho) {
+        No[] maior = new No[filhos.length + 1];
+        System.arraycopy(filhos, 0, maior, 0, posicao);
+        maior[posicao] = filho;
+        System.arraycopy(filhos, posicao, maior, posicao + 1, filhos.length - posicao);
+        return maior;
+    }
+
+    private static No[] removerFilho(No[] filhos, int posicao) {
+        No[] menor = new No[filhos.length - 1];
+        System.arraycopy(filhos, 0, menor, 0, posicao);
+        System.arraycopy(filhos, posicao + 1, menor, posicao, filhos.length - posicao - 1);
+        return menor;
+    }
+
+    private static No[] substituirFilho(No[] filhos, int posicao, No filho) {
+        No[] copia = filhos.clone();
+        copia[posicao] = filho;
+        return copia;
+    }
+}
@@ -0,0 +1,212 @@
+package com.biblioteca.busca;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.ObservadorLivros;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+// Índice invertido sobre título e autor, mantido pelas mutações do
+// repositório e pontuado com BM25 por campo (título pesa mais que autor).
+public class IndiceBusca implements ObservadorLivros {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PESO_TITULO = 2.0;
+    private static final double PESO_AUTOR = 1.0;
+    private static final double FATOR_PREFIXO = 0.5;
+    private static final int MAX_EXPANSOES_PREFIXO = 64;
+
+    private static final Comparator<ResultadoBusca> ORDEM = Comparator
+            .comparingDouble(ResultadoBusca::pontuacao)
+            .thenComparing(r -> r.livro().getTitulo(), Comparator.reverseOrder());
+
+    private record Postagem(Livro livro, int tfTitulo, int tfAutor, int tamTitulo, int tamAutor) {
+    }
+
+    // termo -> (chave do título -> postagem)
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Postagem>> postagens = new ConcurrentHashMap<>();
+    // Dicionário ordenado de termos, usado só na expansão de prefixos.
+    private final ConcurrentSkipListSet<String> termos = new ConcurrentSkipListSet<>();
+    private final LongAdder documentos = new LongAdder();
+    private final LongAdder totalTitulo = new LongAdder();
+    private final LongAdder totalAutor = new LongAdder();
+    private final LongAdder totalPostagens = new LongAdder();
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        indexar(livro);
+    }
+
+    @Override
+    public void aoAtualizar(Livro antigo, Livro novo) {
+        desindexar(antigo);
+        indexar(novo);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        desindexar(livro);
+    }
+
+    @Override
+    public void aoLimpar() {
+        postagens.clear();
+        termos.clear();
+        documentos.reset();
+        totalTitulo.reset();
+        totalAutor.reset();
+        totalPostagens.reset();
+    }
+
+    public List<ResultadoBusca> pesquisar(String consulta, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser positivo: " + limite);
+        }
+        List<String> tokens = Tokenizador.tokens(consulta);
+        long n = documentos.sum();
+        if (tokens.isEmpty() || n == 0) {
+            return List.of();
+        }
+        double mediaTitulo = Math.max(1.0, (double) totalTitulo.sum() / n);
+        double mediaAutor = Math.max(1.0, (double) totalAutor.sum() / n);
+        // Enquanto o usuário digita, a última palavra ainda está incompleta.
+        boolean ultimoEhPrefixo = Character.isLetterOrDigit(consulta.charAt(consulta.length() - 1));
+
+        Map<Livro, double[]> pontuacoes = new IdentityHashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (ultimoEhPrefixo && i == tokens.size() - 1) {
+                int expansoes = 0;
+                for (String termo : termos.subSet(token, true, token + Character.MAX_VALUE, false)) {
+                    double peso = termo.equals(token) ? 1.0 : FATOR_PREFIXO;
+                    pontuar(termo, peso, n, mediaTitulo, mediaAutor, pontuacoes);
+                    if (++expansoes == MAX_EXPANSOES_PREFIXO) {
+                        break;
+                    }
+                }
+            } else {
+                pontuar(token, 1.0, n, mediaTitulo, mediaAutor, pontuacoes);
+            }
+        }
+        return melhores(pontuacoes, limite);
+    }
+
+    public int totalDocumentos() {
+        return documentos.intValue();
+    }
+
+    public int totalTermos() {
+        return postagens.size();
+    }
+
+    // Entradas (termo, livro) no índice: o que de fato ocupa memória.
+    public long totalPostagens() {
+        return totalPostagens.sum();
+    }
+
+    private void pontuar(String termo, double peso, long n, double mediaTitulo, double mediaAutor,
+                         Map<Livro, double[]> pontuacoes) {
+        Map<String, Postagem> docs = postagens.get(termo);
+        if (docs == null) {
+            return;
+        }
+        int df = docs.size();
+        double idf = Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+        for (Postagem p : docs.values()) {
+            double campos = PESO_TITULO * saturar(p.tfTitulo(), p.tamTitulo(), mediaTitulo)
+                    + PESO_AUTOR * saturar(p.tfAutor(), p.tamAutor(), mediaAutor);
+            pontuacoes.computeIfAbsent(p.livro(), l -> new double[1])[0] += peso * idf * campos;
+        }
+    }
+
+    private static double saturar(int tf, int tamanho, double media) {
+        if (tf == 0) {
+            return 0.0;
+        }
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * tamanho / media));
+    }
+
+    private static List<ResultadoBusca> melhores(Map<Livro, double[]> pontuacoes, int limite) {
+        PriorityQueue<ResultadoBusca> topo = new PriorityQueue<>(Math.min(limite, pontuacoes.size()) + 1, ORDEM);
+        for (Map.Entry<Livro, double[]> e : pontuacoes.entrySet()) {
+            topo.add(new ResultadoBusca(e.getKey(), e.getValue()[0]));
+            if (topo.size() > limite) {
+                topo.poll();
+            }
+        }
+        List<ResultadoBusca> resultado = new ArrayList<>(topo);
+        resultado.sort(ORDEM.reversed());
+        return resultado;
+    }
+
+    private void indexar(Livro livro) {
+        List<String> doTitulo = Tokenizador.tokens(livro.getTitulo());
+        List<String> doAutor = Tokenizador.tokens(livro.getAutor());
+        String chave = chave(livro);
+        for (Map.Entry<String, int[]> e : frequencias(doTitulo, doAutor).entrySet()) {
+            Postagem p = new Postagem(livro, e.getValue()[0], e.getValue()[1], doTitulo.size(), doAutor.size());
+            postagens.compute(e.getKey(), (termo, docs) -> {
+                var destino = docs != null ? docs : novoBalde(termo);
+                if (destino.put(chave, p) == null) {
+                    totalPostagens.increment();
+                }
+                return destino;
+            });
+        }
+        documentos.increment();
+        totalTitulo.add(doTitulo.size());
+        totalAutor.add(doAutor.size());
+    }
+
+    private void desindexar(Livro livro) {
+        List<String> doTitulo = Tokenizador.tokens(livro.getTitulo());
+        List<String> doAutor = Tokenizador.tokens(livro.getAutor());
+        String chave = chave(livro);
+        for (String termo : frequencias(doTitulo, doAutor).keySet()) {
+            // termos só muda dentro do compute do próprio termo, então
+            // dicionário e postagens nunca divergem.
+            postagens.computeIfPresent(termo, (t, docs) -> {
+                if (docs.remove(chave) != null) {
+                    totalPostagens.decrement();
+                }
+                if (docs.isEmpty()) {
+                    termos.remove(t);
+                    return null;
+                }
+                return docs;
+            });
+        }
+        documentos.decrement();
+        totalTitulo.add(-doTitulo.size());
+        totalAutor.add(-doAutor.size());
+    }
+
+    private ConcurrentHashMap<String, Postagem> novoBalde(String termo) {
+        termos.add(termo);
+        return new ConcurrentHashMap<>();
+    }
+
+    private static Map<String, int[]> frequencias(List<String> doTitulo, List<String> doAutor) {
+        Map<String, int[]> tf = new HashMap<>();
+        for (String t : doTitulo) {
+            tf.computeIfAbsent(t, k -> new int[2])[0]++;
+        }
+        for (String t : doAutor) {
+            tf.computeIfAbsent(t, k -> new int[2])[1]++;
+        }
+        return tf;
+    }
+
+    private static String chave(Livro livro) {
+        return livro.getTitulo().trim().toLowerCase(Locale.ROOT);
+    }
+}
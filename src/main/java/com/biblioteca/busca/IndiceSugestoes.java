@@ -0,0 +1,65 @@
+package com.biblioteca.busca;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.ObservadorLivros;
+
+import java.util.List;
+
+// Autocompletar de títulos e autores. As chaves são o texto dobrado
+// (minúsculo e sem acentos); a sugestão devolve o texto original.
+public class IndiceSugestoes implements ObservadorLivros {
+    public static final int LIMITE_MAXIMO = ArvorePrefixos.K;
+
+    public enum Campo { TITULO, AUTOR }
+
+    private final ArvorePrefixos titulos = new ArvorePrefixos();
+    private final ArvorePrefixos autores = new ArvorePrefixos();
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        titulos.adicionar(chave(livro.getTitulo()), livro.getTitulo());
+        autores.adicionar(chave(livro.getAutor()), livro.getAutor());
+    }
+
+    @Override
+    public void aoAtualizar(Livro antigo, Livro novo) {
+        aoRemover(antigo);
+        aoAdicionar(novo);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        titulos.remover(chave(livro.getTitulo()), livro.getTitulo());
+        autores.remover(chave(livro.getAutor()), livro.getAutor());
+    }
+
+    @Override
+    public void aoLimpar() {
+        titulos.limpar();
+        autores.limpar();
+    }
+
+    public List<String> sugerir(Campo campo, String prefixo, int limite) {
+        if (limite <= 0 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + LIMITE_MAXIMO + ": " + limite);
+        }
+        String chave = Tokenizador.dobrar(prefixo.stripLeading());
+        return (campo == Campo.AUTOR ? autores : titulos).sugerir(chave, limite);
+    }
+
+    // Percorre a árvore inteira: serve para métricas, não para o caminho
+    // das requisições.
+    public int totalNos(Campo campo) {
+        return (campo == Campo.AUTOR ? autores : titulos).contarNos();
+    }
+
+    // Quantos nós guardam a própria lista dos K melhores; também só para
+    // medir o custo dela.
+    public int totalListasMelhores(Campo campo) {
+        return (campo == Campo.AUTOR ? autores : titulos).contarListasMelhores();
+    }
+
+    private static String chave(String texto) {
+        return Tokenizador.dobrar(texto.trim());
+    }
+}
@@ -0,0 +1,6 @@
+package com.biblioteca.busca;
+
+import com.biblioteca.model.Livro;
+
+public record ResultadoBusca(Livro livro, double pontuacao) {
+}
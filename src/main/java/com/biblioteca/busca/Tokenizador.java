@@ -0,0 +1,55 @@
+package com.biblioteca.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class Tokenizador {
+
+    private Tokenizador() {
+    }
+
+    // "Ficção Científica" -> "ficcao cientifica": minúsculas e sem acentos,
+    // para que a busca não dependa de como o usuário digitou.
+    public static String dobrar(String texto) {
+        String minusculo = texto.toLowerCase(Locale.ROOT);
+        if (ehAscii(minusculo)) {
+            return minusculo;
+        }
+        String decomposto = Normalizer.normalize(minusculo, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposto.length());
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static List<String> tokens(String texto) {
+        String dobrado = dobrar(texto);
+        List<String> tokens = new ArrayList<>();
+        int inicio = -1;
+        for (int i = 0; i <= dobrado.length(); i++) {
+            boolean palavra = i < dobrado.length() && Character.isLetterOrDigit(dobrado.charAt(i));
+            if (palavra && inicio < 0) {
+                inicio = i;
+            } else if (!palavra && inicio >= 0) {
+                tokens.add(dobrado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean ehAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
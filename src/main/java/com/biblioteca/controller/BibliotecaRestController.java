@@ -1,43 +1,279 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.busca.IndiceSugestoes;
+import com.biblioteca.dto.EscritorLivrosCsv;
+import com.biblioteca.dto.EscritorLivrosJson;
+import com.biblioteca.dto.LeitorLivros;
 import com.biblioteca.dto.LivroDto;
+import com.biblioteca.dto.PaginaDto;
+import com.biblioteca.dto.ResultadoBuscaDto;
+import com.biblioteca.eventos.BarramentoMudancas;
+import com.biblioteca.exception.BibliotecaExceptionHandler;
+import com.biblioteca.metricas.RegistroMetricas;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import com.biblioteca.repository.FiltroLivros;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.ResultadoEscrita;
+import com.biblioteca.repository.Revisao;
 import com.biblioteca.service.BibliotecaService;
 import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+
+import java.io.IOException;
+import java.util.Locale;
 
 public class BibliotecaRestController {
 
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 1000;
+    private static final int LIMITE_BUSCA_PADRAO = 20;
+    private static final int LIMITE_BUSCA_MAXIMO = 100;
+    public static final long ORCAMENTO_CACHE_PADRAO = CacheRespostas.ORCAMENTO_PADRAO;
+
     private final BibliotecaService service;
+    private final CacheRespostas cache;
 
     public BibliotecaRestController(Javalin app, BibliotecaService service) {
+        this(app, service, ORCAMENTO_CACHE_PADRAO, OpcoesCompressao.PADRAO, new RegistroMetricas());
+    }
+
+    // orcamentoCache limita a memória das respostas já serializadas.
+    public BibliotecaRestController(Javalin app, BibliotecaService service, long orcamentoCache,
+                                    OpcoesCompressao compressao, RegistroMetricas metricas) {
         this.service = service;
+        this.cache = new CacheRespostas(orcamentoCache, compressao, metricas);
+        service.registrarObservador(cache);
+        metricas.medidor("biblioteca_cache_respostas_livros_bytes",
+                "Bytes das respostas por título em cache.", cache::bytesLivros);
+        BarramentoMudancas mudancas = new BarramentoMudancas();
+        service.registrarObservador(mudancas);
+        metricas.medidor("biblioteca_mudancas_assinantes",
+                "Conexões abertas no fluxo de mudanças.", mudancas::assinantes);
 
         app.get("/api/livros", ctx -> {
-            ctx.json(service.listarLivros().stream()
-                    .map(LivroDto::from).toList());
+            FiltroLivros filtro = filtroDe(ctx);
+            boolean paginado = !filtro.vazio() || ctx.queryParam("limit") != null || ctx.queryParam("cursor") != null;
+            boolean ndjson = !paginado && aceitaNdjson(ctx);
+            // Qualquer escrita muda a versão do catálogo, então ela valida
+            // tanto a lista completa quanto páginas e filtros.
+            ctx.header(Header.VARY, Header.ACCEPT + ", " + Header.ACCEPT_ENCODING);
+            Revisao revisao = service.revisaoCatalogo();
+            if (RespostaCondicional.naoModificado(ctx, "c", revisao, ndjson ? "ndjson" : "")) {
+                return;
+            }
+            if (paginado) {
+                listarPagina(ctx, filtro);
+            } else {
+                listarCompleta(ctx, revisao, ndjson);
+            }
+        });
+
+        // O que age sobre o catálogo inteiro fica fora de /api/livros/: lá,
+        // qualquer segmento é um título, e um livro chamado "export" não
+        // pode sumir atrás de uma rota. O POST /api/livros/bulk não colide
+        // porque não há POST /api/livros/{titulo}.
+        app.get("/api/catalogo/export", this::exportar);
+
+        app.sse("/api/catalogo/changes", new FluxoMudancas(mudancas, metricas));
+
+        app.get("/api/catalogo/search", ctx -> {
+            String consulta = ctx.queryParamAsClass("q", String.class).get();
+            int limite = ctx.queryParamAsClass("limit", Integer.class)
+                    .check(l -> l > 0 && l <= LIMITE_BUSCA_MAXIMO, "limit deve estar entre 1 e " + LIMITE_BUSCA_MAXIMO)
+                    .getOrDefault(LIMITE_BUSCA_PADRAO);
+            ctx.json(service.pesquisar(consulta, limite).stream()
+                    .map(ResultadoBuscaDto::from).toList());
+        });
+
+        app.get("/api/catalogo/suggest", ctx -> {
+            String prefixo = ctx.queryParamAsClass("prefix", String.class).get();
+            int limite = ctx.queryParamAsClass("limit", Integer.class)
+                    .check(l -> l > 0 && l <= IndiceSugestoes.LIMITE_MAXIMO,
+                            "limit deve estar entre 1 e " + IndiceSugestoes.LIMITE_MAXIMO)
+                    .getOrDefault(IndiceSugestoes.LIMITE_MAXIMO);
+            ctx.json(service.sugerir(campoDe(ctx.queryParam("campo")), prefixo, limite));
         });
 
         app.get("/api/livros/{titulo}", ctx -> {
             String titulo = ctx.pathParam("titulo");
-            ctx.json(LivroDto.from(service.buscarLivro(titulo)));
+            Revisao revisao = service.revisaoLivro(titulo);
+            if (revisao == null) {
+                // Sem revisão, quase sempre não há o livro: responde 404 sem
+                // passar por exceção.
+                Livro livro = service.localizarLivro(titulo);
+                if (livro instanceof LivroNulo) {
+                    BibliotecaExceptionHandler.responderErro(ctx, 404, BibliotecaService.mensagemNaoEncontrado(titulo));
+                } else {
+                    ctx.json(LivroDto.from(livro));
+                }
+                return;
+            }
+            ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+            if (RespostaCondicional.naoModificado(ctx, "l", revisao, "")) {
+                return;
+            }
+            Livro livro = service.buscarLivro(titulo);
+            CacheRespostas.Corpo corpo = cache.livro(livro, revisao.versao(),
+                    saida -> EscritorLivrosJson.escreverLivro(livro, saida));
+            if (corpo != null) {
+                CacheRespostas.escrever(ctx, corpo, ContentType.JSON);
+            } else {
+                ctx.json(LivroDto.from(livro));
+            }
+        });
+
+        app.post("/api/livros/bulk", ctx -> {
+            LeitorLivros.Formato formato = LeitorLivros.Formato.deContentType(ctx.contentType());
+            if (formato == null) {
+                throw new BadRequestResponse("Content-Type deve ser " + EscritorLivrosJson.CONTENT_TYPE_NDJSON
+                        + " ou " + LeitorLivros.CONTENT_TYPE_CSV);
+            }
+            ctx.json(service.importarLivros(formato, ctx.bodyInputStream()));
         });
 
         app.post("/api/livros", ctx -> {
             LivroDto dto = ctx.bodyAsClass(LivroDto.class);
-            service.adicionarLivro(dto.toModel());
-            ctx.status(200);
+            responder(ctx, service.tentarAdicionar(dto.toModel()));
         });
 
         app.put("/api/livros/{titulo}", ctx -> {
             String titulo = ctx.pathParam("titulo");
+            Long versao = versaoEsperada(ctx, titulo);
+            if (versao == null) {
+                return;
+            }
             LivroDto dto = ctx.bodyAsClass(LivroDto.class);
-            service.atualizarLivro(titulo, dto.toModel());
-            ctx.status(200);
+            responder(ctx, service.tentarAtualizar(titulo, dto.toModel(), versao));
         });
 
         app.delete("/api/livros/{titulo}", ctx -> {
             String titulo = ctx.pathParam("titulo");
-            service.removerLivro(titulo);
-            ctx.status(200);
+            Long versao = versaoEsperada(ctx, titulo);
+            if (versao == null) {
+                return;
+            }
+            responder(ctx, service.tentarRemover(titulo, versao));
         });
     }
+
+    // Sem If-Match, a escrita vale para qualquer revisão. Com ele, a
+    // revisão que casou com o ETag do cliente segue para o repositório, que
+    // a confere de novo, já com a trava da chave: uma escrita que chegue
+    // entre esta leitura e a gravação também acaba em 412. Devolve null
+    // (com o 412 já respondido) se nada casa.
+    private Long versaoEsperada(Context ctx, String titulo) {
+        String seCorresponder = ctx.header(Header.IF_MATCH);
+        if (seCorresponder == null) {
+            return LivroRepository.QUALQUER_REVISAO;
+        }
+        Revisao revisao = service.revisaoLivro(titulo);
+        if (!RespostaCondicional.seCorresponde(seCorresponder, "l", revisao)) {
+            BibliotecaExceptionHandler.responderErro(ctx, 412, revisao == null
+                    ? BibliotecaService.mensagemNaoEncontrado(titulo)
+                    : ResultadoEscrita.Modificado.de(titulo).mensagem());
+            return null;
+        }
+        return revisao.versao();
+    }
+
+    private static void responder(Context ctx, ResultadoEscrita resultado) {
+        switch (resultado) {
+            case ResultadoEscrita.Aplicada a -> ctx.status(200);
+            case ResultadoEscrita.NaoEncontrado n -> BibliotecaExceptionHandler.responderErro(ctx, 404, n.mensagem());
+            case ResultadoEscrita.Duplicado d -> BibliotecaExceptionHandler.responderErro(ctx, 409, d.mensagem());
+            case ResultadoEscrita.Modificado m -> BibliotecaExceptionHandler.responderErro(ctx, 412, m.mensagem());
+        }
+    }
+
+    // Serve os bytes em cache da versão atual; se a lista não couber no
+    // orçamento do cache, escreve em streaming.
+    private void listarCompleta(Context ctx, Revisao revisao, boolean ndjson) throws IOException {
+        CacheRespostas.Corpo corpo = cache.lista(revisao.versao(), ndjson, saida -> {
+            if (ndjson) {
+                EscritorLivrosJson.escreverNdjson(service.percorrerLivros(), saida);
+            } else {
+                EscritorLivrosJson.escreverArray(service.percorrerLivros(), saida);
+            }
+        });
+        if (corpo == null) {
+            listarEmStreaming(ctx, ndjson);
+        } else {
+            CacheRespostas.escrever(ctx, corpo, ndjson ? EscritorLivrosJson.CONTENT_TYPE_NDJSON : ContentType.JSON);
+        }
+    }
+
+    // Escreve direto do repositório para a resposta: nenhuma lista de
+    // livros ou de DTOs é montada em memória.
+    private void listarEmStreaming(Context ctx, boolean ndjson) throws IOException {
+        if (ndjson) {
+            ctx.contentType(EscritorLivrosJson.CONTENT_TYPE_NDJSON);
+            EscritorLivrosJson.escreverNdjson(service.percorrerLivros(), ctx.outputStream());
+        } else {
+            ctx.contentType(ContentType.APPLICATION_JSON);
+            EscritorLivrosJson.escreverArray(service.percorrerLivros(), ctx.outputStream());
+        }
+    }
+
+    // Exportação completa em NDJSON (padrão, o mesmo formato aceito por
+    // /api/livros/bulk) ou CSV com ?format=csv.
+    private void exportar(Context ctx) throws IOException {
+        String formato = ctx.queryParam("format");
+        if (formato == null || formato.equalsIgnoreCase("ndjson")) {
+            ctx.contentType(EscritorLivrosJson.CONTENT_TYPE_NDJSON);
+            EscritorLivrosJson.escreverNdjson(service.percorrerLivros(), ctx.outputStream());
+        } else if (formato.equalsIgnoreCase("csv")) {
+            ctx.contentType(LeitorLivros.CONTENT_TYPE_CSV + "; charset=utf-8");
+            EscritorLivrosCsv.escrever(service.percorrerLivros(), ctx.outputStream());
+        } else {
+            throw new BadRequestResponse("Formato inválido: " + formato);
+        }
+    }
+
+    private void listarPagina(Context ctx, FiltroLivros filtro) {
+        int limite = ctx.queryParamAsClass("limit", Integer.class)
+                .check(l -> l > 0 && l <= LIMITE_MAXIMO, "limit deve estar entre 1 e " + LIMITE_MAXIMO)
+                .getOrDefault(LIMITE_PADRAO);
+        try {
+            ctx.json(PaginaDto.from(service.listarPagina(filtro, ctx.queryParam("cursor"), limite)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse(e.getMessage());
+        }
+    }
+
+    private static boolean aceitaNdjson(Context ctx) {
+        String accept = ctx.header(Header.ACCEPT);
+        return accept != null && accept.contains(EscritorLivrosJson.CONTENT_TYPE_NDJSON);
+    }
+
+    private static FiltroLivros filtroDe(Context ctx) {
+        String categoria = ctx.queryParam("categoria");
+        String autor = ctx.queryParam("autor");
+        return new FiltroLivros(
+                categoria == null || categoria.isBlank() ? null : categoriaDe(categoria),
+                autor == null || autor.isBlank() ? null : autor);
+    }
+
+    private static Categoria categoriaDe(String valor) {
+        try {
+            return Categoria.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse("Categoria inválida: " + valor);
+        }
+    }
+
+    private static IndiceSugestoes.Campo campoDe(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return IndiceSugestoes.Campo.TITULO;
+        }
+        try {
+            return IndiceSugestoes.Campo.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse("Campo inválido: " + valor);
+        }
+    }
 }
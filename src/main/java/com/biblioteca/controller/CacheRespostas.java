@@ -0,0 +1,281 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.metricas.Contador;
+import com.biblioteca.metricas.RegistroMetricas;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.ObservadorLivros;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bytes já serializados (e já comprimidos em gzip e brotli) das leituras
+// quentes: a lista completa, em JSON e NDJSON, e cada livro buscado por
+// título. Os livros entram pelo próprio Livro, que o repositório devolve
+// sem alocar, e não pelo título normalizado: o corpo depende só do
+// conteúdo dele, e a consulta não monta chave nenhuma. Cada corpo guarda a versão do catálogo (ou a revisão do livro)
+// com que foi gerado e só é servido enquanto ela for a atual; além disso,
+// as mutações do repositório descartam na hora as entradas que afetam,
+// para liberar a memória sem esperar a expulsão.
+final class CacheRespostas implements ObservadorLivros {
+    static final long ORCAMENTO_PADRAO = 64L * 1024 * 1024;
+    private static final int NUM_SEGMENTOS = 16;
+    // Custo aproximado de uma entrada por título além dos próprios bytes.
+    private static final int CUSTO_ENTRADA = 96;
+    private static final String METRICA = "biblioteca_cache_respostas_total";
+    private static final String AJUDA = "Consultas ao cache de respostas serializadas.";
+
+    record Corpo(long versao, byte[] bytes, byte[] gzip, byte[] brotli) {
+        long tamanho() {
+            return bytes.length + (gzip != null ? gzip.length : 0) + (brotli != null ? brotli.length : 0);
+        }
+    }
+
+    interface Serializador {
+        void escrever(OutputStream saida) throws IOException;
+    }
+
+    // LRU por segmento: o livro cai sempre no mesmo segmento, e a trava de
+    // um segmento não segura leituras dos outros.
+    private static final class Segmento {
+        final ReentrantLock trava = new ReentrantLock();
+        final LinkedHashMap<Livro, Corpo> entradas = new LinkedHashMap<>(16, 0.75f, true);
+        long bytes;
+    }
+
+    private final OpcoesCompressao compressao;
+    private final Contador listaAcertos;
+    private final Contador listaFalhas;
+    private final Contador livroAcertos;
+    private final Contador livroFalhas;
+    private final long limiteLista;
+    private final long limiteSegmento;
+    private final Segmento[] segmentos = new Segmento[NUM_SEGMENTOS];
+    private volatile Corpo listaJson;
+    private volatile Corpo listaNdjson;
+    // Versão cuja lista não coube no orçamento: até o catálogo mudar, ela
+    // é escrita em streaming sem tentar de novo.
+    private volatile long listaGrandeDemais = -1;
+
+    CacheRespostas(long orcamentoBytes, OpcoesCompressao compressao) {
+        this(orcamentoBytes, compressao, new RegistroMetricas());
+    }
+
+    // Metade do orçamento para as duas listas, metade para os livros.
+    CacheRespostas(long orcamentoBytes, OpcoesCompressao compressao, RegistroMetricas metricas) {
+        this.compressao = compressao;
+        this.listaAcertos = contador(metricas, "lista", "acerto");
+        this.listaFalhas = contador(metricas, "lista", "falha");
+        this.livroAcertos = contador(metricas, "livro", "acerto");
+        this.livroFalhas = contador(metricas, "livro", "falha");
+        this.limiteLista = orcamentoBytes / 4;
+        this.limiteSegmento = orcamentoBytes / 2 / NUM_SEGMENTOS;
+        for (int i = 0; i < NUM_SEGMENTOS; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+
+    // null quando a lista não cabe no orçamento; nesse caso quem chamou
+    // deve escrever direto na resposta.
+    Corpo lista(long versao, boolean ndjson, Serializador serializador) throws IOException {
+        Corpo atual = ndjson ? listaNdjson : listaJson;
+        if (atual != null && atual.versao() == versao) {
+            listaAcertos.incrementar();
+            return atual;
+        }
+        listaFalhas.incrementar();
+        if (listaGrandeDemais == versao) {
+            return null;
+        }
+        Corpo novo = serializar(versao, serializador, limiteLista);
+        if (novo == null) {
+            listaGrandeDemais = versao;
+            return null;
+        }
+        if (ndjson) {
+            listaNdjson = novo;
+        } else {
+            listaJson = novo;
+        }
+        return novo;
+    }
+
+    Corpo livro(Livro livro, long revisao, Serializador serializador) throws IOException {
+        Segmento segmento = segmentoDe(livro);
+        segmento.trava.lock();
+        try {
+            Corpo atual = segmento.entradas.get(livro);
+            if (atual != null && atual.versao() == revisao) {
+                livroAcertos.incrementar();
+                return atual;
+            }
+        } finally {
+            segmento.trava.unlock();
+        }
+        livroFalhas.incrementar();
+        // Serializa fora da trava; null aqui só se um livro sozinho passar
+        // do segmento, o que na prática não acontece.
+        Corpo novo = serializar(revisao, serializador, limiteSegmento - CUSTO_ENTRADA);
+        if (novo == null) {
+            return null;
+        }
+        guardar(segmento, livro, novo);
+        return novo;
+    }
+
+    // Escreve o corpo com Content-Length, já comprimido se o cliente aceitar;
+    // com Content-Encoding definido, o Javalin não comprime de novo.
+    static void escrever(Context ctx, Corpo corpo, String contentType) throws IOException {
+        String codificacao = OpcoesCompressao.codificacaoAceita(ctx, corpo.brotli() != null, corpo.gzip() != null);
+        byte[] bytes = codificacao == null ? corpo.bytes()
+                : codificacao.equals("br") ? corpo.brotli() : corpo.gzip();
+        if (codificacao != null) {
+            ctx.header(Header.CONTENT_ENCODING, codificacao);
+        }
+        ctx.contentType(contentType);
+        ctx.header(Header.CONTENT_LENGTH, String.valueOf(bytes.length));
+        ctx.outputStream().write(bytes);
+    }
+
+    long bytesLivros() {
+        long total = 0;
+        for (Segmento segmento : segmentos) {
+            segmento.trava.lock();
+            try {
+                total += segmento.bytes;
+            } finally {
+                segmento.trava.unlock();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void aoAdicionar(Livro livro) {
+        invalidar(livro);
+    }
+
+    @Override
+    public void aoAtualizar(Livro antigo, Livro novo) {
+        invalidar(antigo);
+        invalidar(novo);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        invalidar(livro);
+    }
+
+    @Override
+    public void aoLimpar() {
+        listaJson = null;
+        listaNdjson = null;
+        for (Segmento segmento : segmentos) {
+            segmento.trava.lock();
+            try {
+                segmento.entradas.clear();
+                segmento.bytes = 0;
+            } finally {
+                segmento.trava.unlock();
+            }
+        }
+    }
+
+    private void invalidar(Livro livro) {
+        listaJson = null;
+        listaNdjson = null;
+        Segmento segmento = segmentoDe(livro);
+        segmento.trava.lock();
+        try {
+            Corpo removido = segmento.entradas.remove(livro);
+            if (removido != null) {
+                segmento.bytes -= removido.tamanho() + CUSTO_ENTRADA;
+            }
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    private void guardar(Segmento segmento, Livro livro, Corpo corpo) {
+        segmento.trava.lock();
+        try {
+            Corpo anterior = segmento.entradas.put(livro, corpo);
+            if (anterior != null) {
+                segmento.bytes -= anterior.tamanho() + CUSTO_ENTRADA;
+            }
+            segmento.bytes += corpo.tamanho() + CUSTO_ENTRADA;
+            // Expulsa pelo menos usado até caber.
+            Iterator<Map.Entry<Livro, Corpo>> it = segmento.entradas.entrySet().iterator();
+            while (segmento.bytes > limiteSegmento && it.hasNext()) {
+                Corpo expulso = it.next().getValue();
+                it.remove();
+                segmento.bytes -= expulso.tamanho() + CUSTO_ENTRADA;
+            }
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    private Corpo serializar(long versao, Serializador serializador, long limite) throws IOException {
+        SaidaLimitada saida = new SaidaLimitada(limite);
+        try {
+            serializador.escrever(saida);
+        } catch (LimiteExcedido e) {
+            return null;
+        }
+        byte[] bytes = saida.toByteArray();
+        if (bytes.length < compressao.minimoBytes()) {
+            return new Corpo(versao, bytes, null, null);
+        }
+        return new Corpo(versao, bytes, compressao.gzip(bytes), compressao.brotli(bytes));
+    }
+
+    private Segmento segmentoDe(Livro livro) {
+        int h = livro.hashCode();
+        return segmentos[(h ^ (h >>> 16)) & (NUM_SEGMENTOS - 1)];
+    }
+
+    private static Contador contador(RegistroMetricas metricas, String tipo, String resultado) {
+        return metricas.contador(METRICA, AJUDA, "tipo", tipo, "resultado", resultado);
+    }
+
+    private static final class SaidaLimitada extends ByteArrayOutputStream {
+        private final long limite;
+
+        SaidaLimitada(long limite) {
+            super(8192);
+            this.limite = limite;
+        }
+
+        @Override
+        public void write(int b) {
+            verificar(1);
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            verificar(len);
+            super.write(b, off, len);
+        }
+
+        private void verificar(int mais) {
+            if (count + (long) mais > limite) {
+                throw new LimiteExcedido();
+            }
+        }
+    }
+
+    // Só controla o fluxo de serializar(); sem stack trace.
+    private static final class LimiteExcedido extends RuntimeException {
+        LimiteExcedido() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.biblioteca.controller;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Serve os arquivos estáticos gerados no build (tarefa
+// precomprimirEstaticos): tudo é lido para a memória na subida, já com as
+// variantes .br e .gz, então nenhuma requisição comprime nada. Arquivos com
+// hash no nome nunca mudam e podem ficar em cache por um ano; as páginas
+// HTML mantêm o nome e são revalidadas pelo ETag.
+public final class EstaticosPrecomprimidos {
+    // No classpath: /estaticos/manifesto.txt, uma linha por arquivo com
+    // caminho, hash, imutável (1/0) e codificações geradas (br,gzip),
+    // separados por tabulação.
+    public static final String DIRETORIO = "estaticos";
+    public static final String MANIFESTO = "manifesto.txt";
+    private static final String CACHE_IMUTAVEL = "public, max-age=31536000, immutable";
+
+    private record Arquivo(String caminho, String etag, String tipo, boolean imutavel,
+                           byte[] bytes, byte[] gzip, byte[] brotli) {
+    }
+
+    private final List<Arquivo> arquivos;
+
+    private EstaticosPrecomprimidos(List<Arquivo> arquivos) {
+        this.arquivos = arquivos;
+    }
+
+    // null quando o build não gerou os arquivos (rodando da IDE, por
+    // exemplo); aí quem chamou serve /static do jeito comum.
+    public static EstaticosPrecomprimidos carregar() {
+        try (InputStream manifesto = recurso(MANIFESTO)) {
+            if (manifesto == null) {
+                return null;
+            }
+            List<Arquivo> arquivos = new ArrayList<>();
+            BufferedReader leitor = new BufferedReader(new InputStreamReader(manifesto, StandardCharsets.UTF_8));
+            for (String linha = leitor.readLine(); linha != null; linha = leitor.readLine()) {
+                if (!linha.isBlank()) {
+                    arquivos.add(ler(linha.split("\t", -1)));
+                }
+            }
+            return new EstaticosPrecomprimidos(List.copyOf(arquivos));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao carregar os arquivos estáticos", e);
+        }
+    }
+
+    public void registrarRotas(Javalin app) {
+        for (Arquivo arquivo : arquivos) {
+            app.get(arquivo.caminho(), ctx -> servir(ctx, arquivo));
+        }
+    }
+
+    private static void servir(Context ctx, Arquivo arquivo) throws IOException {
+        String codificacao = OpcoesCompressao.codificacaoAceita(ctx, arquivo.brotli() != null, arquivo.gzip() != null);
+        // Identidade, gzip e brotli são bytes diferentes: cada codificação
+        // leva o hash do arquivo com o próprio sufixo no ETag.
+        String etag = "\"" + arquivo.etag() + (codificacao == null ? "" : "-" + codificacao) + "\"";
+        ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+        ctx.header(Header.CACHE_CONTROL, arquivo.imutavel() ? CACHE_IMUTAVEL : "no-cache");
+        ctx.header(Header.ETAG, etag);
+        String seNenhum = ctx.header(Header.IF_NONE_MATCH);
+        if (seNenhum != null && RespostaCondicional.contem(seNenhum, etag)) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+        byte[] bytes = arquivo.bytes();
+        if (codificacao != null) {
+            ctx.header(Header.CONTENT_ENCODING, codificacao);
+            bytes = codificacao.equals("br") ? arquivo.brotli() : arquivo.gzip();
+        }
+        ctx.contentType(arquivo.tipo());
+        ctx.header(Header.CONTENT_LENGTH, String.valueOf(bytes.length));
+        ctx.outputStream().write(bytes);
+    }
+
+    private static Arquivo ler(String[] campos) throws IOException {
+        if (campos.length != 4) {
+            throw new IOException("Linha inválida no manifesto: " + String.join("\t", campos));
+        }
+        String caminho = campos[0];
+        List<String> codificacoes = List.of(campos[3].split(","));
+        return new Arquivo(caminho, campos[1], tipoDe(caminho), campos[2].equals("1"),
+                bytes(caminho),
+                codificacoes.contains("gzip") ? bytes(caminho + ".gz") : null,
+                codificacoes.contains("br") ? bytes(caminho + ".br") : null);
+    }
+
+    private static byte[] bytes(String caminho) throws IOException {
+        try (InputStream in = recurso(caminho.substring(1))) {
+            if (in == null) {
+                throw new IOException("Arquivo estático listado no manifesto não existe: " + caminho);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    private static InputStream recurso(String nome) {
+        return EstaticosPrecomprimidos.class.getResourceAsStream("/" + DIRETORIO + "/" + nome);
+    }
+
+    private static String tipoDe(String caminho) {
+        String extensao = caminho.substring(caminho.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return switch (extensao) {
+            case "html" -> "text/html; charset=utf-8";
+            case "css" -> "text/css; charset=utf-8";
+            case "js" -> "text/javascript; charset=utf-8";
+            case "svg" -> "image/svg+xml";
+            case "png" -> "image/png";
+            case "ico" -> "image/x-icon";
+            default -> "application/octet-stream";
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.dto.MudancaDto;
+import com.biblioteca.eventos.BarramentoMudancas;
+import com.biblioteca.eventos.Mudanca;
+import com.biblioteca.metricas.Contador;
+import com.biblioteca.metricas.RegistroMetricas;
+import io.javalin.http.sse.SseClient;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// GET /api/catalogo/changes em Server-Sent Events: cada mudança do catálogo
+// vira um evento (adicionado, atualizado, removido, limpo) com a sequência
+// no id. Ao reconectar, o EventSource devolve o último id em
+// Last-Event-ID, que vale mais que ?since=, e o fluxo continua de onde
+// parou. Quando não há de onde continuar (primeira conexão, sequência que
+// já saiu do anel), o primeiro evento é "recarregar": o cliente baixa a
+// lista inteira e aplica as mudanças seguintes por cima.
+//
+// Cada conexão tem a sua thread virtual, que bloqueia na escrita quando o
+// cliente não lê: é ela que segura o ritmo, enquanto a posição dele no anel
+// fica parada. Se a escrita do catálogo der uma volta inteira no anel, o
+// cliente lento é desconectado com um último "recarregar".
+final class FluxoMudancas implements Consumer<SseClient> {
+    private static final long BATIMENTO_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    private final BarramentoMudancas barramento;
+    private final Contador expulsos;
+
+    FluxoMudancas(BarramentoMudancas barramento, RegistroMetricas metricas) {
+        this.barramento = barramento;
+        this.expulsos = metricas.contador("biblioteca_mudancas_expulsos_total",
+                "Assinantes do fluxo de mudanças desconectados por ficarem uma volta do anel para trás.");
+    }
+
+    @Override
+    public void accept(SseClient cliente) {
+        String desde = cliente.ctx().header("Last-Event-ID");
+        if (desde == null) {
+            desde = cliente.ctx().queryParam("since");
+        }
+        BarramentoMudancas.Assinatura assinatura = barramento.assinar(sequencia(desde));
+        cliente.keepAlive();
+        cliente.onClose(assinatura::close);
+        Thread.ofVirtual().name("mudancas-sse").start(() -> transmitir(cliente, assinatura));
+    }
+
+    private void transmitir(SseClient cliente, BarramentoMudancas.Assinatura assinatura) {
+        try (assinatura) {
+            if (assinatura.precisaRecarregar()) {
+                recarregar(cliente, assinatura.entregue());
+            }
+            while (!cliente.terminated()) {
+                Mudanca mudanca = assinatura.proxima(BATIMENTO_NANOS);
+                if (mudanca != null) {
+                    cliente.sendEvent(mudanca.tipo().name().toLowerCase(Locale.ROOT), MudancaDto.from(mudanca),
+                            Long.toString(mudanca.sequencia()));
+                } else if (assinatura.ultrapassada()) {
+                    expulsos.incrementar();
+                    recarregar(cliente, barramento.ultimaSequencia());
+                    cliente.close();
+                } else if (!cliente.terminated()) {
+                    // Mantém a conexão viva e descobre clientes que já foram.
+                    cliente.sendComment("");
+                }
+            }
+        } finally {
+            cliente.close();
+        }
+    }
+
+    // O id do "recarregar" é o ponto a partir do qual a lista que o cliente
+    // vai baixar já contém tudo; reconectando com ele, não recarrega de novo.
+    private static void recarregar(SseClient cliente, long sequencia) {
+        // Com data vazio, o EventSource nem dispara o evento.
+        cliente.sendEvent("recarregar", Long.toString(sequencia), Long.toString(sequencia));
+    }
+
+    // Inválida ou ausente vira -1, que o barramento trata como "recarregar".
+    private static long sequencia(String valor) {
+        if (valor == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
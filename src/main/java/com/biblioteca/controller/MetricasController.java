@@ -0,0 +1,83 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.metricas.Contador;
+import com.biblioteca.metricas.Histograma;
+import com.biblioteca.metricas.RegistroMetricas;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import io.javalin.http.RequestLogger;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class MetricasController {
+
+    // Requisições que não casaram com nenhuma rota caem todas numa série
+    // só, para que caminhos arbitrários não criem séries novas.
+    private static final String ROTA_DESCONHECIDA = "desconhecida";
+    private static final String[] CLASSES_STATUS = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private record MetricasRota(Histograma latencia, Contador[] porClasseStatus) {
+    }
+
+    private final RegistroMetricas registro;
+    // Método -> caminho da rota (a própria String do Javalin, já existente)
+    // -> métricas. Depois da primeira requisição de cada rota, registrar
+    // é duas consultas a mapa e três LongAdders, sem alocar.
+    private final Map<HandlerType, ConcurrentHashMap<String, MetricasRota>> rotas = new EnumMap<>(HandlerType.class);
+
+    public MetricasController(RegistroMetricas registro) {
+        this.registro = registro;
+        for (HandlerType tipo : HandlerType.values()) {
+            rotas.put(tipo, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void registrarRotas(Javalin app) {
+        app.get("/metrics", ctx -> {
+            ctx.contentType(RegistroMetricas.CONTENT_TYPE);
+            Writer saida = new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8);
+            registro.escrever(saida);
+            saida.flush();
+        });
+    }
+
+    // Para config.requestLogger.http: roda depois de cada requisição, com o
+    // tempo de execução que o próprio Javalin mediu.
+    public RequestLogger registrador() {
+        return this::registrar;
+    }
+
+    private void registrar(Context ctx, Float execucaoMs) {
+        MetricasRota metricas = rotas.get(ctx.method())
+                .computeIfAbsent(rotaDe(ctx), rota -> criar(ctx.method(), rota));
+        metricas.latencia().registrar((long) (execucaoMs * TimeUnit.MILLISECONDS.toNanos(1)));
+        int classe = ctx.statusCode() / 100 - 1;
+        if (classe >= 0 && classe < CLASSES_STATUS.length) {
+            metricas.porClasseStatus()[classe].incrementar();
+        }
+    }
+
+    private static String rotaDe(Context ctx) {
+        String rota = ctx.endpointHandlerPath();
+        return rota == null || rota.isEmpty() || rota.equals("*") ? ROTA_DESCONHECIDA : rota;
+    }
+
+    private MetricasRota criar(HandlerType metodo, String rota) {
+        Histograma latencia = registro.histograma("biblioteca_http_duracao_segundos",
+                "Duração das requisições HTTP por rota.", "metodo", metodo.name(), "rota", rota);
+        Contador[] porClasse = new Contador[CLASSES_STATUS.length];
+        for (int i = 0; i < porClasse.length; i++) {
+            porClasse[i] = registro.contador("biblioteca_http_requisicoes_total",
+                    "Requisições HTTP por rota e classe de status.",
+                    "metodo", metodo.name(), "rota", rota, "status", CLASSES_STATUS[i]);
+        }
+        return new MetricasRota(latencia, porClasse);
+    }
+}
@@ -0,0 +1,125 @@
+package com.biblioteca.controller;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.javalin.compression.Brotli;
+import io.javalin.compression.CompressionStrategy;
+import io.javalin.compression.Gzip;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Compressão das respostas: a mesma configuração vale para o que o Javalin
+// comprime na hora, para os corpos do CacheRespostas e para os arquivos
+// estáticos comprimidos no build. Brotli depende da biblioteca nativa do
+// brotli4j; sem ela, fica só o gzip.
+public record OpcoesCompressao(int minimoBytes, int nivelGzip, int nivelBrotli) {
+
+    public static final OpcoesCompressao PADRAO = new OpcoesCompressao(1500, 6, 4);
+    // Para o que é comprimido uma vez só (arquivos estáticos no build).
+    public static final OpcoesCompressao MAXIMA = new OpcoesCompressao(0, Deflater.BEST_COMPRESSION, 11);
+
+    public OpcoesCompressao {
+        if (minimoBytes < 0) {
+            throw new IllegalArgumentException("Mínimo para comprimir não pode ser negativo: " + minimoBytes);
+        }
+        if (nivelGzip < 1 || nivelGzip > 9) {
+            throw new IllegalArgumentException("Nível de gzip deve estar entre 1 e 9: " + nivelGzip);
+        }
+        if (nivelBrotli < 0 || nivelBrotli > 11) {
+            throw new IllegalArgumentException("Nível de brotli deve estar entre 0 e 11: " + nivelBrotli);
+        }
+    }
+
+    public static boolean brotliDisponivel() {
+        return Brotli4jLoader.isAvailable();
+    }
+
+    public CompressionStrategy estrategiaJavalin() {
+        CompressionStrategy estrategia = new CompressionStrategy(
+                brotliDisponivel() ? new Brotli(nivelBrotli) : null, new Gzip(nivelGzip));
+        estrategia.setDefaultMinSizeForCompression(minimoBytes);
+        return estrategia;
+    }
+
+    public byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (OutputStream gzip = new GzipComNivel(saida, nivelGzip)) {
+            gzip.write(bytes);
+        }
+        return saida.toByteArray();
+    }
+
+    // null se o brotli não estiver disponível nesta plataforma.
+    public byte[] brotli(byte[] bytes) throws IOException {
+        if (!brotliDisponivel()) {
+            return null;
+        }
+        return Encoder.compress(bytes, new Encoder.Parameters().setQuality(nivelBrotli));
+    }
+
+    // Codificação preferida pelo cliente entre as disponíveis; null para a
+    // resposta sem compressão.
+    static String codificacaoAceita(Context ctx, boolean temBrotli, boolean temGzip) {
+        return codificacaoAceita(ctx.header(Header.ACCEPT_ENCODING), temBrotli, temGzip);
+    }
+
+    // Accept-Encoding como lista de codificações com peso (RFC 9110): ganha
+    // o maior q, br no empate; q=0 recusa a codificação, e "*" vale para as
+    // que não aparecem pelo nome. Compara tokens inteiros: "gzip" não casa
+    // com "x-gzip-foo", nem "br" com "vbr".
+    static String codificacaoAceita(String aceitas, boolean temBrotli, boolean temGzip) {
+        if (aceitas == null) {
+            return null;
+        }
+        double brotli = -1;
+        double gzip = -1;
+        double qualquer = -1;
+        for (String item : aceitas.split(",")) {
+            int pontoEVirgula = item.indexOf(';');
+            String nome = (pontoEVirgula < 0 ? item : item.substring(0, pontoEVirgula)).trim();
+            double q = pontoEVirgula < 0 ? 1 : peso(item.substring(pontoEVirgula + 1));
+            if (nome.equalsIgnoreCase("br")) {
+                brotli = q;
+            } else if (nome.equalsIgnoreCase("gzip")) {
+                gzip = q;
+            } else if (nome.equals("*")) {
+                qualquer = q;
+            }
+        }
+        brotli = temBrotli ? (brotli >= 0 ? brotli : qualquer) : 0;
+        gzip = temGzip ? (gzip >= 0 ? gzip : qualquer) : 0;
+        if (brotli > 0 && brotli >= gzip) {
+            return "br";
+        }
+        return gzip > 0 ? "gzip" : null;
+    }
+
+    // O q dos parâmetros, 1 sem ele; malformado conta como 0 (recusado).
+    private static double peso(String parametros) {
+        for (String parametro : parametros.split(";")) {
+            String p = parametro.trim();
+            if (p.length() > 2 && (p.charAt(0) == 'q' || p.charAt(0) == 'Q') && p.charAt(1) == '=') {
+                try {
+                    double q = Double.parseDouble(p.substring(2).trim());
+                    return q >= 0 && q <= 1 ? q : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static final class GzipComNivel extends GZIPOutputStream {
+        GzipComNivel(OutputStream saida, int nivel) throws IOException {
+            super(saida);
+            def.setLevel(nivel);
+        }
+    }
+}
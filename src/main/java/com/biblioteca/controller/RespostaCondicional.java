@@ -0,0 +1,92 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.repository.Revisao;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// GET condicional e escrita condicional a partir da revisão do
+// repositório: o validador sai da versão, então o 304 (ou o 412) é
+// decidido antes de buscar ou serializar qualquer livro.
+final class RespostaCondicional {
+
+    private RespostaCondicional() {
+    }
+
+    // Grava ETag, Last-Modified e Cache-Control na resposta e devolve true
+    // (já com 304) se a cópia do cliente ainda vale. "variante" separa
+    // representações diferentes da mesma URL (JSON e NDJSON, por exemplo);
+    // a codificação negociada entra nela também, porque identidade, gzip e
+    // brotli são bytes diferentes e um ETag forte não pode cobrir os três.
+    static boolean naoModificado(Context ctx, String prefixo, Revisao revisao, String variante) {
+        String codificacao = OpcoesCompressao.codificacaoAceita(ctx, OpcoesCompressao.brotliDisponivel(), true);
+        String etag = etag(prefixo, revisao, comCodificacao(variante, codificacao));
+        ctx.header(Header.ETAG, etag);
+        ctx.header(Header.LAST_MODIFIED, DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochMilli(revisao.modificadoEm()).atOffset(ZoneOffset.UTC)));
+        // Pode guardar, mas precisa revalidar a cada uso: sem isso o
+        // navegador estimaria a validade pelo Last-Modified e mostraria um
+        // catálogo velho sem perguntar.
+        ctx.header(Header.CACHE_CONTROL, "no-cache");
+
+        String seNenhum = ctx.header(Header.IF_NONE_MATCH);
+        boolean valido = seNenhum != null
+                ? contem(seNenhum, etag)
+                : naoModificadoDesde(ctx.header(Header.IF_MODIFIED_SINCE), revisao.modificadoEm());
+        if (valido) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+        }
+        return valido;
+    }
+
+    // If-Match de PUT/DELETE contra a revisão atual (null se o recurso não
+    // existe, e então só "*" também falha). A RFC pede comparação forte,
+    // mas o que se confere aqui é a revisão do livro, não os bytes de uma
+    // codificação: o ETag de qualquer uma delas vale, e um W/ posto por um
+    // intermediário também.
+    static boolean seCorresponde(String seCorresponder, String prefixo, Revisao revisao) {
+        return revisao != null && (contem(seCorresponder, etag(prefixo, revisao, ""))
+                || contem(seCorresponder, etag(prefixo, revisao, "gzip"))
+                || contem(seCorresponder, etag(prefixo, revisao, "br")));
+    }
+
+    private static String etag(String prefixo, Revisao revisao, String variante) {
+        return "\"" + prefixo + revisao.versao() + (variante.isEmpty() ? "" : "-" + variante) + "\"";
+    }
+
+    private static String comCodificacao(String variante, String codificacao) {
+        if (codificacao == null) {
+            return variante;
+        }
+        return variante.isEmpty() ? codificacao : variante + "-" + codificacao;
+    }
+
+    // Comparação fraca (RFC 9110, 13.1.2): W/"x" e "x" são equivalentes.
+    static boolean contem(String seNenhum, String etag) {
+        for (String candidato : seNenhum.split(",")) {
+            String c = candidato.trim();
+            if (c.equals("*") || (c.startsWith("W/") ? c.substring(2) : c).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Last-Modified tem resolução de segundos.
+    private static boolean naoModificadoDesde(String data, long modificadoEm) {
+        if (data == null) {
+            return false;
+        }
+        try {
+            long desde = DateTimeFormatter.RFC_1123_DATE_TIME.parse(data, Instant::from).toEpochMilli();
+            return modificadoEm / 1000 <= desde / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Livro;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Contraparte de LeitorLivros.lerCsv: o que sai daqui pode ser importado
+// de volta sem perdas.
+public final class EscritorLivrosCsv {
+    static final String CABECALHO = "titulo,autor,categoria\n";
+
+    private EscritorLivrosCsv() {
+    }
+
+    // Não fecha a saída, só a esvazia, pelo mesmo motivo de EscritorLivrosJson.
+    public static void escrever(Iterable<Livro> livros, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        escritor.write(CABECALHO);
+        for (Livro livro : livros) {
+            escreverCampo(escritor, livro.getTitulo());
+            escritor.write(',');
+            escreverCampo(escritor, livro.getAutor());
+            escritor.write(',');
+            escritor.write(livro.getCategoria().name());
+            escritor.write('\n');
+        }
+        escritor.flush();
+    }
+
+    private static void escreverCampo(Writer escritor, String valor) throws IOException {
+        if (!precisaDeAspas(valor)) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                escritor.write('"');
+            }
+            escritor.write(c);
+        }
+        escritor.write('"');
+    }
+
+    private static boolean precisaDeAspas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Livro;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public final class EscritorLivrosJson {
+    public static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+
+    // O gerador não deve fechar a saída: quem a abriu (Jetty, no caso do
+    // controller) é quem decide quando ela termina.
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private EscritorLivrosJson() {
+    }
+
+    public static void escreverArray(Iterable<Livro> livros, OutputStream saida) throws IOException {
+        try (JsonGenerator gen = FACTORY.createGenerator(saida)) {
+            gen.writeStartArray();
+            for (Livro livro : livros) {
+                escreverLivro(gen, livro);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    public static void escreverNdjson(Iterable<Livro> livros, OutputStream saida) throws IOException {
+        try (JsonGenerator gen = FACTORY.createGenerator(saida)) {
+            gen.setRootValueSeparator(null);
+            for (Livro livro : livros) {
+                escreverLivro(gen, livro);
+                gen.writeRaw('\n');
+            }
+        }
+    }
+
+    public static void escreverLivro(Livro livro, OutputStream saida) throws IOException {
+        try (JsonGenerator gen = FACTORY.createGenerator(saida)) {
+            escreverLivro(gen, livro);
+        }
+    }
+
+    // Mesmo formato de LivroDto, sem criar o DTO intermediário.
+    private static void escreverLivro(JsonGenerator gen, Livro livro) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("titulo", livro.getTitulo());
+        gen.writeStringField("autor", livro.getAutor());
+        gen.writeStringField("categoria", livro.getCategoria().name());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,312 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Leitura incremental de livros para a importação em massa: um registro
+// por vez, direto do corpo da requisição, sem carregar o arquivo inteiro.
+// Linhas inválidas não interrompem a leitura; viram erro com o número da
+// linha de origem. Uma linha (ou registro CSV) maior que MAX_REGISTRO
+// caracteres também vira erro, e é descartada sem ser guardada: um corpo
+// sem quebras de linha não enche a memória.
+public final class LeitorLivros {
+    public static final String CONTENT_TYPE_CSV = "text/csv";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    static final int MAX_REGISTRO = 64 * 1024;
+    private static final String[] CABECALHO = {"titulo", "autor", "categoria"};
+
+    public enum Formato {
+        NDJSON, CSV;
+
+        public void ler(InputStream entrada, Destino destino) throws IOException {
+            switch (this) {
+                case NDJSON -> lerNdjson(entrada, destino);
+                case CSV -> lerCsv(entrada, destino);
+            }
+        }
+
+        // null quando o tipo não é suportado
+        public static Formato deContentType(String contentType) {
+            if (contentType == null) {
+                return null;
+            }
+            String tipo = contentType.toLowerCase(Locale.ROOT);
+            if (tipo.startsWith(EscritorLivrosJson.CONTENT_TYPE_NDJSON)) {
+                return NDJSON;
+            }
+            if (tipo.startsWith(CONTENT_TYPE_CSV)) {
+                return CSV;
+            }
+            return null;
+        }
+    }
+
+    public interface Destino {
+        void livro(long linha, Livro livro);
+
+        void erro(long linha, String mensagem);
+    }
+
+    private LeitorLivros() {
+    }
+
+    public static void lerNdjson(InputStream entrada, Destino destino) throws IOException {
+        LeitorLinhas linhas = new LeitorLinhas(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        long linha = 0;
+        for (String texto = linhas.proxima(); texto != null; texto = linhas.proxima()) {
+            linha++;
+            if (linhas.longa()) {
+                destino.erro(linha, "Linha com mais de " + MAX_REGISTRO + " caracteres");
+                continue;
+            }
+            if (texto.isBlank()) {
+                continue;
+            }
+            try (JsonParser parser = FACTORY.createParser(texto)) {
+                entregar(linha, lerObjeto(parser), destino);
+            } catch (JsonProcessingException e) {
+                destino.erro(linha, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    // CSV no formato titulo,autor,categoria (RFC 4180: campos entre aspas
+    // podem conter vírgulas, quebras de linha e aspas duplicadas). Um
+    // cabeçalho na primeira linha é reconhecido e ignorado.
+    public static void lerCsv(InputStream entrada, Destino destino) throws IOException {
+        LeitorCsv csv = new LeitorCsv(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        boolean primeiro = true;
+        for (List<String> campos = csv.proximo(); campos != null; campos = csv.proximo()) {
+            long linha = csv.linhaInicial();
+            if (csv.longo()) {
+                primeiro = false;
+                destino.erro(linha, "Registro com mais de " + MAX_REGISTRO + " caracteres");
+                continue;
+            }
+            if (primeiro && ehCabecalho(campos)) {
+                primeiro = false;
+                continue;
+            }
+            primeiro = false;
+            if (campos.size() == 1 && campos.get(0).isBlank()) {
+                continue;
+            }
+            if (campos.size() != 3) {
+                destino.erro(linha, "Esperados 3 campos (titulo,autor,categoria), encontrados " + campos.size());
+                continue;
+            }
+            entregar(linha, campos.toArray(String[]::new), destino);
+        }
+        if (csv.aspasAbertas()) {
+            destino.erro(csv.linhaInicial(), "Aspas não fechadas até o fim do arquivo");
+        }
+    }
+
+    private static String[] lerObjeto(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "esperado um objeto");
+        }
+        String[] campos = new String[3];
+        for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String nome = parser.currentName();
+            JsonToken valor = parser.nextToken();
+            int indice = switch (nome) {
+                case "titulo" -> 0;
+                case "autor" -> 1;
+                case "categoria" -> 2;
+                default -> -1;
+            };
+            if (indice >= 0 && valor == JsonToken.VALUE_STRING) {
+                campos[indice] = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (parser.nextToken() != null) {
+            throw new JsonParseException(parser, "conteúdo após o objeto");
+        }
+        return campos;
+    }
+
+    private static void entregar(long linha, String[] campos, Destino destino) {
+        String titulo = campos[0];
+        String autor = campos[1];
+        if (titulo == null || titulo.isBlank()) {
+            destino.erro(linha, "Título obrigatório");
+            return;
+        }
+        if (autor == null || autor.isBlank()) {
+            destino.erro(linha, "Autor obrigatório");
+            return;
+        }
+        Categoria categoria = Categoria.porNome(campos[2]);
+        if (categoria == null) {
+            destino.erro(linha, "Categoria inválida: " + campos[2]);
+            return;
+        }
+        destino.livro(linha, new Livro(titulo, autor, categoria));
+    }
+
+    // Só titulo,autor,categoria, nessa ordem: "Titulo,Fulano,FICCAO" é um
+    // livro, não um cabeçalho.
+    private static boolean ehCabecalho(List<String> campos) {
+        return campos.size() == CABECALHO.length
+                && campos.get(0).trim().equalsIgnoreCase(CABECALHO[0])
+                && campos.get(1).trim().equalsIgnoreCase(CABECALHO[1])
+                && campos.get(2).trim().equalsIgnoreCase(CABECALHO[2]);
+    }
+
+    // readLine com limite: o que passa de MAX_REGISTRO é lido até a quebra
+    // de linha, mas descartado.
+    private static final class LeitorLinhas {
+        private final BufferedReader leitor;
+        private final StringBuilder texto = new StringBuilder();
+        private boolean longa;
+
+        LeitorLinhas(Reader leitor) {
+            this.leitor = new BufferedReader(leitor, TAMANHO_BUFFER);
+        }
+
+        boolean longa() {
+            return longa;
+        }
+
+        String proxima() throws IOException {
+            texto.setLength(0);
+            longa = false;
+            int c = leitor.read();
+            if (c < 0) {
+                return null;
+            }
+            for (; c >= 0 && c != '\n'; c = leitor.read()) {
+                if (texto.length() < MAX_REGISTRO) {
+                    texto.append((char) c);
+                } else {
+                    longa = true;
+                }
+            }
+            int fim = texto.length();
+            if (fim > 0 && texto.charAt(fim - 1) == '\r') {
+                texto.setLength(fim - 1);
+            }
+            return longa ? "" : texto.toString();
+        }
+    }
+
+    // Máquina de estados sobre os caracteres; só o registro corrente fica
+    // em memória, e no máximo MAX_REGISTRO caracteres dele.
+    private static final class LeitorCsv {
+        private final BufferedReader leitor;
+        private final StringBuilder campo = new StringBuilder();
+        private long linha = 1;
+        private long linhaInicial;
+        private boolean aspasAbertas;
+        private boolean longo;
+        private boolean fim;
+
+        LeitorCsv(Reader leitor) {
+            this.leitor = new BufferedReader(leitor, TAMANHO_BUFFER);
+        }
+
+        long linhaInicial() {
+            return linhaInicial;
+        }
+
+        boolean aspasAbertas() {
+            return aspasAbertas;
+        }
+
+        // O último registro passou de MAX_REGISTRO; os campos devolvidos
+        // estão incompletos.
+        boolean longo() {
+            return longo;
+        }
+
+        List<String> proximo() throws IOException {
+            if (fim) {
+                return null;
+            }
+            linhaInicial = linha;
+            List<String> campos = new ArrayList<>(3);
+            campo.setLength(0);
+            boolean entreAspas = false;
+            boolean leuAlgo = false;
+            int tamanho = 0;
+            longo = false;
+            while (true) {
+                int c = leitor.read();
+                if (c < 0) {
+                    fim = true;
+                    aspasAbertas = entreAspas;
+                    if (!leuAlgo) {
+                        return null;
+                    }
+                    campos.add(campo.toString());
+                    return campos;
+                }
+                leuAlgo = true;
+                if (++tamanho > MAX_REGISTRO) {
+                    longo = true;
+                }
+                if (entreAspas) {
+                    if (c == '"') {
+                        leitor.mark(1);
+                        if (leitor.read() == '"') {
+                            acrescentar('"');
+                        } else {
+                            leitor.reset();
+                            entreAspas = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            linha++;
+                        }
+                        acrescentar((char) c);
+                    }
+                    continue;
+                }
+                switch (c) {
+                    case '"' -> entreAspas = true;
+                    case ',' -> {
+                        if (!longo) {
+                            campos.add(campo.toString());
+                        }
+                        campo.setLength(0);
+                    }
+                    case '\r' -> {
+                        // CRLF: a quebra é tratada no \n
+                    }
+                    case '\n' -> {
+                        linha++;
+                        campos.add(campo.toString());
+                        return campos;
+                    }
+                    default -> acrescentar((char) c);
+                }
+            }
+        }
+
+        private void acrescentar(char c) {
+            if (!longo) {
+                campo.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.eventos.Mudanca;
+
+public record MudancaDto(long sequencia, String tipo, String tituloAntigo, LivroDto livro) {
+    public static MudancaDto from(Mudanca m) {
+        return new MudancaDto(m.sequencia(), m.tipo().name(), m.tituloAntigo(),
+                m.livro() != null ? LivroDto.from(m.livro()) : null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.repository.Pagina;
+
+import java.util.List;
+
+public record PaginaDto(List<LivroDto> livros, String proximoCursor) {
+    public static PaginaDto from(Pagina pagina) {
+        return new PaginaDto(pagina.livros().stream().map(LivroDto::from).toList(), pagina.proximoCursor());
+    }
+}
@@ -0,0 +1,10 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.busca.ResultadoBusca;
+
+public record ResultadoBuscaDto(String titulo, String autor, String categoria, double pontuacao) {
+    public static ResultadoBuscaDto from(ResultadoBusca r) {
+        return new ResultadoBuscaDto(r.livro().getTitulo(), r.livro().getAutor(),
+                r.livro().getCategoria().name(), r.pontuacao());
+    }
+}
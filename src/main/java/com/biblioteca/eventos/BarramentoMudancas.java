@@ -0,0 +1,193 @@
+package com.biblioteca.eventos;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.ObservadorLivros;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// As mutações do repositório, numeradas, para quem acompanha o catálogo
+// aos poucos em vez de baixá-lo de novo. Cada mutação ganha a próxima
+// sequência e vai para um anel de tamanho fixo; cada assinante guarda só a
+// posição em que está no anel e avança no seu ritmo, sem cópia por
+// assinante. O anel é também o limite de atraso: quem fica mais de uma
+// volta para trás é ultrapassado e precisa recarregar o catálogo inteiro.
+//
+// A escrita só incrementa a sequência, grava a posição e acorda o
+// despachante; é ele, fora da trava da chave, que acorda os assinantes.
+public final class BarramentoMudancas implements ObservadorLivros {
+    public static final int CAPACIDADE_PADRAO = 4096;
+
+    private final AtomicReferenceArray<Mudanca> anel;
+    private final int mascara;
+    // As sequências começam no instante da partida, em microssegundos: as
+    // de um processo anterior ficam abaixo da janela deste e pedem recarga
+    // em vez de serem confundidas com as daqui.
+    private final long inicio = System.currentTimeMillis() * 1000;
+    private final AtomicLong sequencia = new AtomicLong(inicio);
+    private final Set<Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock travaDespachante = new ReentrantLock();
+    private volatile Thread despachante;
+
+    public BarramentoMudancas() {
+        this(CAPACIDADE_PADRAO);
+    }
+
+    public BarramentoMudancas(int capacidade) {
+        if (capacidade < 2 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade deve ser potência de 2: " + capacidade);
+        }
+        this.anel = new AtomicReferenceArray<>(capacidade);
+        this.mascara = capacidade - 1;
+    }
+
+    // Mutações de chaves diferentes chegam em paralelo; as da mesma chave,
+    // em ordem, porque a sequência é tirada ainda com a trava da chave.
+    @Override
+    public void aoAdicionar(Livro livro) {
+        publicar(Mudanca.Tipo.ADICIONADO, null, livro);
+    }
+
+    @Override
+    public void aoAtualizar(Livro antigo, Livro novo) {
+        publicar(Mudanca.Tipo.ATUALIZADO, antigo.getTitulo(), novo);
+    }
+
+    @Override
+    public void aoRemover(Livro livro) {
+        publicar(Mudanca.Tipo.REMOVIDO, null, livro);
+    }
+
+    @Override
+    public void aoLimpar() {
+        publicar(Mudanca.Tipo.LIMPO, null, null);
+    }
+
+    public long ultimaSequencia() {
+        return sequencia.get();
+    }
+
+    public int assinantes() {
+        return assinaturas.size();
+    }
+
+    // Passa a receber as mudanças posteriores a "desde". Se elas já saíram
+    // do anel (ou a sequência não é deste processo), a assinatura começa
+    // do ponto atual com precisaRecarregar().
+    public Assinatura assinar(long desde) {
+        iniciarDespachante();
+        long atual = sequencia.get();
+        boolean valida = desde >= inicio && desde <= atual && atual - desde <= anel.length();
+        Assinatura assinatura = new Assinatura(valida ? desde : atual, !valida);
+        assinaturas.add(assinatura);
+        return assinatura;
+    }
+
+    private void publicar(Mudanca.Tipo tipo, String tituloAntigo, Livro livro) {
+        long s = sequencia.incrementAndGet();
+        anel.set((int) (s & mascara), new Mudanca(s, tipo, tituloAntigo, livro));
+        Thread d = despachante;
+        if (d != null) {
+            LockSupport.unpark(d);
+        }
+    }
+
+    private void iniciarDespachante() {
+        if (despachante != null) {
+            return;
+        }
+        travaDespachante.lock();
+        try {
+            if (despachante == null) {
+                despachante = Thread.ofVirtual().name("mudancas-despachante").start(this::despachar);
+            }
+        } finally {
+            travaDespachante.unlock();
+        }
+    }
+
+    // Cada unpark da escrita vem depois de a posição estar gravada, então
+    // acordar todos a cada volta nunca deixa um assinante dormindo com
+    // mudança pronta. Rajadas de escritas se juntam num único permit.
+    private void despachar() {
+        while (true) {
+            LockSupport.park(this);
+            for (Assinatura assinatura : assinaturas) {
+                assinatura.acordar();
+            }
+        }
+    }
+
+    // Lida por uma thread só (a que chama proxima).
+    public final class Assinatura implements AutoCloseable {
+        private long entregue;
+        private final boolean precisaRecarregar;
+        private boolean ultrapassada;
+        private volatile boolean fechada;
+        private volatile Thread leitora;
+
+        private Assinatura(long entregue, boolean precisaRecarregar) {
+            this.entregue = entregue;
+            this.precisaRecarregar = precisaRecarregar;
+        }
+
+        // A próxima mudança, ou null se o tempo de espera acabou, se a
+        // assinatura foi fechada ou se o anel a ultrapassou (ultrapassada()).
+        public Mudanca proxima(long esperaNanos) {
+            leitora = Thread.currentThread();
+            long limite = System.nanoTime() + esperaNanos;
+            long esperada = entregue + 1;
+            while (!fechada && !ultrapassada) {
+                Mudanca mudanca = anel.get((int) (esperada & mascara));
+                if (mudanca != null && mudanca.sequencia() == esperada) {
+                    entregue = esperada;
+                    return mudanca;
+                }
+                // Uma posição com sequência maior, ou a escrita já uma volta
+                // à frente, quer dizer que a esperada foi sobrescrita.
+                if ((mudanca != null && mudanca.sequencia() > esperada)
+                        || sequencia.get() - esperada >= anel.length()) {
+                    ultrapassada = true;
+                    break;
+                }
+                long resta = limite - System.nanoTime();
+                if (resta <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, resta);
+            }
+            return null;
+        }
+
+        // Sequência da última mudança entregue (ou do ponto de partida).
+        public long entregue() {
+            return entregue;
+        }
+
+        public boolean precisaRecarregar() {
+            return precisaRecarregar;
+        }
+
+        public boolean ultrapassada() {
+            return ultrapassada;
+        }
+
+        private void acordar() {
+            Thread t = leitora;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        @Override
+        public void close() {
+            fechada = true;
+            assinaturas.remove(this);
+            acordar();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.biblioteca.eventos;
+
+import com.biblioteca.model.Livro;
+
+// Uma mutação do catálogo, na ordem em que o repositório a aplicou. livro é
+// o que ficou gravado ou, em REMOVIDO, o que saiu; tituloAntigo só vem em
+// ATUALIZADO (o título pode ter mudado) e LIMPO não traz livro.
+public record Mudanca(long sequencia, Tipo tipo, String tituloAntigo, Livro livro) {
+
+    public enum Tipo {
+        ADICIONADO, ATUALIZADO, REMOVIDO, LIMPO
+    }
+}
@@ -1,40 +1,70 @@
 package com.biblioteca.exception;
 
+import com.biblioteca.metricas.Contador;
+import com.biblioteca.metricas.RegistroMetricas;
 import io.javalin.http.Context;
 import io.javalin.Javalin;
 import com.biblioteca.exception.LivroNaoEncontradoException;
 import com.biblioteca.exception.LivroDuplicadoException;
+import com.biblioteca.exception.LivroModificadoException;
+import com.biblioteca.exception.RecursoIndisponivelException;
 
 public class BibliotecaExceptionHandler {
 
-    public static void register(Javalin app) {
+    public static void register(Javalin app, RegistroMetricas metricas) {
+        // Um contador por classe de exceção, resolvido uma vez por classe.
+        ClassValue<Contador> excecoes = new ClassValue<>() {
+            @Override
+            protected Contador computeValue(Class<?> tipo) {
+                return metricas.contador("biblioteca_excecoes_total",
+                        "Exceções tratadas pelo BibliotecaExceptionHandler.", "tipo", tipo.getSimpleName());
+            }
+        };
+
         app.exception(LivroNaoEncontradoException.class, (e, ctx) -> {
+            excecoes.get(e.getClass()).incrementar();
             handleNotFound(ctx, e.getMessage());
         });
 
         app.exception(LivroDuplicadoException.class, (e, ctx) -> {
+            excecoes.get(e.getClass()).incrementar();
             handleConflict(ctx, e.getMessage());
         });
 
+        app.exception(LivroModificadoException.class, (e, ctx) -> {
+            excecoes.get(e.getClass()).incrementar();
+            responderErro(ctx, 412, e.getMessage());
+        });
+
+        app.exception(RecursoIndisponivelException.class, (e, ctx) -> {
+            excecoes.get(e.getClass()).incrementar();
+            responderErro(ctx, 501, e.getMessage());
+        });
+
         app.exception(Exception.class, (e, ctx) -> {
+            excecoes.get(e.getClass()).incrementar();
             handleInternalServerError(ctx, "Erro inesperado: " + e.getMessage());
             e.printStackTrace();
         });
     }
 
-    private static void handleNotFound(Context ctx, String message) {
-        ctx.status(404);
+    // O mesmo corpo de erro, para quem responde 404/409/412 sem passar por
+    // exceção (o controller, a partir de um ResultadoEscrita).
+    public static void responderErro(Context ctx, int status, String message) {
+        ctx.status(status);
         ctx.json(new ErrorResponse(message));
     }
 
+    private static void handleNotFound(Context ctx, String message) {
+        responderErro(ctx, 404, message);
+    }
+
     private static void handleConflict(Context ctx, String message) {
-        ctx.status(409);
-        ctx.json(new ErrorResponse(message));
+        responderErro(ctx, 409, message);
     }
 
     private static void handleInternalServerError(Context ctx, String message) {
-        ctx.status(500);
-        ctx.json(new ErrorResponse(message));
+        responderErro(ctx, 500, message);
     }
 
     static class ErrorResponse {
@@ -1,5 +1,6 @@
 package com.biblioteca.exception;
 
+// Sem pilha: é um desfecho esperado (vira 409), não um defeito a depurar.
 public class LivroDuplicadoException extends RuntimeException {
-    public LivroDuplicadoException(String mensagem) { super(mensagem); }
-}
\ No newline at end of file
+    public LivroDuplicadoException(String mensagem) { super(mensagem, null, false, false); }
+}
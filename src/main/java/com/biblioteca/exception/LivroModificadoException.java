@@ -0,0 +1,6 @@
+package com.biblioteca.exception;
+
+// Sem pilha: outra escrita chegou antes (vira 412), não um defeito a depurar.
+public class LivroModificadoException extends RuntimeException {
+    public LivroModificadoException(String mensagem) { super(mensagem, null, false, false); }
+}
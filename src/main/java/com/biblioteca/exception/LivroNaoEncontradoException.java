@@ -1,5 +1,6 @@
 package com.biblioteca.exception;
 
+// Sem pilha: é um desfecho esperado (vira 404), não um defeito a depurar.
 public class LivroNaoEncontradoException extends RuntimeException {
-    public LivroNaoEncontradoException(String mensagem) { super(mensagem); }
-}
\ No newline at end of file
+    public LivroNaoEncontradoException(String mensagem) { super(mensagem, null, false, false); }
+}
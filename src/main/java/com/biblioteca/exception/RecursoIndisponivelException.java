@@ -0,0 +1,7 @@
+package com.biblioteca.exception;
+
+// Operação que o armazenamento em uso não oferece (vira 501), não um
+// defeito: sem pilha, como LivroModificadoException.
+public class RecursoIndisponivelException extends RuntimeException {
+    public RecursoIndisponivelException(String mensagem) { super(mensagem, null, false, false); }
+}
@@ -0,0 +1,24 @@
+package com.biblioteca.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// LongAdder espalha o incremento em células por thread: sem CAS disputado
+// entre requisições concorrentes e sem alocação depois de aquecido.
+public final class Contador {
+    private final LongAdder valor = new LongAdder();
+
+    Contador() {
+    }
+
+    public void incrementar() {
+        valor.increment();
+    }
+
+    public void adicionar(long quantidade) {
+        valor.add(quantidade);
+    }
+
+    public long valor() {
+        return valor.sum();
+    }
+}
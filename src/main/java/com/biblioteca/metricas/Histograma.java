@@ -0,0 +1,54 @@
+package com.biblioteca.metricas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de durações com baldes fixos, de 1 µs a 10 s. Registrar uma
+// amostra é achar o balde e somar em dois LongAdders; a soma acumulada
+// que o Prometheus espera só é montada na exportação.
+public final class Histograma {
+    static final long[] LIMITES_NANOS = {
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000,
+            100_000_000, 250_000_000, 500_000_000,
+            1_000_000_000, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L};
+
+    // Um balde a mais para o que passar do último limite (+Inf).
+    private final LongAdder[] baldes = new LongAdder[LIMITES_NANOS.length + 1];
+    private final LongAdder somaNanos = new LongAdder();
+
+    Histograma() {
+        for (int i = 0; i < baldes.length; i++) {
+            baldes[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long nanos) {
+        int i = 0;
+        while (i < LIMITES_NANOS.length && nanos > LIMITES_NANOS[i]) {
+            i++;
+        }
+        baldes[i].increment();
+        somaNanos.add(nanos);
+    }
+
+    public void registrarDesde(long inicioNanos) {
+        registrar(System.nanoTime() - inicioNanos);
+    }
+
+    public long contagem() {
+        long total = 0;
+        for (LongAdder balde : baldes) {
+            total += balde.sum();
+        }
+        return total;
+    }
+
+    long balde(int i) {
+        return baldes[i].sum();
+    }
+
+    double somaSegundos() {
+        return somaNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.biblioteca.metricas;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+// Registro das métricas da aplicação, exportadas no formato texto do
+// Prometheus. Obter uma métrica (contador, histograma) pode alocar e deve
+// ser feito uma vez, fora do caminho quente; registrar valores nela não aloca.
+// Não há registro global: a aplicação cria um e o passa a quem mede, como
+// faz com o repositório e o serviço.
+public final class RegistroMetricas {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private enum Tipo {
+        COUNTER, HISTOGRAM, GAUGE
+    }
+
+    // Por família: rótulos já formatados (a="x",b="y") -> métrica
+    private record Familia(String nome, String ajuda, Tipo tipo, Map<String, Object> series) {
+    }
+
+    private final Map<String, Familia> familias = new ConcurrentSkipListMap<>();
+
+    public Contador contador(String nome, String ajuda, String... rotulos) {
+        return (Contador) familia(nome, ajuda, Tipo.COUNTER).series()
+                .computeIfAbsent(formatar(rotulos), r -> new Contador());
+    }
+
+    public Histograma histograma(String nome, String ajuda, String... rotulos) {
+        return (Histograma) familia(nome, ajuda, Tipo.HISTOGRAM).series()
+                .computeIfAbsent(formatar(rotulos), r -> new Histograma());
+    }
+
+    // Medidor lido na hora da exportação. Registrar de novo a mesma série
+    // substitui a fonte anterior.
+    public void medidor(String nome, String ajuda, LongSupplier valor, String... rotulos) {
+        familia(nome, ajuda, Tipo.GAUGE).series().put(formatar(rotulos), valor);
+    }
+
+    public void escrever(Writer saida) throws IOException {
+        for (Familia familia : familias.values()) {
+            saida.write("# HELP " + familia.nome() + " " + familia.ajuda() + "\n");
+            saida.write("# TYPE " + familia.nome() + " " + familia.tipo().name().toLowerCase(Locale.ROOT) + "\n");
+            for (Map.Entry<String, Object> serie : familia.series().entrySet()) {
+                switch (familia.tipo()) {
+                    case COUNTER -> amostra(saida, familia.nome(), serie.getKey(), ((Contador) serie.getValue()).valor());
+                    case GAUGE -> amostra(saida, familia.nome(), serie.getKey(),
+                            ((LongSupplier) serie.getValue()).getAsLong());
+                    case HISTOGRAM -> escreverHistograma(saida, familia.nome(), serie.getKey(),
+                            (Histograma) serie.getValue());
+                }
+            }
+        }
+    }
+
+    private Familia familia(String nome, String ajuda, Tipo tipo) {
+        Familia familia = familias.computeIfAbsent(nome,
+                n -> new Familia(n, ajuda, tipo, new ConcurrentSkipListMap<>()));
+        if (familia.tipo() != tipo) {
+            throw new IllegalArgumentException("Métrica " + nome + " já registrada como " + familia.tipo());
+        }
+        return familia;
+    }
+
+    private static void escreverHistograma(Writer saida, String nome, String rotulos, Histograma h)
+            throws IOException {
+        String prefixo = rotulos.isEmpty() ? "" : rotulos + ",";
+        long acumulado = 0;
+        for (int i = 0; i < Histograma.LIMITES_NANOS.length; i++) {
+            acumulado += h.balde(i);
+            amostra(saida, nome + "_bucket",
+                    prefixo + "le=\"" + segundos(Histograma.LIMITES_NANOS[i]) + "\"", acumulado);
+        }
+        acumulado += h.balde(Histograma.LIMITES_NANOS.length);
+        amostra(saida, nome + "_bucket", prefixo + "le=\"+Inf\"", acumulado);
+        saida.write(nome + "_sum" + chaves(rotulos) + " " + h.somaSegundos() + "\n");
+        amostra(saida, nome + "_count", rotulos, acumulado);
+    }
+
+    private static void amostra(Writer saida, String nome, String rotulos, long valor) throws IOException {
+        saida.write(nome + chaves(rotulos) + " " + valor + "\n");
+    }
+
+    private static String chaves(String rotulos) {
+        return rotulos.isEmpty() ? "" : "{" + rotulos + "}";
+    }
+
+    private static String segundos(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    private static String formatar(String... rotulos) {
+        if (rotulos.length % 2 != 0) {
+            throw new IllegalArgumentException("Rótulos devem vir em pares nome, valor");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rotulos.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(rotulos[i]).append("=\"").append(escapar(rotulos[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -1,5 +1,11 @@
 package com.biblioteca.model;
 
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 public enum Categoria {
     FICCAO,
     CIENCIA,
@@ -8,6 +14,20 @@ public enum Categoria {
     NAO_CLASSIFICADO,
     ROMANCE;
 
+    private static final Map<String, Categoria> POR_NOME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(Categoria::name, Function.identity()));
+
+    // Como valueOf, mas sem diferenciar maiúsculas e devolvendo null para
+    // nomes desconhecidos em vez de lançar exceção. Na importação em massa
+    // uma linha inválida é comum, e o caso já em maiúsculas não aloca nada.
+    public static Categoria porNome(String nome) {
+        if (nome == null) {
+            return null;
+        }
+        Categoria categoria = POR_NOME.get(nome);
+        return categoria != null ? categoria : POR_NOME.get(nome.trim().toUpperCase(Locale.ROOT));
+    }
+
     public String etiqueta() {
         return switch (this) {
             case FICCAO -> "Ficção";
@@ -37,6 +37,10 @@ public class Livro {
     }
     @Override
     public int hashCode() {
-        return Objects.hash(titulo, autor, categoria);
+        // O mesmo valor de Objects.hash, sem o array de varargs: o cache de
+        // respostas usa o livro como chave a cada GET.
+        int h = 31 + titulo.hashCode();
+        h = 31 * h + autor.hashCode();
+        return 31 * h + categoria.hashCode();
     }
 }
@@ -0,0 +1,160 @@
+package com.biblioteca.persistencia;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+// Quadro binário: [tamanho:int][crc32c:int][tipo:byte][campos...], com
+// strings como [bytes:int][UTF-8]. Um quadro incompleto ou com CRC errado
+// marca o fim do trecho válido do arquivo (escrita interrompida na queda).
+final class CodecRegistros {
+    private static final byte ADICAO = 1;
+    private static final byte ATUALIZACAO = 2;
+    private static final byte REMOCAO = 3;
+    private static final byte LIMPEZA = 4;
+    private static final int CABECALHO_QUADRO = 8;
+    private static final int MAX_QUADRO = 1 << 20;
+    private static final Categoria[] CATEGORIAS = Categoria.values();
+
+    private CodecRegistros() {
+    }
+
+    static byte[] codificar(Registro registro) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0L); // reservado para tamanho e CRC
+            switch (registro) {
+                case Registro.Adicao a -> {
+                    out.writeByte(ADICAO);
+                    escreverLivro(out, a.livro());
+                }
+                case Registro.Atualizacao a -> {
+                    out.writeByte(ATUALIZACAO);
+                    escreverTexto(out, a.tituloAntigo());
+                    escreverLivro(out, a.novo());
+                }
+                case Registro.Remocao r -> {
+                    out.writeByte(REMOCAO);
+                    escreverTexto(out, r.titulo());
+                }
+                case Registro.Limpeza l -> out.writeByte(LIMPEZA);
+            }
+            byte[] quadro = bytes.toByteArray();
+            int tamanho = quadro.length - CABECALHO_QUADRO;
+            CRC32C crc = new CRC32C();
+            crc.update(quadro, CABECALHO_QUADRO, tamanho);
+            escreverInt(quadro, 0, tamanho);
+            escreverInt(quadro, 4, (int) crc.getValue());
+            return quadro;
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao codificar registro em memória", e);
+        }
+    }
+
+    // Lê quadros em sequência, lembrando até onde o arquivo é válido para
+    // que o diário possa truncar uma cauda corrompida.
+    static final class Leitor implements Closeable {
+        private final DataInputStream in;
+        private long posicaoValida;
+
+        Leitor(InputStream in) {
+            this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        }
+
+        long posicaoValida() {
+            return posicaoValida;
+        }
+
+        // Devolve null no fim do arquivo ou no primeiro quadro inválido.
+        Registro proximo() throws IOException {
+            int tamanho;
+            int crcEsperado;
+            try {
+                tamanho = in.readInt();
+                crcEsperado = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (tamanho <= 0 || tamanho > MAX_QUADRO) {
+                return null;
+            }
+            byte[] corpo = in.readNBytes(tamanho);
+            if (corpo.length < tamanho) {
+                return null;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(corpo);
+            if ((int) crc.getValue() != crcEsperado) {
+                return null;
+            }
+            Registro registro = decodificar(new DataInputStream(new ByteArrayInputStream(corpo)));
+            posicaoValida += CABECALHO_QUADRO + tamanho;
+            return registro;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static Registro decodificar(DataInputStream in) throws IOException {
+        byte tipo = in.readByte();
+        return switch (tipo) {
+            case ADICAO -> new Registro.Adicao(lerLivro(in));
+            case ATUALIZACAO -> new Registro.Atualizacao(lerTexto(in), lerLivro(in));
+            case REMOCAO -> new Registro.Remocao(lerTexto(in));
+            case LIMPEZA -> new Registro.Limpeza();
+            default -> throw new IOException("Tipo de registro desconhecido: " + tipo);
+        };
+    }
+
+    private static void escreverLivro(DataOutputStream out, Livro livro) throws IOException {
+        escreverTexto(out, livro.getTitulo());
+        escreverTexto(out, livro.getAutor());
+        out.writeByte(livro.getCategoria().ordinal());
+    }
+
+    private static Livro lerLivro(DataInputStream in) throws IOException {
+        String titulo = lerTexto(in);
+        String autor = lerTexto(in);
+        int categoria = in.readUnsignedByte();
+        if (categoria >= CATEGORIAS.length) {
+            throw new IOException("Categoria desconhecida: " + categoria);
+        }
+        return new Livro(titulo, autor, CATEGORIAS[categoria]);
+    }
+
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String lerTexto(DataInputStream in) throws IOException {
+        int tamanho = in.readInt();
+        if (tamanho < 0 || tamanho > MAX_QUADRO) {
+            throw new IOException("Tamanho de texto inválido: " + tamanho);
+        }
+        return new String(in.readNBytes(tamanho), StandardCharsets.UTF_8);
+    }
+
+    private static void escreverInt(byte[] destino, int pos, int valor) {
+        destino[pos] = (byte) (valor >>> 24);
+        destino[pos + 1] = (byte) (valor >>> 16);
+        destino[pos + 2] = (byte) (valor >>> 8);
+        destino[pos + 3] = (byte) valor;
+    }
+}
@@ -0,0 +1,325 @@
+package com.biblioteca.persistencia;
+
+import com.biblioteca.exception.RepositorioException;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.DiarioLivros;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Diário de escrita (WAL) só de acréscimo, dividido em segmentos numerados.
+// Cada mutação do repositório vira um quadro no segmento atual, gravado
+// antes de a mutação ser aplicada na memória; quando o quadro se torna
+// durável depende da PoliticaFsync.
+final class DiarioEscrita implements DiarioLivros, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(DiarioEscrita.class);
+
+    private final Path diretorio;
+    private final OpcoesPersistencia opcoes;
+    private final Runnable aoEncherSegmento;
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition confirmado = trava.newCondition();
+    private final Condition pendente = trava.newCondition();
+    private final Thread sincronizador;
+
+    private FileChannel canal;
+    private long segmento;
+    private long tamanhoSegmento;
+    private long escrito;
+    private long duravel;
+    private boolean fechado;
+    // Falha do fsync: o que estava para ficar durável pode não ter ido ao
+    // disco, então as escritas seguintes são recusadas também, em vez de
+    // entrarem na memória para só falharem na confirmação.
+    private volatile IOException falha;
+    // Primeira falha de escrita: o quadro pode ter ficado pela metade no
+    // segmento, e um quadro depois dele seria descartado na recuperação
+    // junto com a cauda. Daí em diante, toda escrita é recusada.
+    private IOException falhaEscrita;
+
+    DiarioEscrita(Path diretorio, long segmento, OpcoesPersistencia opcoes, Runnable aoEncherSegmento)
+            throws IOException {
+        this.diretorio = diretorio;
+        this.opcoes = opcoes;
+        this.aoEncherSegmento = aoEncherSegmento;
+        this.segmento = segmento;
+        this.canal = abrirSegmento(segmento);
+        this.sincronizador = switch (opcoes.politica()) {
+            case POR_ESCRITA -> null;
+            case GRUPO -> Thread.ofPlatform().daemon().name("diario-fsync-grupo").start(this::sincronizarEmGrupo);
+            case INTERVALO -> Thread.ofPlatform().daemon().name("diario-fsync-intervalo").start(this::sincronizarPorIntervalo);
+        };
+    }
+
+    static Path arquivoSegmento(Path diretorio, long segmento) {
+        return diretorio.resolve("diario-%016d.wal".formatted(segmento));
+    }
+
+    @Override
+    public long antesDeAdicionar(Livro livro) {
+        return anexar(new Registro.Adicao(livro));
+    }
+
+    @Override
+    public long antesDeAtualizar(Livro antigo, Livro novo) {
+        return anexar(new Registro.Atualizacao(antigo.getTitulo(), novo));
+    }
+
+    @Override
+    public long antesDeRemover(Livro livro) {
+        return anexar(new Registro.Remocao(livro.getTitulo()));
+    }
+
+    @Override
+    public long antesDeLimpar() {
+        return anexar(new Registro.Limpeza());
+    }
+
+    @Override
+    public long posicao() {
+        trava.lock();
+        try {
+            return escrito;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @Override
+    public void aoConcluir(long posicao) {
+        switch (opcoes.politica()) {
+            case POR_ESCRITA -> forcarAte(posicao);
+            case GRUPO -> aguardarDurabilidade(posicao);
+            case INTERVALO -> {
+            }
+        }
+    }
+
+    // Devolve a posição logo depois do quadro, até onde quem escreveu
+    // precisa esperar o fsync.
+    long anexar(Registro registro) {
+        byte[] quadro = CodecRegistros.codificar(registro);
+        boolean segmentoCheio;
+        long posicao;
+        trava.lock();
+        try {
+            if (fechado) {
+                throw new RepositorioException("Diário de escrita fechado");
+            }
+            if (falhaEscrita != null) {
+                throw new RepositorioException("Diário de escrita indisponível após falha", falhaEscrita);
+            }
+            if (falha != null) {
+                throw new RepositorioException("Diário de escrita indisponível após falha de fsync", falha);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(quadro);
+            try {
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+            } catch (IOException e) {
+                falhaEscrita = e;
+                throw e;
+            }
+            escrito += quadro.length;
+            tamanhoSegmento += quadro.length;
+            posicao = escrito;
+            if (opcoes.politica() == PoliticaFsync.GRUPO) {
+                pendente.signal();
+            }
+            segmentoCheio = tamanhoSegmento >= opcoes.limiteSegmentoBytes();
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao gravar no diário de escrita", e);
+        } finally {
+            trava.unlock();
+        }
+        if (segmentoCheio) {
+            aoEncherSegmento.run();
+        }
+        return posicao;
+    }
+
+    // Fecha o segmento atual (já sincronizado) e passa a escrever no
+    // próximo. Devolve o número do novo segmento.
+    long rotacionar() {
+        trava.lock();
+        try {
+            canal.force(false);
+            canal.close();
+            duravel = escrito;
+            confirmado.signalAll();
+            segmento++;
+            canal = abrirSegmento(segmento);
+            tamanhoSegmento = 0;
+            return segmento;
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao rotacionar o diário de escrita", e);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        trava.lock();
+        try {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            // Depois de uma falha de escrita o canal pode já estar fechado
+            // (ClosedByInterruptException, por exemplo).
+            if (canal.isOpen()) {
+                canal.force(false);
+                canal.close();
+            }
+            duravel = escrito;
+            confirmado.signalAll();
+            pendente.signalAll();
+        } finally {
+            trava.unlock();
+        }
+        if (sincronizador != null) {
+            sincronizador.interrupt();
+            try {
+                sincronizador.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void aguardarDurabilidade(long posicao) {
+        trava.lock();
+        try {
+            while (duravel < posicao) {
+                if (falha != null) {
+                    throw new RepositorioException("Falha ao sincronizar o diário de escrita", falha);
+                }
+                if (fechado) {
+                    throw new RepositorioException("Diário de escrita fechado antes da confirmação");
+                }
+                confirmado.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositorioException("Interrompido aguardando o diário de escrita", e);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Na política por escrita, a própria thread que escreveu faz o fsync
+    // antes de a operação retornar (fora da trava da listra). Se outra
+    // thread já sincronizou além desta posição, não há o que fazer.
+    private void forcarAte(long posicao) {
+        trava.lock();
+        try {
+            if (duravel >= posicao) {
+                return;
+            }
+        } finally {
+            trava.unlock();
+        }
+        forcar();
+        if (falha != null) {
+            throw new RepositorioException("Falha ao sincronizar o diário de escrita", falha);
+        }
+    }
+
+    private void sincronizarEmGrupo() {
+        long janela = opcoes.janelaGrupo().toNanos();
+        while (true) {
+            trava.lock();
+            try {
+                while (!fechado && escrito == duravel) {
+                    pendente.await();
+                }
+                if (fechado) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                trava.unlock();
+            }
+            // Dá tempo para outras escritas entrarem no mesmo fsync.
+            if (janela > 0) {
+                LockSupport.parkNanos(janela);
+            }
+            forcar();
+        }
+    }
+
+    private void sincronizarPorIntervalo() {
+        long intervalo = opcoes.intervaloFsync().toMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(intervalo);
+            } catch (InterruptedException e) {
+                return;
+            }
+            forcar();
+        }
+    }
+
+    // O fsync roda fora da trava, para não barrar novas escritas; tudo o que
+    // estava escrito antes dele fica durável quando ele retorna.
+    private void forcar() {
+        long alvo;
+        FileChannel atual;
+        trava.lock();
+        try {
+            if (fechado || escrito == duravel) {
+                return;
+            }
+            alvo = escrito;
+            atual = canal;
+        } finally {
+            trava.unlock();
+        }
+        try {
+            atual.force(false);
+        } catch (ClosedChannelException e) {
+            // rotacionar() ou close() já sincronizaram este segmento
+        } catch (IOException e) {
+            log.error("operacao=fsync segmento={} erro={}", segmento, e.toString());
+            falhouSincronizar(e);
+            return;
+        }
+        trava.lock();
+        try {
+            duravel = Math.max(duravel, alvo);
+            confirmado.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Acorda quem espera a confirmação e fecha o diário para escritas novas.
+    void falhouSincronizar(IOException e) {
+        trava.lock();
+        try {
+            falha = e;
+            confirmado.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private FileChannel abrirSegmento(long numero) throws IOException {
+        return FileChannel.open(arquivoSegmento(diretorio, numero),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,33 @@
+package com.biblioteca.persistencia;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public record OpcoesPersistencia(PoliticaFsync politica,
+                                 Duration janelaGrupo,
+                                 Duration intervaloFsync,
+                                 long limiteSegmentoBytes) {
+
+    public static final OpcoesPersistencia PADRAO = new OpcoesPersistencia(
+            PoliticaFsync.GRUPO, Duration.ofMillis(2), Duration.ofSeconds(1), 64L * 1024 * 1024);
+
+    public OpcoesPersistencia {
+        Objects.requireNonNull(politica, "Política de fsync obrigatória");
+        Objects.requireNonNull(janelaGrupo, "Janela de grupo obrigatória");
+        Objects.requireNonNull(intervaloFsync, "Intervalo de fsync obrigatório");
+        if (janelaGrupo.isNegative() || intervaloFsync.isNegative() || intervaloFsync.isZero()) {
+            throw new IllegalArgumentException("Janela e intervalo de fsync devem ser positivos");
+        }
+        if (limiteSegmentoBytes <= 0) {
+            throw new IllegalArgumentException("Limite de segmento deve ser positivo: " + limiteSegmentoBytes);
+        }
+    }
+
+    public OpcoesPersistencia comPolitica(PoliticaFsync novaPolitica) {
+        return new OpcoesPersistencia(novaPolitica, janelaGrupo, intervaloFsync, limiteSegmentoBytes);
+    }
+
+    public OpcoesPersistencia comLimiteSegmento(long bytes) {
+        return new OpcoesPersistencia(politica, janelaGrupo, intervaloFsync, bytes);
+    }
+}
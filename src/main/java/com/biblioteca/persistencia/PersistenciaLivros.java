@@ -0,0 +1,281 @@
+package com.biblioteca.persistencia;
+
+import com.biblioteca.exception.RepositorioException;
+import com.biblioteca.metricas.RegistroMetricas;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Modo persistente do LivroRepositoryMemoria: instantâneo compactado do
+// catálogo mais os segmentos do diário gravados depois dele. Ao abrir,
+// carrega o instantâneo, reaplica os segmentos e só então liga o diário.
+public final class PersistenciaLivros implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(PersistenciaLivros.class);
+
+    static final String ARQUIVO_INSTANTANEO = "catalogo.snap";
+    private static final String ARQUIVO_TEMPORARIO = "catalogo.snap.tmp";
+    private static final Pattern PADRAO_SEGMENTO = Pattern.compile("diario-(\\d{16})\\.wal");
+    private static final int MAGICO = 0x4C495652;
+    private static final int VERSAO = 1;
+    private static final int CABECALHO_INSTANTANEO = 24;
+
+    private final Path diretorio;
+    private final LivroRepositoryMemoria repositorio;
+    private final DiarioEscrita diario;
+    private final ReentrantLock compactando = new ReentrantLock();
+    private final AtomicBoolean compactacaoAgendada = new AtomicBoolean();
+    private final ExecutorService compactador = Executors.newSingleThreadExecutor(r ->
+            Thread.ofPlatform().daemon().name("catalogo-compactacao").unstarted(r));
+
+    private PersistenciaLivros(Path diretorio, LivroRepositoryMemoria repositorio, long segmento,
+                               OpcoesPersistencia opcoes) throws IOException {
+        this.diretorio = diretorio;
+        this.repositorio = repositorio;
+        this.diario = new DiarioEscrita(diretorio, segmento, opcoes, this::agendarCompactacao);
+        repositorio.registrarDiario(diario);
+    }
+
+    public static PersistenciaLivros abrir(Path diretorio, OpcoesPersistencia opcoes) {
+        return abrir(diretorio, opcoes, new RegistroMetricas());
+    }
+
+    public static PersistenciaLivros abrir(Path diretorio, OpcoesPersistencia opcoes, RegistroMetricas metricas) {
+        Objects.requireNonNull(diretorio, "Diretório obrigatório");
+        Objects.requireNonNull(opcoes, "Opções obrigatórias");
+        try {
+            Files.createDirectories(diretorio);
+            LivroRepositoryMemoria repositorio = new LivroRepositoryMemoria(metricas);
+            long inicio = System.nanoTime();
+            long proximoSegmento = recuperar(diretorio, repositorio);
+            log.info("operacao=recuperar diretorio={} livros={} ms={}", diretorio,
+                    repositorio.listarTodos().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            return new PersistenciaLivros(diretorio, repositorio, proximoSegmento, opcoes);
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao abrir o catálogo em " + diretorio, e);
+        }
+    }
+
+    public LivroRepositoryMemoria repositorio() {
+        return repositorio;
+    }
+
+    // Grava um instantâneo do catálogo e descarta os segmentos que ele
+    // cobre. As escritas continuam durante a cópia: o diário é rotacionado
+    // antes, e tudo que o instantâneo não pegar está no segmento novo.
+    // A rotação acontece com as escritas suspensas: o registro vai para o
+    // diário antes da memória mudar, e uma escrita já no segmento velho mas
+    // ainda fora da memória sumiria do instantâneo e do segmento novo.
+    public void compactar() {
+        compactando.lock();
+        try {
+            long[] rotacionado = new long[1];
+            repositorio.executarEmLote(() -> rotacionado[0] = diario.rotacionar());
+            long segmentoBase = rotacionado[0];
+            long livros = gravarInstantaneo(segmentoBase);
+            for (long segmento : segmentosExistentes(diretorio)) {
+                if (segmento < segmentoBase) {
+                    Files.deleteIfExists(DiarioEscrita.arquivoSegmento(diretorio, segmento));
+                }
+            }
+            log.info("operacao=compactar livros={} segmentoBase={}", livros, segmentoBase);
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao compactar o catálogo", e);
+        } finally {
+            compactando.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        repositorio.registrarDiario(null);
+        compactador.shutdown();
+        try {
+            compactador.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        diario.close();
+    }
+
+    private void agendarCompactacao() {
+        if (compactacaoAgendada.compareAndSet(false, true)) {
+            compactador.execute(() -> {
+                try {
+                    compactar();
+                } catch (RuntimeException e) {
+                    log.error("operacao=compactar erro={}", e.toString());
+                } finally {
+                    compactacaoAgendada.set(false);
+                }
+            });
+        }
+    }
+
+    private long gravarInstantaneo(long segmentoBase) throws IOException {
+        Path temporario = diretorio.resolve(ARQUIVO_TEMPORARIO);
+        long livros = 0;
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.position(CABECALHO_INSTANTANEO);
+            OutputStream saida = new BufferedOutputStream(Channels.newOutputStream(canal), 64 * 1024);
+            for (Livro livro : repositorio.percorrerTodos()) {
+                saida.write(CodecRegistros.codificar(new Registro.Adicao(livro)));
+                livros++;
+            }
+            saida.flush();
+            // O cabeçalho vai por último: um instantâneo sem ele nunca é renomeado.
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_INSTANTANEO)
+                    .putInt(MAGICO).putInt(VERSAO).putLong(segmentoBase).putLong(livros).flip();
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, diretorio.resolve(ARQUIVO_INSTANTANEO),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizarDiretorio(diretorio);
+        return livros;
+    }
+
+    // Devolve o número do segmento em que o diário deve continuar.
+    private static long recuperar(Path diretorio, LivroRepository repositorio) throws IOException {
+        long segmentoBase = carregarInstantaneo(diretorio, repositorio);
+        List<Long> segmentos = segmentosExistentes(diretorio);
+        long ultimo = segmentoBase - 1;
+        for (int i = 0; i < segmentos.size(); i++) {
+            long segmento = segmentos.get(i);
+            Path arquivo = DiarioEscrita.arquivoSegmento(diretorio, segmento);
+            if (segmento < segmentoBase) {
+                // Sobrou de uma compactação interrompida depois do rename.
+                Files.deleteIfExists(arquivo);
+                continue;
+            }
+            long valido = reaplicarSegmento(arquivo, repositorio);
+            long tamanho = Files.size(arquivo);
+            if (valido < tamanho) {
+                if (i < segmentos.size() - 1) {
+                    throw new RepositorioException("Diário corrompido no meio do histórico: " + arquivo);
+                }
+                log.warn("operacao=recuperar segmento={} truncandoBytes={}", segmento, tamanho - valido);
+                try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                    canal.truncate(valido);
+                    canal.force(true);
+                }
+            }
+            ultimo = segmento;
+        }
+        return Math.max(segmentoBase, ultimo + 1);
+    }
+
+    private static long carregarInstantaneo(Path diretorio, LivroRepository repositorio) throws IOException {
+        Path arquivo = diretorio.resolve(ARQUIVO_INSTANTANEO);
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        try (InputStream in = Files.newInputStream(arquivo)) {
+            ByteBuffer cabecalho = ByteBuffer.wrap(in.readNBytes(CABECALHO_INSTANTANEO));
+            if (cabecalho.remaining() < CABECALHO_INSTANTANEO
+                    || cabecalho.getInt() != MAGICO || cabecalho.getInt() != VERSAO) {
+                throw new RepositorioException("Instantâneo inválido: " + arquivo);
+            }
+            long segmentoBase = cabecalho.getLong();
+            long esperados = cabecalho.getLong();
+            long lidos = 0;
+            try (CodecRegistros.Leitor leitor = new CodecRegistros.Leitor(in)) {
+                for (Registro r = leitor.proximo(); r != null; r = leitor.proximo()) {
+                    aplicar(repositorio, r);
+                    lidos++;
+                }
+            }
+            if (lidos != esperados) {
+                throw new RepositorioException("Instantâneo incompleto: " + lidos + " de " + esperados);
+            }
+            return segmentoBase;
+        }
+    }
+
+    private static long reaplicarSegmento(Path arquivo, LivroRepository repositorio) throws IOException {
+        try (CodecRegistros.Leitor leitor = new CodecRegistros.Leitor(Files.newInputStream(arquivo))) {
+            for (Registro r = leitor.proximo(); r != null; r = leitor.proximo()) {
+                aplicar(repositorio, r);
+            }
+            return leitor.posicaoValida();
+        }
+    }
+
+    // Reaplicação idempotente: adição vira "grava por cima" e atualização
+    // de um título que já sumiu vira gravação do novo. Assim um registro que
+    // também esteja no instantâneo pode ser reaplicado sem erro.
+    static void aplicar(LivroRepository repositorio, Registro registro) {
+        switch (registro) {
+            case Registro.Adicao a -> gravar(repositorio, a.livro());
+            case Registro.Atualizacao a -> {
+                if (repositorio.buscarPorTitulo(a.tituloAntigo()) instanceof LivroNulo) {
+                    gravar(repositorio, a.novo());
+                } else {
+                    repositorio.atualizar(a.tituloAntigo(), a.novo());
+                }
+            }
+            case Registro.Remocao r -> repositorio.remover(r.titulo());
+            case Registro.Limpeza l -> repositorio.limpar();
+        }
+    }
+
+    private static void gravar(LivroRepository repositorio, Livro livro) {
+        if (repositorio.buscarPorTitulo(livro.getTitulo()) instanceof LivroNulo) {
+            repositorio.adicionar(livro);
+        } else {
+            repositorio.atualizar(livro.getTitulo(), livro);
+        }
+    }
+
+    private static List<Long> segmentosExistentes(Path diretorio) throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        try (var arquivos = Files.list(diretorio)) {
+            arquivos.forEach(arquivo -> {
+                Matcher m = PADRAO_SEGMENTO.matcher(arquivo.getFileName().toString());
+                if (m.matches()) {
+                    segmentos.add(Long.parseLong(m.group(1)));
+                }
+            });
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+
+    private static void sincronizarDiretorio(Path diretorio) {
+        // Garante que o rename sobreviva a uma queda; nem todo sistema
+        // operacional permite abrir diretórios, daí a falha silenciosa.
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            log.debug("operacao=fsyncDiretorio diretorio={} erro={}", diretorio, e.toString());
+        }
+    }
+}
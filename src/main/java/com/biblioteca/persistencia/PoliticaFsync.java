@@ -0,0 +1,13 @@
+package com.biblioteca.persistencia;
+
+public enum PoliticaFsync {
+    // fsync antes de a escrita retornar, feito pela própria thread; um lote
+    // do LivroRepository conta como uma escrita.
+    POR_ESCRITA,
+    // A escrita espera o próximo fsync coletivo, que agrupa todas as
+    // escritas chegadas dentro da janela configurada.
+    GRUPO,
+    // fsync periódico em segundo plano; a escrita não espera e uma queda
+    // pode perder o último intervalo.
+    INTERVALO
+}
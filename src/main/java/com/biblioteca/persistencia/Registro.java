@@ -0,0 +1,20 @@
+package com.biblioteca.persistencia;
+
+import com.biblioteca.model.Livro;
+
+// Uma mutação do catálogo como gravada no diário. A reaplicação é
+// idempotente (ver PersistenciaLivros.aplicar), o que permite instantâneos
+// feitos sem parar as escritas.
+sealed interface Registro {
+    record Adicao(Livro livro) implements Registro {
+    }
+
+    record Atualizacao(String tituloAntigo, Livro novo) implements Registro {
+    }
+
+    record Remocao(String titulo) implements Registro {
+    }
+
+    record Limpeza() implements Registro {
+    }
+}
@@ -0,0 +1,584 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Os livros fora do heap, em dois arquivos mapeados na memória:
+//
+// livros.dat: cabeçalho de 64 bytes e os registros, só acrescentados no
+// fim e alinhados em 8 bytes. Cada registro é [tamanho:int][estado:byte]
+// [categoria:byte][2 livres][chave:int][titulo:int][autor:int][hash:int]
+// [versao:long][modificadoEm:long] e os textos em UTF-8; chave 0 significa
+// que a chave normalizada é o próprio título. Uma escrita grava um registro
+// novo, publica o novo fim no cabeçalho e só depois marca o antigo como
+// morto, então uma queda no meio nunca deixa o livro pela metade. O arquivo é mapeado em blocos de 64 MiB, e um
+// registro nunca atravessa dois blocos.
+//
+// livros.idx: tabela hash de endereçamento aberto (sondagem linear) sobre a
+// chave normalizada, um long por posição: 24 bits do hash e o endereço do
+// registro dividido por 8. 0 é posição livre e -1, lápide.
+//
+// Não é thread-safe: o LivroRepositoryMapeado serializa as escritas e
+// exclui as leituras delas.
+final class ArquivoMapeado implements Closeable {
+    static final String DADOS = "livros.dat";
+    static final String INDICE = "livros.idx";
+
+    private static final int MAGICO_DADOS = 0x4C49564D;
+    private static final int MAGICO_INDICE = 0x4C495649;
+    private static final int VERSAO = 1;
+    private static final int CABECALHO = 64;
+    private static final int BITS_BLOCO = 26;
+    private static final long BLOCO = 1L << BITS_BLOCO;
+    private static final int CAPACIDADE_INICIAL = 1024;
+    // O índice é um único MappedByteBuffer, endereçado por int: a maior
+    // potência de dois cujas posições cabem em Integer.MAX_VALUE bytes
+    // depois do cabeçalho. Com o redimensionamento deixando a tabela no
+    // máximo um quarto ocupada por vivos, são 2^25 livros.
+    static final long CAPACIDADE_MAXIMA = Long.highestOneBit((Integer.MAX_VALUE - CABECALHO) / 8);
+    private static final long LIVRE = 0;
+    private static final long LAPIDE = -1;
+    private static final long MASCARA_ENDERECO = (1L << 40) - 1;
+
+    // Cabeçalho de livros.dat.
+    private static final int H_MAGICO = 0;
+    private static final int H_VERSAO = 4;
+    private static final int H_FIM = 8;
+    private static final int H_VIVOS = 16;
+    private static final int H_BYTES_MORTOS = 24;
+    private static final int H_REVISAO_VERSAO = 32;
+    private static final int H_REVISAO_MODIFICADO = 40;
+    private static final int H_FECHADO = 48;
+    // Cabeçalho de livros.idx.
+    private static final int I_CAPACIDADE = 8;
+    private static final int I_OCUPADOS = 16;
+
+    // Campos do registro.
+    private static final int R_TAMANHO = 0;
+    private static final int R_ESTADO = 4;
+    private static final int R_CATEGORIA = 5;
+    private static final int R_CHAVE = 8;
+    private static final int R_TITULO = 12;
+    private static final int R_AUTOR = 16;
+    private static final int R_HASH = 20;
+    private static final int R_VERSAO = 24;
+    private static final int R_MODIFICADO = 32;
+    private static final int R_TEXTOS = 40;
+
+    private static final byte VIVO = 1;
+    private static final byte MORTO = 2;
+    private static final byte PREENCHIMENTO = 3;
+    private static final Categoria[] CATEGORIAS = Categoria.values();
+
+    private final Path diretorio;
+    private final List<MappedByteBuffer> blocos = new ArrayList<>();
+    private FileChannel dados;
+    private MappedByteBuffer indice;
+    private long capacidade;
+    // Cópias em memória dos campos do cabeçalho, gravadas a cada escrita.
+    private long fim;
+    private long vivos;
+    private long bytesMortos;
+    private long ocupados;
+    // Muda quando os endereços deixam de valer (compactação, limpeza): quem
+    // percorre o arquivo sem a trava usa isso para perceber.
+    private int geracao;
+
+    private ArquivoMapeado(Path diretorio) {
+        this.diretorio = diretorio;
+    }
+
+    // Um arquivo que não foi fechado direito (queda do processo) tem o
+    // índice reconstruído a partir dos registros; o resto só é mapeado.
+    static ArquivoMapeado abrir(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        ArquivoMapeado arquivo = new ArquivoMapeado(diretorio);
+        Path dados = diretorio.resolve(DADOS);
+        boolean novo = !Files.exists(dados) || Files.size(dados) == 0;
+        arquivo.dados = FileChannel.open(dados, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        arquivo.mapearBloco(0);
+        ByteBuffer cabecalho = arquivo.blocos.get(0);
+        if (novo) {
+            cabecalho.putInt(H_MAGICO, MAGICO_DADOS).putInt(H_VERSAO, VERSAO);
+            arquivo.fim = CABECALHO;
+            arquivo.gravarCabecalho();
+            arquivo.criarIndice(diretorio.resolve(INDICE), CAPACIDADE_INICIAL);
+        } else {
+            if (cabecalho.getInt(H_MAGICO) != MAGICO_DADOS || cabecalho.getInt(H_VERSAO) != VERSAO) {
+                throw new IOException("Arquivo de livros inválido: " + dados);
+            }
+            arquivo.fim = cabecalho.getLong(H_FIM);
+            arquivo.vivos = cabecalho.getLong(H_VIVOS);
+            arquivo.bytesMortos = cabecalho.getLong(H_BYTES_MORTOS);
+            for (int i = 1; i <= (arquivo.fim - 1) >>> BITS_BLOCO; i++) {
+                arquivo.mapearBloco(i);
+            }
+            if (cabecalho.getInt(H_FECHADO) == 1 && Files.exists(diretorio.resolve(INDICE))) {
+                arquivo.mapearIndice(diretorio.resolve(INDICE));
+            } else {
+                arquivo.reconstruirIndice();
+            }
+        }
+        cabecalho.putInt(H_FECHADO, 0);
+        arquivo.blocos.get(0).force();
+        return arquivo;
+    }
+
+    // Endereço do registro vivo com essa chave, ou -1.
+    long localizar(String chave) {
+        byte[] bytes = chave.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(chave);
+        long posicao = hash & (capacidade - 1);
+        while (true) {
+            long valor = slot(posicao);
+            if (valor == LIVRE) {
+                return -1;
+            }
+            if (valor != LAPIDE && (int) (valor >>> 40) == fragmento(hash)) {
+                long endereco = (valor & MASCARA_ENDERECO) << 3;
+                if (chaveIgual(endereco, bytes)) {
+                    return endereco;
+                }
+            }
+            posicao = (posicao + 1) & (capacidade - 1);
+        }
+    }
+
+    Livro ler(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        int chave = bloco.getInt(pos + R_CHAVE);
+        int titulo = bloco.getInt(pos + R_TITULO);
+        int autor = bloco.getInt(pos + R_AUTOR);
+        int inicioTitulo = pos + R_TEXTOS + chave;
+        return new Livro(texto(bloco, inicioTitulo, titulo), texto(bloco, inicioTitulo + titulo, autor),
+                CATEGORIAS[bloco.get(pos + R_CATEGORIA)]);
+    }
+
+    String chave(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        int tamanho = bloco.getInt(pos + R_CHAVE);
+        return texto(bloco, pos + R_TEXTOS, tamanho != 0 ? tamanho : bloco.getInt(pos + R_TITULO));
+    }
+
+    Categoria categoria(long endereco) {
+        return CATEGORIAS[bloco(endereco).get(posicao(endereco) + R_CATEGORIA)];
+    }
+
+    String autor(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        int inicio = pos + R_TEXTOS + bloco.getInt(pos + R_CHAVE) + bloco.getInt(pos + R_TITULO);
+        return texto(bloco, inicio, bloco.getInt(pos + R_AUTOR));
+    }
+
+    Revisao revisao(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        return new Revisao(bloco.getLong(pos + R_VERSAO), bloco.getLong(pos + R_MODIFICADO));
+    }
+
+    // Primeiro registro vivo depois de "endereco" (ou o primeiro do arquivo,
+    // com endereco negativo); -1 no fim.
+    long proximo(long endereco) {
+        long atual = endereco < 0 ? CABECALHO : endereco + bloco(endereco).getInt(posicao(endereco) + R_TAMANHO);
+        while (atual < fim) {
+            ByteBuffer bloco = bloco(atual);
+            int pos = posicao(atual);
+            if (bloco.get(pos + R_ESTADO) == VIVO) {
+                return atual;
+            }
+            atual += bloco.getInt(pos + R_TAMANHO);
+        }
+        return -1;
+    }
+
+    // Se o endereço ainda aponta para um registro (vivo ou não) desta
+    // geração; protege a continuação de um cursor vindo de fora.
+    boolean enderecoValido(long endereco) {
+        if (endereco < CABECALHO || endereco >= fim || (endereco & 7) != 0) {
+            return false;
+        }
+        // Os registros não atravessam blocos: basta andar dentro do bloco.
+        long atual = Math.max(CABECALHO, (endereco >>> BITS_BLOCO) << BITS_BLOCO);
+        while (atual < endereco) {
+            atual += bloco(atual).getInt(posicao(atual) + R_TAMANHO);
+        }
+        return atual == endereco;
+    }
+
+    // Grava o livro na chave, substituindo o registro vivo que houver nela.
+    // Devolve o endereço do novo registro.
+    long gravar(String chave, Livro livro, Revisao revisao) throws IOException {
+        long anterior = localizar(chave);
+        if (anterior < 0 && (ocupados + 1) * 2 > capacidade) {
+            redimensionar();
+        }
+        long endereco = acrescentar(chave, livro, revisao);
+        if (anterior >= 0) {
+            substituirSlot(chave, anterior, endereco);
+            matar(anterior);
+        } else {
+            inserirSlot(hash(chave), endereco);
+            vivos++;
+        }
+        gravarCabecalho();
+        return endereco;
+    }
+
+    // Grava o registro vivo no fim do arquivo e já publica o novo fim no
+    // cabeçalho, antes de o registro anterior morrer: a recuperação só
+    // percorre até H_FIM, e um processo que caísse entre matar o antigo e
+    // gravar o cabeçalho perderia o livro. Contra queda da máquina, a
+    // ordem entre as páginas só vale depois de sincronizar(), como o resto.
+    long acrescentar(String chave, Livro livro, Revisao revisao) throws IOException {
+        byte[] bytesChave = chave.equals(livro.getTitulo()) ? new byte[0] : chave.getBytes(StandardCharsets.UTF_8);
+        byte[] titulo = livro.getTitulo().getBytes(StandardCharsets.UTF_8);
+        byte[] autor = livro.getAutor().getBytes(StandardCharsets.UTF_8);
+        long tamanho = alinhar((long) R_TEXTOS + bytesChave.length + titulo.length + autor.length);
+        if (tamanho > BLOCO) {
+            throw new IllegalArgumentException("Livro grande demais para o arquivo mapeado: " + livro.getTitulo());
+        }
+        long endereco = reservar((int) tamanho);
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        bloco.putInt(pos + R_TAMANHO, (int) tamanho)
+                .put(pos + R_CATEGORIA, (byte) livro.getCategoria().ordinal())
+                .putInt(pos + R_CHAVE, bytesChave.length)
+                .putInt(pos + R_TITULO, titulo.length)
+                .putInt(pos + R_AUTOR, autor.length)
+                .putInt(pos + R_HASH, hash(chave))
+                .putLong(pos + R_VERSAO, revisao.versao())
+                .putLong(pos + R_MODIFICADO, revisao.modificadoEm())
+                .put(pos + R_TEXTOS, bytesChave)
+                .put(pos + R_TEXTOS + bytesChave.length, titulo)
+                .put(pos + R_TEXTOS + bytesChave.length + titulo.length, autor);
+        // O estado vai por último: até aqui, o registro não existe.
+        bloco.put(pos + R_ESTADO, VIVO);
+        fim = endereco + tamanho;
+        blocos.get(0).putLong(H_FIM, fim);
+        return endereco;
+    }
+
+    // Devolve false se não havia livro com a chave.
+    boolean apagar(String chave) {
+        long endereco = localizar(chave);
+        if (endereco < 0) {
+            return false;
+        }
+        long posicao = posicaoDoSlot(chave, endereco);
+        gravarSlot(posicao, LAPIDE);
+        matar(endereco);
+        vivos--;
+        gravarCabecalho();
+        return true;
+    }
+
+    void limpar() throws IOException {
+        fim = CABECALHO;
+        vivos = 0;
+        bytesMortos = 0;
+        geracao++;
+        criarIndice(diretorio.resolve(INDICE), CAPACIDADE_INICIAL);
+        gravarCabecalho();
+    }
+
+    long vivos() {
+        return vivos;
+    }
+
+    long bytesMortos() {
+        return bytesMortos;
+    }
+
+    // Mais bytes em registros mortos do que em vivos.
+    boolean fragmentado() {
+        return bytesMortos > fim - CABECALHO - bytesMortos;
+    }
+
+    int geracao() {
+        return geracao;
+    }
+
+    Revisao revisaoCatalogo() {
+        ByteBuffer cabecalho = blocos.get(0);
+        return new Revisao(cabecalho.getLong(H_REVISAO_VERSAO), cabecalho.getLong(H_REVISAO_MODIFICADO));
+    }
+
+    void revisaoCatalogo(Revisao revisao) {
+        blocos.get(0).putLong(H_REVISAO_VERSAO, revisao.versao())
+                .putLong(H_REVISAO_MODIFICADO, revisao.modificadoEm());
+    }
+
+    // Reescreve só os registros vivos num arquivo novo, que substitui o
+    // atual por rename; a ordem dos livros é mantida.
+    void compactar() throws IOException {
+        Path temporario = diretorio.resolve(DADOS + ".tmp");
+        long escrito = CABECALHO;
+        try (FileChannel destino = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecalho = blocos.get(0).slice(0, CABECALHO);
+            destino.write(cabecalho, 0);
+            for (long e = proximo(-1); e >= 0; e = proximo(e)) {
+                int tamanho = bloco(e).getInt(posicao(e) + R_TAMANHO);
+                long resto = BLOCO - (escrito & (BLOCO - 1));
+                if (tamanho > resto) {
+                    destino.write(preenchimento((int) resto), escrito);
+                    escrito += resto;
+                }
+                ByteBuffer registro = bloco(e).slice(posicao(e), tamanho);
+                while (registro.hasRemaining()) {
+                    escrito += destino.write(registro, escrito);
+                }
+            }
+            destino.force(true);
+        }
+        Files.move(temporario, diretorio.resolve(DADOS), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        Revisao revisao = revisaoCatalogo();
+        dados.close();
+        blocos.clear();
+        dados = FileChannel.open(diretorio.resolve(DADOS), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fim = escrito;
+        bytesMortos = 0;
+        geracao++;
+        for (int i = 0; i <= (fim - 1) >>> BITS_BLOCO; i++) {
+            mapearBloco(i);
+        }
+        revisaoCatalogo(revisao);
+        reconstruirIndice();
+        gravarCabecalho();
+    }
+
+    void sincronizar() {
+        for (MappedByteBuffer bloco : blocos) {
+            bloco.force();
+        }
+        indice.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sincronizar();
+        blocos.get(0).putInt(H_FECHADO, 1);
+        blocos.get(0).force();
+        dados.close();
+    }
+
+    void matar(long endereco) {
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        bloco.put(pos + R_ESTADO, MORTO);
+        bytesMortos += bloco.getInt(pos + R_TAMANHO);
+    }
+
+    private long reservar(int tamanho) throws IOException {
+        long resto = BLOCO - (fim & (BLOCO - 1));
+        if (tamanho > resto) {
+            // Completa o bloco com um registro vazio e começa no próximo.
+            bloco(fim).put(posicao(fim), preenchimento((int) resto).array(), 0, 8);
+            fim += resto;
+        }
+        int bloco = (int) (fim >>> BITS_BLOCO);
+        if (bloco == blocos.size()) {
+            mapearBloco(bloco);
+        }
+        return fim;
+    }
+
+    private static ByteBuffer preenchimento(int tamanho) {
+        ByteBuffer registro = ByteBuffer.allocate(8);
+        registro.putInt(R_TAMANHO, tamanho).put(R_ESTADO, PREENCHIMENTO);
+        return registro;
+    }
+
+    private void gravarCabecalho() {
+        blocos.get(0).putLong(H_FIM, fim).putLong(H_VIVOS, vivos).putLong(H_BYTES_MORTOS, bytesMortos);
+    }
+
+    private void mapearBloco(int i) throws IOException {
+        blocos.add(dados.map(FileChannel.MapMode.READ_WRITE, (long) i * BLOCO, BLOCO));
+    }
+
+    private ByteBuffer bloco(long endereco) {
+        return blocos.get((int) (endereco >>> BITS_BLOCO));
+    }
+
+    private static int posicao(long endereco) {
+        return (int) (endereco & (BLOCO - 1));
+    }
+
+    private static long alinhar(long tamanho) {
+        return (tamanho + 7) & ~7L;
+    }
+
+    private boolean chaveIgual(long endereco, byte[] chave) {
+        ByteBuffer bloco = bloco(endereco);
+        int pos = posicao(endereco);
+        int tamanho = bloco.getInt(pos + R_CHAVE);
+        if (tamanho == 0) {
+            tamanho = bloco.getInt(pos + R_TITULO);
+        }
+        return tamanho == chave.length
+                && bloco.slice(pos + R_TEXTOS, tamanho).mismatch(ByteBuffer.wrap(chave)) == -1;
+    }
+
+    private static String texto(ByteBuffer bloco, int inicio, int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        bloco.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int hash(String chave) {
+        int h = chave.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int fragmento(int hash) {
+        return hash >>> 8;
+    }
+
+    // Índice.
+
+    private long slot(long posicao) {
+        return indice.getLong((int) (CABECALHO + posicao * 8));
+    }
+
+    private void gravarSlot(long posicao, long valor) {
+        indice.putLong((int) (CABECALHO + posicao * 8), valor);
+    }
+
+    private long posicaoDoSlot(String chave, long endereco) {
+        long valorEsperado = valorSlot(hash(chave), endereco);
+        long posicao = hash(chave) & (capacidade - 1);
+        while (slot(posicao) != valorEsperado) {
+            posicao = (posicao + 1) & (capacidade - 1);
+        }
+        return posicao;
+    }
+
+    private void substituirSlot(String chave, long anterior, long endereco) {
+        gravarSlot(posicaoDoSlot(chave, anterior), valorSlot(hash(chave), endereco));
+    }
+
+    // Quem insere garante antes que a tabela tem espaço.
+    private void inserirSlot(int hash, long endereco) {
+        long posicao = hash & (capacidade - 1);
+        long valor = slot(posicao);
+        while (valor != LIVRE && valor != LAPIDE) {
+            posicao = (posicao + 1) & (capacidade - 1);
+            valor = slot(posicao);
+        }
+        if (valor == LIVRE) {
+            ocupados++;
+            indice.putLong(I_OCUPADOS, ocupados);
+        }
+        gravarSlot(posicao, valorSlot(hash, endereco));
+    }
+
+    private static long valorSlot(int hash, long endereco) {
+        return ((long) fragmento(hash) << 40) | (endereco >>> 3);
+    }
+
+    // Troca as lápides por posições livres e dobra a capacidade se os vivos
+    // ainda ocuparem mais de um quarto dela.
+    private void redimensionar() throws IOException {
+        long nova = capacidadePara(vivos, capacidade);
+        List<long[]> entradas = new ArrayList<>();
+        for (long e = proximo(-1); e >= 0; e = proximo(e)) {
+            entradas.add(new long[]{bloco(e).getInt(posicao(e) + R_HASH), e});
+        }
+        Path temporario = diretorio.resolve(INDICE + ".tmp");
+        criarIndice(temporario, nova);
+        for (long[] entrada : entradas) {
+            inserirSlot((int) entrada[0], entrada[1]);
+        }
+        indice.force();
+        Files.move(temporario, diretorio.resolve(INDICE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void reconstruirIndice() throws IOException {
+        long total = 0;
+        for (long e = proximo(-1); e >= 0; e = proximo(e)) {
+            total++;
+        }
+        criarIndice(diretorio.resolve(INDICE), capacidadePara(total, CAPACIDADE_INICIAL));
+        vivos = 0;
+        bytesMortos = 0;
+        for (long atual = CABECALHO; atual < fim; ) {
+            ByteBuffer bloco = bloco(atual);
+            int pos = posicao(atual);
+            int tamanho = bloco.getInt(pos + R_TAMANHO);
+            byte estado = bloco.get(pos + R_ESTADO);
+            if (estado == VIVO) {
+                // Uma queda entre gravar o novo registro e matar o antigo
+                // deixa dois vivos com a mesma chave: vale o mais recente.
+                String chave = chave(atual);
+                long anterior = localizar(chave);
+                if (anterior >= 0) {
+                    substituirSlot(chave, anterior, atual);
+                    matar(anterior);
+                } else {
+                    inserirSlot(bloco.getInt(pos + R_HASH), atual);
+                    vivos++;
+                }
+            } else if (estado == MORTO) {
+                bytesMortos += tamanho;
+            }
+            atual += tamanho;
+        }
+        gravarCabecalho();
+    }
+
+    // A partir de "atual", a menor capacidade que deixa os vivos (mais o
+    // que vai entrar) em até um quarto da tabela.
+    static long capacidadePara(long vivos, long atual) {
+        long nova = atual;
+        while ((vivos + 1) * 4 > nova && nova <= CAPACIDADE_MAXIMA) {
+            nova *= 2;
+        }
+        if (nova > CAPACIDADE_MAXIMA) {
+            throw new IllegalStateException("Índice do arquivo mapeado cheio: " + vivos
+                    + " livros; o limite é " + CAPACIDADE_MAXIMA / 4);
+        }
+        return nova;
+    }
+
+    private void criarIndice(Path arquivo, long capacidade) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            indice = canal.map(FileChannel.MapMode.READ_WRITE, 0, CABECALHO + capacidade * 8);
+        }
+        indice.putInt(H_MAGICO, MAGICO_INDICE).putInt(H_VERSAO, VERSAO).putLong(I_CAPACIDADE, capacidade)
+                .putLong(I_OCUPADOS, 0);
+        this.capacidade = capacidade;
+        this.ocupados = 0;
+    }
+
+    private void mapearIndice(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            indice = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+        }
+        if (indice.getInt(H_MAGICO) != MAGICO_INDICE || indice.getInt(H_VERSAO) != VERSAO) {
+            throw new IOException("Índice de livros inválido: " + arquivo);
+        }
+        capacidade = indice.getLong(I_CAPACIDADE);
+        ocupados = indice.getLong(I_OCUPADOS);
+    }
+}
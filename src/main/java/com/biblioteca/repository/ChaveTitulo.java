@@ -0,0 +1,75 @@
+package com.biblioteca.repository;
+
+// Comparações de um título cru com as chaves normalizadas (as de
+// normalize(titulo)) sem montar a string normalizada: andam direto pelos
+// caracteres do título, pulando as pontas que o trim() tiraria e baixando a
+// caixa de cada um. Nada aqui é instanciado; as chaves guardadas continuam
+// sendo as próprias strings normalizadas, calculadas uma vez na escrita.
+//
+// Só vale para títulos em Latin-1, em que a caixa baixa é de um caractere
+// para um (fora dele, "İ" vira dois e "Σ" depende do vizinho); os outros
+// passam pelo normalize.
+final class ChaveTitulo {
+    private static final char ULTIMO_LATIN1 = '\u00ff';
+
+    private ChaveTitulo() {
+    }
+
+    static boolean aplicavel(String titulo) {
+        for (int i = 0; i < titulo.length(); i++) {
+            if (titulo.charAt(i) > ULTIMO_LATIN1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Se normalize(titulo) devolveria o próprio título: Latin-1, sem
+    // espaço nas pontas e já em caixa baixa. Aí o título serve direto como
+    // chave, sem cópia.
+    static boolean normalizado(String titulo) {
+        int n = titulo.length();
+        if (n > 0 && (titulo.charAt(0) <= ' ' || titulo.charAt(n - 1) <= ' ')) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            char c = titulo.charAt(i);
+            if (c > ULTIMO_LATIN1 || Character.toLowerCase(c) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Primeiro caractere que o trim() manteria.
+    static int inicio(String titulo) {
+        int i = 0;
+        while (i < titulo.length() && titulo.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    // Fim (exclusivo) do que o trim() manteria, a partir de inicio(titulo).
+    static int fim(String titulo, int inicio) {
+        int f = titulo.length();
+        while (f > inicio && titulo.charAt(f - 1) <= ' ') {
+            f--;
+        }
+        return f;
+    }
+
+    // Como normalize(titulo).compareTo(chave), com titulo[inicio, fim).
+    static int comparar(String titulo, int inicio, int fim, String chave) {
+        int tamanho = fim - inicio;
+        int comum = Math.min(tamanho, chave.length());
+        for (int i = 0; i < comum; i++) {
+            char c = Character.toLowerCase(titulo.charAt(inicio + i));
+            char k = chave.charAt(i);
+            if (c != k) {
+                return c - k;
+            }
+        }
+        return tamanho - chave.length();
+    }
+}
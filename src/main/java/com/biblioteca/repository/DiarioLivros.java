@@ -0,0 +1,28 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Livro;
+
+// Diário de escrita (write-ahead) do LivroRepositoryMemoria. Ao contrário de
+// um ObservadorLivros, recebe cada mutação antes de ela ser aplicada, já com
+// a trava da chave e depois de conferidas as regras (título repetido,
+// livro ausente, revisão): se lançar, a memória fica como estava e nenhum
+// observador é chamado. Cada antesDe* devolve a posição do diário logo
+// depois do registro, que o repositório repassa a aoConcluir; este roda
+// depois, sem trava, como o dos observadores.
+public interface DiarioLivros {
+    long antesDeAdicionar(Livro livro);
+
+    long antesDeAtualizar(Livro antigo, Livro novo);
+
+    long antesDeRemover(Livro livro);
+
+    long antesDeLimpar();
+
+    // Posição depois do último registro gravado; para concluir um lote,
+    // que grava vários antes de uma conclusão só.
+    long posicao();
+
+    // Espera (conforme a política do diário) até tudo antes de "posicao"
+    // estar durável.
+    void aoConcluir(long posicao);
+}
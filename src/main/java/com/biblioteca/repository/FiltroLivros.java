@@ -0,0 +1,19 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Categoria;
+
+public record FiltroLivros(Categoria categoria, String autor) {
+    public static final FiltroLivros TODOS = new FiltroLivros(null, null);
+
+    public static FiltroLivros porCategoria(Categoria categoria) {
+        return new FiltroLivros(categoria, null);
+    }
+
+    public static FiltroLivros porAutor(String autor) {
+        return new FiltroLivros(null, autor);
+    }
+
+    public boolean vazio() {
+        return categoria == null && autor == null;
+    }
+}
@@ -0,0 +1,436 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Livro;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// O catálogo ordenado pela chave do título, como uma B+ tree persistente:
+// cada escrita copia só o caminho da raiz até a folha (alguns arrays de até
+// 32 posições) e devolve uma árvore nova, sem tocar na anterior. O
+// repositório publica a árvore atual num campo volatile; quem a lê tem um
+// instantâneo consistente do catálogo, que percorre sem trava e sem cópia
+// enquanto as escritas seguem publicando outras versões.
+//
+// A árvore do catálogo completo guarda também a revisão de cada livro, em
+// colunas de long ao lado dos livros da folha; nos índices secundários
+// essa coluna é null.
+final class Instantaneo extends AbstractList<Livro> {
+    static final Instantaneo VAZIO = new Instantaneo(null);
+
+    private static final int MAX = 32;
+
+    private sealed interface No permits Folha, Interno {
+        int tamanho();
+
+        String primeira();
+    }
+
+    // revisoes[2i] e revisoes[2i + 1] são a versão e o instante da última
+    // escrita de livros[i].
+    private record Folha(String[] chaves, Livro[] livros, long[] revisoes) implements No {
+        @Override
+        public int tamanho() {
+            return chaves.length;
+        }
+
+        @Override
+        public String primeira() {
+            return chaves[0];
+        }
+    }
+
+    // primeiras[i] é a menor chave da subárvore filhos[i]; tamanho é o total
+    // de livros abaixo do nó, para o acesso por índice.
+    private record Interno(String[] primeiras, No[] filhos, int tamanho) implements No {
+        @Override
+        public String primeira() {
+            return primeiras[0];
+        }
+    }
+
+    // null na árvore vazia; folhas e nós internos nunca ficam vazios.
+    private final No raiz;
+
+    private Instantaneo(No raiz) {
+        this.raiz = raiz;
+    }
+
+    @Override
+    public int size() {
+        return raiz == null ? 0 : raiz.tamanho();
+    }
+
+    @Override
+    public Livro get(int indice) {
+        Objects.checkIndex(indice, size());
+        No no = raiz;
+        while (no instanceof Interno interno) {
+            int i = 0;
+            while (indice >= interno.filhos()[i].tamanho()) {
+                indice -= interno.filhos()[i].tamanho();
+                i++;
+            }
+            no = interno.filhos()[i];
+        }
+        return ((Folha) no).livros()[indice];
+    }
+
+    @Override
+    public Iterator<Livro> iterator() {
+        Percurso percurso = new Percurso(raiz, null);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return percurso.temAtual();
+            }
+
+            @Override
+            public Livro next() {
+                Livro livro = percurso.livroAtual();
+                percurso.avancar();
+                return livro;
+            }
+        };
+    }
+
+    // Entradas (chave, livro) com chave maior que "apos", em ordem; apos
+    // null começa do início. É o que a listagem por cursor percorre.
+    Iterator<Map.Entry<String, Livro>> entradasApos(String apos) {
+        Percurso percurso = new Percurso(raiz, apos);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return percurso.temAtual();
+            }
+
+            @Override
+            public Map.Entry<String, Livro> next() {
+                Map.Entry<String, Livro> entrada = Map.entry(percurso.chaveAtual(), percurso.livroAtual());
+                percurso.avancar();
+                return entrada;
+            }
+        };
+    }
+
+    // Revisão do livro com essa chave, só na árvore que guarda revisões;
+    // null se a chave não existe.
+    Revisao revisaoDe(String chave) {
+        if (raiz == null) {
+            return null;
+        }
+        No no = raiz;
+        while (no instanceof Interno interno) {
+            no = interno.filhos()[filhoPara(interno.primeiras(), chave)];
+        }
+        Folha folha = (Folha) no;
+        int i = Arrays.binarySearch(folha.chaves(), chave);
+        if (i < 0 || folha.revisoes() == null) {
+            return null;
+        }
+        return new Revisao(folha.revisoes()[2 * i], folha.revisoes()[2 * i + 1]);
+    }
+
+    // Como revisaoDe(normalize(titulo)), mas a partir do título cru (só se
+    // ChaveTitulo.aplicavel): a descida compara o título direto com as
+    // chaves, sem normalizá-lo.
+    Revisao revisaoDoTitulo(String titulo) {
+        int inicio = ChaveTitulo.inicio(titulo);
+        int fim = ChaveTitulo.fim(titulo, inicio);
+        Folha folha = folhaDoTitulo(titulo, inicio, fim);
+        int i = folha == null ? -1 : buscarTitulo(folha.chaves(), titulo, inicio, fim);
+        if (i < 0 || folha.revisoes() == null) {
+            return null;
+        }
+        return new Revisao(folha.revisoes()[2 * i], folha.revisoes()[2 * i + 1]);
+    }
+
+    private Folha folhaDoTitulo(String titulo, int inicio, int fim) {
+        if (raiz == null) {
+            return null;
+        }
+        No no = raiz;
+        while (no instanceof Interno interno) {
+            int i = buscarTitulo(interno.primeiras(), titulo, inicio, fim);
+            no = interno.filhos()[i >= 0 ? i : Math.max(0, -(i + 1) - 1)];
+        }
+        return (Folha) no;
+    }
+
+    // Arrays.binarySearch com ChaveTitulo.comparar no lugar de compareTo.
+    private static int buscarTitulo(String[] chaves, String titulo, int inicio, int fim) {
+        int baixo = 0;
+        int alto = chaves.length - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int c = ChaveTitulo.comparar(titulo, inicio, fim, chaves[meio]);
+            if (c > 0) {
+                baixo = meio + 1;
+            } else if (c < 0) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(baixo + 1);
+    }
+
+    // Sem revisão: para os índices secundários.
+    Instantaneo com(String chave, Livro livro) {
+        return com(chave, livro, null);
+    }
+
+    // Uma árvore guarda revisões para todos os livros ou para nenhum: quem
+    // começa com uma revisão deve passá-la em todas as inserções.
+    Instantaneo com(String chave, Livro livro, Revisao revisao) {
+        if (raiz == null) {
+            long[] revisoes = revisao == null ? null : new long[]{revisao.versao(), revisao.modificadoEm()};
+            return new Instantaneo(new Folha(new String[]{chave}, new Livro[]{livro}, revisoes));
+        }
+        No[] partes = inserir(raiz, chave, livro, revisao);
+        return new Instantaneo(partes.length == 1 ? partes[0] : interno(partes));
+    }
+
+    Instantaneo sem(String chave) {
+        if (raiz == null) {
+            return this;
+        }
+        No nova = retirar(raiz, chave);
+        if (nova == raiz) {
+            return this;
+        }
+        // Remoções não fundem nós vizinhos; só evitam que a raiz fique com
+        // um filho único, o que manteria a altura sem necessidade.
+        while (nova instanceof Interno interno && interno.filhos().length == 1) {
+            nova = interno.filhos()[0];
+        }
+        return nova == null ? VAZIO : new Instantaneo(nova);
+    }
+
+    // Devolve o nó novo, ou dois quando ele estoura e se divide ao meio.
+    private static No[] inserir(No no, String chave, Livro livro, Revisao revisao) {
+        if (no instanceof Folha folha) {
+            int i = Arrays.binarySearch(folha.chaves(), chave);
+            long[] revisoes = folha.revisoes();
+            if (i >= 0) {
+                // Mesma chave: o array de chaves é compartilhado com a versão anterior.
+                Livro[] livros = folha.livros().clone();
+                livros[i] = livro;
+                if (revisoes != null) {
+                    revisoes = revisoes.clone();
+                    revisoes[2 * i] = revisao.versao();
+                    revisoes[2 * i + 1] = revisao.modificadoEm();
+                }
+                return new No[]{new Folha(folha.chaves(), livros, revisoes)};
+            }
+            int p = -(i + 1);
+            String[] chaves = inserirEm(folha.chaves(), p, chave);
+            Livro[] livros = inserirEm(folha.livros(), p, livro);
+            if (revisoes != null) {
+                revisoes = inserirRevisao(revisoes, p, revisao);
+            }
+            if (chaves.length <= MAX) {
+                return new No[]{new Folha(chaves, livros, revisoes)};
+            }
+            int meio = chaves.length / 2;
+            return new No[]{
+                    new Folha(Arrays.copyOfRange(chaves, 0, meio), Arrays.copyOfRange(livros, 0, meio),
+                            revisoes == null ? null : Arrays.copyOfRange(revisoes, 0, 2 * meio)),
+                    new Folha(Arrays.copyOfRange(chaves, meio, chaves.length),
+                            Arrays.copyOfRange(livros, meio, livros.length),
+                            revisoes == null ? null : Arrays.copyOfRange(revisoes, 2 * meio, revisoes.length))};
+        }
+        Interno interno = (Interno) no;
+        int i = filhoPara(interno.primeiras(), chave);
+        No filho = interno.filhos()[i];
+        No[] partes = inserir(filho, chave, livro, revisao);
+        int tamanho = interno.tamanho() - filho.tamanho() + partes[0].tamanho();
+        String[] primeiras = interno.primeiras().clone();
+        No[] filhos = interno.filhos().clone();
+        primeiras[i] = partes[0].primeira();
+        filhos[i] = partes[0];
+        if (partes.length == 2) {
+            tamanho += partes[1].tamanho();
+            primeiras = inserirEm(primeiras, i + 1, partes[1].primeira());
+            filhos = inserirEm(filhos, i + 1, partes[1]);
+        }
+        if (filhos.length <= MAX) {
+            return new No[]{new Interno(primeiras, filhos, tamanho)};
+        }
+        int meio = filhos.length / 2;
+        return new No[]{
+                interno(Arrays.copyOfRange(filhos, 0, meio)),
+                interno(Arrays.copyOfRange(filhos, meio, filhos.length))};
+    }
+
+    // Devolve o próprio nó se a chave não existe e null se ele ficar vazio.
+    private static No retirar(No no, String chave) {
+        if (no instanceof Folha folha) {
+            int i = Arrays.binarySearch(folha.chaves(), chave);
+            if (i < 0) {
+                return folha;
+            }
+            if (folha.chaves().length == 1) {
+                return null;
+            }
+            return new Folha(removerDe(folha.chaves(), i), removerDe(folha.livros(), i),
+                    folha.revisoes() == null ? null : removerRevisao(folha.revisoes(), i));
+        }
+        Interno interno = (Interno) no;
+        int i = filhoPara(interno.primeiras(), chave);
+        No filho = interno.filhos()[i];
+        No novo = retirar(filho, chave);
+        if (novo == filho) {
+            return interno;
+        }
+        if (novo == null) {
+            if (interno.filhos().length == 1) {
+                return null;
+            }
+            return new Interno(removerDe(interno.primeiras(), i), removerDe(interno.filhos(), i),
+                    interno.tamanho() - 1);
+        }
+        String[] primeiras = interno.primeiras().clone();
+        No[] filhos = interno.filhos().clone();
+        primeiras[i] = novo.primeira();
+        filhos[i] = novo;
+        return new Interno(primeiras, filhos, interno.tamanho() - 1);
+    }
+
+    private static Interno interno(No[] filhos) {
+        String[] primeiras = new String[filhos.length];
+        int tamanho = 0;
+        for (int i = 0; i < filhos.length; i++) {
+            primeiras[i] = filhos[i].primeira();
+            tamanho += filhos[i].tamanho();
+        }
+        return new Interno(primeiras, filhos, tamanho);
+    }
+
+    // Último filho cuja menor chave não passa de "chave"; o primeiro quando
+    // a chave é menor que todas.
+    private static int filhoPara(String[] primeiras, String chave) {
+        int i = Arrays.binarySearch(primeiras, chave);
+        return i >= 0 ? i : Math.max(0, -(i + 1) - 1);
+    }
+
+    private static <T> T[] inserirEm(T[] origem, int posicao, T valor) {
+        T[] maior = Arrays.copyOf(origem, origem.length + 1);
+        System.arraycopy(origem, posicao, maior, posicao + 1, origem.length - posicao);
+        maior[posicao] = valor;
+        return maior;
+    }
+
+    private static <T> T[] removerDe(T[] origem, int posicao) {
+        T[] menor = Arrays.copyOf(origem, origem.length - 1);
+        System.arraycopy(origem, posicao + 1, menor, posicao, origem.length - posicao - 1);
+        return menor;
+    }
+
+    private static long[] inserirRevisao(long[] origem, int posicao, Revisao revisao) {
+        long[] maior = Arrays.copyOf(origem, origem.length + 2);
+        System.arraycopy(origem, 2 * posicao, maior, 2 * posicao + 2, origem.length - 2 * posicao);
+        maior[2 * posicao] = revisao.versao();
+        maior[2 * posicao + 1] = revisao.modificadoEm();
+        return maior;
+    }
+
+    private static long[] removerRevisao(long[] origem, int posicao) {
+        long[] menor = Arrays.copyOf(origem, origem.length - 2);
+        System.arraycopy(origem, 2 * posicao + 2, menor, 2 * posicao, origem.length - 2 * posicao - 2);
+        return menor;
+    }
+
+    // Cursor sobre as folhas, com uma pilha de (nó interno, filho atual);
+    // a altura da árvore é pequena, então a pilha cresce pouco.
+    private static final class Percurso {
+        private Interno[] pilha = new Interno[4];
+        private int[] posicoes = new int[4];
+        private int profundidade;
+        private Folha folha;
+        private int indice;
+
+        Percurso(No raiz, String apos) {
+            if (raiz == null) {
+                return;
+            }
+            No no = raiz;
+            while (no instanceof Interno interno) {
+                int i = apos == null ? 0 : filhoPara(interno.primeiras(), apos);
+                empilhar(interno, i);
+                no = interno.filhos()[i];
+            }
+            folha = (Folha) no;
+            if (apos != null) {
+                int i = Arrays.binarySearch(folha.chaves(), apos);
+                indice = i >= 0 ? i + 1 : -(i + 1);
+            }
+            ajustar();
+        }
+
+        boolean temAtual() {
+            return folha != null;
+        }
+
+        String chaveAtual() {
+            verificar();
+            return folha.chaves()[indice];
+        }
+
+        Livro livroAtual() {
+            verificar();
+            return folha.livros()[indice];
+        }
+
+        void avancar() {
+            verificar();
+            indice++;
+            ajustar();
+        }
+
+        private void verificar() {
+            if (folha == null) {
+                throw new NoSuchElementException();
+            }
+        }
+
+        private void ajustar() {
+            while (folha != null && indice >= folha.chaves().length) {
+                folha = proximaFolha();
+                indice = 0;
+            }
+        }
+
+        private Folha proximaFolha() {
+            while (profundidade > 0) {
+                Interno topo = pilha[profundidade - 1];
+                int proximo = posicoes[profundidade - 1] + 1;
+                if (proximo < topo.filhos().length) {
+                    posicoes[profundidade - 1] = proximo;
+                    No no = topo.filhos()[proximo];
+                    while (no instanceof Interno interno) {
+                        empilhar(interno, 0);
+                        no = interno.filhos()[0];
+                    }
+                    return (Folha) no;
+                }
+                profundidade--;
+            }
+            return null;
+        }
+
+        private void empilhar(Interno interno, int posicao) {
+            if (profundidade == pilha.length) {
+                pilha = Arrays.copyOf(pilha, profundidade * 2);
+                posicoes = Arrays.copyOf(posicoes, profundidade * 2);
+            }
+            pilha[profundidade] = interno;
+            posicoes[profundidade] = posicao;
+            profundidade++;
+        }
+    }
+}
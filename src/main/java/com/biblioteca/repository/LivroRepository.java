@@ -1,46 +1,229 @@
 package com.biblioteca.repository;
 
-import com.biblioteca.exception.LivroDuplicadoException;
-import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.metricas.Histograma;
+import com.biblioteca.metricas.RegistroMetricas;
 import com.biblioteca.model.Livro;
-import com.biblioteca.model.LivroNulo;
 
-import java.util.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class LivroRepository {
-    private static final String MSG_DUPLICADO = "Já existe livro com título: ";
-    private final Map<String, Livro> porTitulo = new HashMap<>();
+// Contrato comum dos dois armazenamentos do catálogo: LivroRepositoryMemoria
+// (mapas e instantâneos no heap, com diário opcional) e
+// LivroRepositoryMapeado (arquivos mapeados fora do heap). Aqui ficam só o
+// que os dois compartilham de fato: métricas, observadores, lotes e os
+// atalhos que se escrevem em termos das operações abstratas.
+public abstract class LivroRepository {
+    static final String MSG_DUPLICADO = "Já existe livro com título: ";
+    static final String MSG_CURSOR_INVALIDO = "Cursor inválido: ";
+    // Para as escritas condicionais: grava qualquer que seja a revisão atual.
+    public static final long QUALQUER_REVISAO = -1;
+    private static final String METRICA_DURACAO = "biblioteca_repositorio_duracao_segundos";
+
+    final Histograma tAdicionar;
+    final Histograma tAdicionarTodos;
+    final Histograma tAtualizar;
+    final Histograma tRemover;
+    final Histograma tBuscar;
+    final Histograma tListarTodos;
+    final Histograma tListarPagina;
+    final Histograma tLimpar;
+    final List<ObservadorLivros> observadores = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Boolean> emLote = new ThreadLocal<>();
+
+    // Só as duas implementações deste pacote.
+    LivroRepository(RegistroMetricas metricas) {
+        Objects.requireNonNull(metricas, "Registro de métricas obrigatório");
+        tAdicionar = temporizador(metricas, "adicionar");
+        tAdicionarTodos = temporizador(metricas, "adicionarTodos");
+        tAtualizar = temporizador(metricas, "atualizar");
+        tRemover = temporizador(metricas, "remover");
+        tBuscar = temporizador(metricas, "buscarPorTitulo");
+        tListarTodos = temporizador(metricas, "listarTodos");
+        tListarPagina = temporizador(metricas, "listarPagina");
+        tLimpar = temporizador(metricas, "limpar");
+    }
 
     public void adicionar(Livro livro) {
-        Objects.requireNonNull(livro, "Livro não pode ser null");
-        String key = normalize(livro.getTitulo());
-        if (porTitulo.containsKey(key)) {
-            throw new LivroDuplicadoException(MSG_DUPLICADO + livro.getTitulo());
-        }
-        porTitulo.put(key, livro);
+        adicionarSeAusente(livro).ouLancar();
     }
+
+    // Como adicionar, mas um título já existente volta como Duplicado em vez
+    // de LivroDuplicadoException.
+    public abstract ResultadoEscrita adicionarSeAusente(Livro livro);
+
+    // Inserção em massa: o lote entra de uma vez, com uma única conclusão
+    // dos observadores. Títulos já existentes (ou repetidos dentro do
+    // próprio lote) não lançam exceção; seus índices na lista voltam no
+    // BitSet.
+    public abstract BitSet adicionarTodos(List<Livro> livros);
+
     public void atualizar(String tituloAntigo, Livro novoLivro) {
-        Objects.requireNonNull(novoLivro, "Livro não pode ser null");
-        String keyAntigo = normalize(tituloAntigo);
-        if (!porTitulo.containsKey(keyAntigo)) {
-            throw new LivroNaoEncontradoException("Livro não encontrado: " + tituloAntigo);
-        }
-        porTitulo.remove(keyAntigo);
-        porTitulo.put(normalize(novoLivro.getTitulo()), novoLivro);
+        substituirSePresente(tituloAntigo, novoLivro).ouLancar();
     }
+
+    // Ausência volta como NaoEncontrado em vez de LivroNaoEncontradoException.
+    public ResultadoEscrita substituirSePresente(String tituloAntigo, Livro novoLivro) {
+        return substituirSePresente(tituloAntigo, novoLivro, QUALQUER_REVISAO);
+    }
+
+    // Compare-and-set: só grava se a revisão atual do livro ainda for
+    // versaoEsperada (a do ETag que o cliente leu); senão devolve
+    // Modificado.
+    public abstract ResultadoEscrita substituirSePresente(String tituloAntigo, Livro novoLivro, long versaoEsperada);
+
     public void remover(String titulo) {
-        porTitulo.remove(normalize(titulo));
+        removerSePresente(titulo);
     }
-    public Livro buscarPorTitulo(String titulo) {
-        return porTitulo.getOrDefault(normalize(titulo), LivroNulo.INSTANCE);
+
+    // Remove e devolve o livro que saiu.
+    public ResultadoEscrita removerSePresente(String titulo) {
+        return removerSePresente(titulo, QUALQUER_REVISAO);
     }
-    public List<Livro> listarTodos() {
-        return List.copyOf(porTitulo.values());
+
+    public abstract ResultadoEscrita removerSePresente(String titulo, long versaoEsperada);
+
+    public abstract Livro buscarPorTitulo(String titulo);
+
+    public abstract List<Livro> listarTodos();
+
+    // Para quem só precisa passar pelos livros uma vez, sem a lista inteira.
+    public abstract Iterable<Livro> percorrerTodos();
+
+    public Pagina listarPagina(String cursor, int limite) {
+        return listarPagina(FiltroLivros.TODOS, cursor, limite);
+    }
+
+    public abstract Pagina listarPagina(FiltroLivros filtro, String cursor, int limite);
+
+    public abstract void limpar();
+
+    public abstract int tamanho();
+
+    // true se os livros vivem no heap; índices em memória sobre o catálogo
+    // (busca, sugestões) só cabem quando é assim, senão trariam para o heap
+    // o acervo que o armazenamento mantém fora dele.
+    public abstract boolean emMemoria();
+
+    // Para validar respostas condicionais, leia a revisão antes dos dados:
+    // uma escrita concorrente só pode deixá-la mais antiga que o conteúdo,
+    // nunca o contrário.
+    public abstract Revisao revisaoCatalogo();
+
+    // null se não há livro com esse título.
+    public abstract Revisao revisaoDe(String titulo);
+
+    // O observador recebe o catálogo atual como uma sequência de adições e,
+    // daí em diante, cada mutação sob a mesma trava que a aplicou.
+    public void registrarObservador(ObservadorLivros observador) {
+        registrarObservador(observador, true);
+    }
+
+    // Sem a carga inicial, para observadores que já conhecem o catálogo
+    // (o diário de escrita, por exemplo, que acabou de reconstruí-lo).
+    public void registrarObservador(ObservadorLivros observador, boolean receberCatalogoAtual) {
+        Objects.requireNonNull(observador, "Observador não pode ser null");
+        travarTodas();
+        try {
+            if (receberCatalogoAtual) {
+                percorrerTodos().forEach(observador::aoAdicionar);
+            }
+            observadores.add(observador);
+        } finally {
+            destravarTodas();
+        }
     }
-    private String normalize(String titulo) {
+
+    public void removerObservador(ObservadorLivros observador) {
+        observadores.remove(observador);
+    }
+
+    // Aplica várias escritas como um lote: nenhuma outra escrita se
+    // intercala e os observadores são concluídos uma única vez no fim, o
+    // que para o diário de escrita significa um só fsync para o lote
+    // inteiro.
+    public void executarEmLote(Runnable lote) {
+        Objects.requireNonNull(lote, "Lote não pode ser null");
+        emLote.set(Boolean.TRUE);
+        long posicao;
+        travarTodas();
+        try {
+            lote.run();
+            posicao = posicaoArmazenamento();
+        } finally {
+            destravarTodas();
+            emLote.remove();
+        }
+        concluir(posicao);
+    }
+
+    void concluir() {
+        concluir(0);
+    }
+
+    // Fora das travas, na thread que fez a escrita: é onde um observador
+    // pode esperar (pela confirmação em disco, por exemplo) sem bloquear
+    // outras escritas. "posicao" é a do armazenamento depois da escrita,
+    // passada adiante em vez de guardada por thread.
+    void concluir(long posicao) {
+        if (emLote.get() != null) {
+            return;
+        }
+        concluirArmazenamento(posicao);
+        for (ObservadorLivros observador : observadores) {
+            observador.aoConcluir();
+        }
+    }
+
+    // Antes dos observadores, em concluir(); o repositório em memória
+    // espera aqui pelo diário.
+    void concluirArmazenamento(long posicao) {
+    }
+
+    // Com todas as escritas travadas, no fim de um lote: a posição que o
+    // lote inteiro precisa ver durável.
+    long posicaoArmazenamento() {
+        return 0;
+    }
+
+    // Bloqueiam todas as escritas, para lotes e para o registro de
+    // observadores.
+    abstract void travarTodas();
+
+    abstract void destravarTodas();
+
+    static String normalize(String titulo) {
         return Objects.requireNonNull(titulo, "Título obrigatório").trim().toLowerCase(Locale.ROOT);
     }
-    public void limpar() {
-        porTitulo.clear();
+
+    static ResultadoEscrita naoEncontrado(String titulo) {
+        return new ResultadoEscrita.NaoEncontrado("Livro não encontrado: " + titulo);
+    }
+
+    static ResultadoEscrita modificado(String titulo) {
+        return ResultadoEscrita.Modificado.de(titulo);
+    }
+
+    static String codificarCursor(String chave) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodificarCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(MSG_CURSOR_INVALIDO + cursor, e);
+        }
+    }
+
+    private static Histograma temporizador(RegistroMetricas metricas, String operacao) {
+        return metricas.histograma(METRICA_DURACAO,
+                "Duração das operações do repositório, incluindo a espera pela durabilidade.",
+                "operacao", operacao);
     }
 }
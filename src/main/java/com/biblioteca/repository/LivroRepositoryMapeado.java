@@ -0,0 +1,484 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.exception.RepositorioException;
+import com.biblioteca.metricas.RegistroMetricas;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Catálogo guardado fora do heap, nos arquivos mapeados de ArquivoMapeado:
+// abrir só mapeia os arquivos (sem ler o catálogo para a memória) e cada
+// livro é montado a partir dos bytes quando alguém o pede. Serve para
+// acervos que não cabem no heap ou para reinícios rápidos; o preço é que as
+// listagens seguem a ordem de gravação (um livro atualizado vai para o fim),
+// e não a ordem dos títulos, e que leituras e escritas se revezam numa
+// trava de leitura/escrita em vez de ler instantâneos sem trava.
+//
+// Os dados vão para o cache de páginas do sistema a cada escrita, então
+// sobrevivem a uma queda do processo; contra queda da máquina, chame
+// sincronizar() (close() também sincroniza). O arquivo mapeado já é o
+// armazenamento, então não há diário de escrita à parte.
+public class LivroRepositoryMapeado extends LivroRepository implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(LivroRepositoryMapeado.class);
+    private static final int LOTE_PERCURSO = 256;
+
+    private final ArquivoMapeado arquivo;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Lock leitura = trava.readLock();
+    private final Lock escrita = trava.writeLock();
+
+    private LivroRepositoryMapeado(ArquivoMapeado arquivo, RegistroMetricas metricas) {
+        super(metricas);
+        this.arquivo = arquivo;
+        if (arquivo.revisaoCatalogo().modificadoEm() == 0) {
+            arquivo.revisaoCatalogo(new Revisao(0, System.currentTimeMillis()));
+        }
+    }
+
+    // Se mais da metade do arquivo é de registros mortos, compacta antes de
+    // começar a servir.
+    public static LivroRepositoryMapeado abrir(Path diretorio) {
+        return abrir(diretorio, new RegistroMetricas());
+    }
+
+    public static LivroRepositoryMapeado abrir(Path diretorio, RegistroMetricas metricas) {
+        Objects.requireNonNull(diretorio, "Diretório obrigatório");
+        Objects.requireNonNull(metricas, "Registro de métricas obrigatório");
+        try {
+            long inicio = System.nanoTime();
+            ArquivoMapeado arquivo = ArquivoMapeado.abrir(diretorio);
+            if (arquivo.fragmentado()) {
+                arquivo.compactar();
+            }
+            log.info("operacao=abrir diretorio={} livros={} ms={}", diretorio, arquivo.vivos(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            return new LivroRepositoryMapeado(arquivo, metricas);
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao abrir o catálogo mapeado em " + diretorio, e);
+        }
+    }
+
+    @Override
+    public ResultadoEscrita adicionarSeAusente(Livro livro) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(livro, "Livro não pode ser null");
+            String key = normalize(livro.getTitulo());
+            escrita.lock();
+            try {
+                if (arquivo.localizar(key) >= 0) {
+                    return new ResultadoEscrita.Duplicado(MSG_DUPLICADO + livro.getTitulo());
+                }
+                gravar(key, livro);
+                for (ObservadorLivros observador : observadores) {
+                    observador.aoAdicionar(livro);
+                }
+            } finally {
+                escrita.unlock();
+            }
+            concluir();
+            return new ResultadoEscrita.Aplicada(livro);
+        } finally {
+            tAdicionar.registrarDesde(inicio);
+        }
+    }
+
+    @Override
+    public BitSet adicionarTodos(List<Livro> livros) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(livros, "Lista de livros não pode ser null");
+            BitSet duplicados = new BitSet(livros.size());
+            executarEmLote(() -> {
+                for (int i = 0; i < livros.size(); i++) {
+                    Livro livro = Objects.requireNonNull(livros.get(i), "Livro não pode ser null");
+                    String key = normalize(livro.getTitulo());
+                    if (arquivo.localizar(key) >= 0) {
+                        duplicados.set(i);
+                        continue;
+                    }
+                    gravar(key, livro);
+                    for (ObservadorLivros observador : observadores) {
+                        observador.aoAdicionar(livro);
+                    }
+                }
+            });
+            return duplicados;
+        } finally {
+            tAdicionarTodos.registrarDesde(inicio);
+        }
+    }
+
+    @Override
+    public ResultadoEscrita substituirSePresente(String tituloAntigo, Livro novoLivro, long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(novoLivro, "Livro não pode ser null");
+            String keyAntigo = normalize(tituloAntigo);
+            String keyNovo = normalize(novoLivro.getTitulo());
+            escrita.lock();
+            try {
+                long enderecoAntigo = arquivo.localizar(keyAntigo);
+                if (enderecoAntigo < 0) {
+                    return naoEncontrado(tituloAntigo);
+                }
+                if (!revisaoConfere(enderecoAntigo, versaoEsperada)) {
+                    return modificado(tituloAntigo);
+                }
+                Livro antigo = arquivo.ler(enderecoAntigo);
+                long enderecoSobrescrito = keyAntigo.equals(keyNovo) ? -1 : arquivo.localizar(keyNovo);
+                Livro sobrescrito = enderecoSobrescrito >= 0 ? arquivo.ler(enderecoSobrescrito) : null;
+                // Como no repositório em memória, o novo é gravado antes de o
+                // antigo sair; numa queda entre os dois, sobram ambos.
+                gravar(keyNovo, novoLivro);
+                if (!keyAntigo.equals(keyNovo)) {
+                    arquivo.apagar(keyAntigo);
+                }
+                for (ObservadorLivros observador : observadores) {
+                    if (sobrescrito != null) {
+                        observador.aoRemover(sobrescrito);
+                    }
+                    observador.aoAtualizar(antigo, novoLivro);
+                }
+            } finally {
+                escrita.unlock();
+            }
+            concluir();
+            return new ResultadoEscrita.Aplicada(novoLivro);
+        } finally {
+            tAtualizar.registrarDesde(inicio);
+        }
+    }
+
+    @Override
+    public ResultadoEscrita removerSePresente(String titulo, long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            String key = normalize(titulo);
+            escrita.lock();
+            Livro removido;
+            try {
+                long endereco = arquivo.localizar(key);
+                if (endereco < 0) {
+                    return naoEncontrado(titulo);
+                }
+                if (!revisaoConfere(endereco, versaoEsperada)) {
+                    return modificado(titulo);
+                }
+                removido = arquivo.ler(endereco);
+                arquivo.apagar(key);
+                arquivo.revisaoCatalogo(proximaRevisao());
+                for (ObservadorLivros observador : observadores) {
+                    observador.aoRemover(removido);
+                }
+            } finally {
+                escrita.unlock();
+            }
+            concluir();
+            return new ResultadoEscrita.Aplicada(removido);
+        } finally {
+            tRemover.registrarDesde(inicio);
+        }
+    }
+
+    @Override
+    public Livro buscarPorTitulo(String titulo) {
+        long inicio = System.nanoTime();
+        try {
+            String key = normalize(titulo);
+            leitura.lock();
+            try {
+                long endereco = arquivo.localizar(key);
+                return endereco >= 0 ? arquivo.ler(endereco) : LivroNulo.INSTANCE;
+            } finally {
+                leitura.unlock();
+            }
+        } finally {
+            tBuscar.registrarDesde(inicio);
+        }
+    }
+
+    // Monta o catálogo inteiro no heap; para percorrer sem isso, use
+    // percorrerTodos().
+    @Override
+    public List<Livro> listarTodos() {
+        long inicio = System.nanoTime();
+        try {
+            leitura.lock();
+            try {
+                List<Livro> livros = new ArrayList<>((int) arquivo.vivos());
+                for (long e = arquivo.proximo(-1); e >= 0; e = arquivo.proximo(e)) {
+                    livros.add(arquivo.ler(e));
+                }
+                return Collections.unmodifiableList(livros);
+            } finally {
+                leitura.unlock();
+            }
+        } finally {
+            tListarTodos.registrarDesde(inicio);
+        }
+    }
+
+    // Lê o arquivo em lotes, cada um com a trava de leitura, então escritas
+    // podem acontecer entre dois lotes: livros gravados depois de o percurso
+    // passar por eles não aparecem, e um livro atualizado pode aparecer duas
+    // vezes. Uma compactação ou limpeza no meio interrompe o percurso com
+    // ConcurrentModificationException.
+    @Override
+    public Iterable<Livro> percorrerTodos() {
+        return Percurso::new;
+    }
+
+    // Sem índices por autor ou categoria fora do heap: com filtro, a página
+    // percorre os registros desde o cursor até achar "limite" livros, então
+    // um filtro raro lê o arquivo inteiro. Índices aqui teriam de ser
+    // mantidos e recuperados junto com livros.idx a cada escrita; enquanto
+    // o modo mapeado servir catálogos grandes com pouca filtragem, fica a
+    // varredura. A categoria é um byte do registro; o autor é comparado sem
+    // montar a forma normalizada quando dá.
+    @Override
+    public Pagina listarPagina(FiltroLivros filtro, String cursor, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(filtro, "Filtro não pode ser null");
+            if (limite <= 0) {
+                throw new IllegalArgumentException("Limite deve ser positivo: " + limite);
+            }
+            String autor = filtro.autor() == null ? null : normalize(filtro.autor());
+            Categoria categoria = filtro.categoria();
+            List<Livro> livros = new ArrayList<>(Math.min(limite, 256));
+            leitura.lock();
+            try {
+                long ultimo = -1;
+                long e = arquivo.proximo(cursor == null ? -1 : enderecoDoCursor(cursor));
+                for (; e >= 0 && livros.size() < limite; e = arquivo.proximo(e)) {
+                    if ((categoria == null || arquivo.categoria(e) == categoria)
+                            && (autor == null || mesmoAutor(arquivo.autor(e), autor))) {
+                        livros.add(arquivo.ler(e));
+                        ultimo = e;
+                    }
+                }
+                String proximo = e >= 0 && ultimo >= 0 ? codificarCursor(Long.toString(ultimo)) : null;
+                return new Pagina(Collections.unmodifiableList(livros), proximo);
+            } finally {
+                leitura.unlock();
+            }
+        } finally {
+            tListarPagina.registrarDesde(inicio);
+        }
+    }
+
+    // normalize(gravado).equals(autor), com autor já normalizado.
+    private static boolean mesmoAutor(String gravado, String autor) {
+        if (!ChaveTitulo.aplicavel(gravado)) {
+            return normalize(gravado).equals(autor);
+        }
+        int inicio = ChaveTitulo.inicio(gravado);
+        int fim = ChaveTitulo.fim(gravado, inicio);
+        return fim - inicio == autor.length() && ChaveTitulo.comparar(gravado, inicio, fim, autor) == 0;
+    }
+
+    @Override
+    public void limpar() {
+        long inicio = System.nanoTime();
+        try {
+            travarTodas();
+            try {
+                arquivo.limpar();
+                arquivo.revisaoCatalogo(proximaRevisao());
+                observadores.forEach(ObservadorLivros::aoLimpar);
+            } catch (IOException e) {
+                throw new RepositorioException("Falha ao limpar o catálogo mapeado", e);
+            } finally {
+                destravarTodas();
+            }
+            concluir();
+        } finally {
+            tLimpar.registrarDesde(inicio);
+        }
+    }
+
+    @Override
+    public int tamanho() {
+        leitura.lock();
+        try {
+            return (int) arquivo.vivos();
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    @Override
+    public boolean emMemoria() {
+        return false;
+    }
+
+    @Override
+    public Revisao revisaoCatalogo() {
+        leitura.lock();
+        try {
+            return arquivo.revisaoCatalogo();
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    @Override
+    public Revisao revisaoDe(String titulo) {
+        String key = normalize(titulo);
+        leitura.lock();
+        try {
+            long endereco = arquivo.localizar(key);
+            return endereco >= 0 ? arquivo.revisao(endereco) : null;
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    // Reescreve o arquivo só com os livros vivos. Bloqueia leituras e
+    // escritas enquanto copia e invalida os cursores de listarPagina.
+    public void compactar() {
+        escrita.lock();
+        try {
+            arquivo.compactar();
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao compactar o catálogo mapeado", e);
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    public void sincronizar() {
+        leitura.lock();
+        try {
+            arquivo.sincronizar();
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        escrita.lock();
+        try {
+            arquivo.close();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    @Override
+    void travarTodas() {
+        escrita.lock();
+    }
+
+    @Override
+    void destravarTodas() {
+        escrita.unlock();
+    }
+
+    // Só com a trava de escrita.
+    private void gravar(String key, Livro livro) {
+        Revisao revisao = proximaRevisao();
+        try {
+            arquivo.gravar(key, livro, revisao);
+        } catch (IOException e) {
+            throw new RepositorioException("Falha ao gravar no catálogo mapeado: " + livro.getTitulo(), e);
+        }
+        arquivo.revisaoCatalogo(revisao);
+    }
+
+    // Só com a trava de escrita.
+    private boolean revisaoConfere(long endereco, long versaoEsperada) {
+        return versaoEsperada == QUALQUER_REVISAO || arquivo.revisao(endereco).versao() == versaoEsperada;
+    }
+
+    private Revisao proximaRevisao() {
+        Revisao atual = arquivo.revisaoCatalogo();
+        return new Revisao(atual.versao() + 1, Math.max(System.currentTimeMillis(), atual.modificadoEm()));
+    }
+
+    // Aqui o cursor é o endereço do último registro entregue; como os
+    // registros só são acrescentados, ele continua válido até a próxima
+    // compactação.
+    private long enderecoDoCursor(String cursor) {
+        try {
+            long endereco = Long.parseLong(decodificarCursor(cursor));
+            if (arquivo.enderecoValido(endereco)) {
+                return endereco;
+            }
+        } catch (NumberFormatException e) {
+            // Cai na exceção abaixo.
+        }
+        throw new IllegalArgumentException(MSG_CURSOR_INVALIDO + cursor);
+    }
+
+    private final class Percurso implements Iterator<Livro> {
+        private final List<Livro> lote = new ArrayList<>(LOTE_PERCURSO);
+        private int indice;
+        private long ultimo = -1;
+        private boolean terminou;
+        private final int geracao;
+
+        Percurso() {
+            leitura.lock();
+            try {
+                geracao = arquivo.geracao();
+            } finally {
+                leitura.unlock();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (indice == lote.size() && !terminou) {
+                carregar();
+            }
+            return indice < lote.size();
+        }
+
+        @Override
+        public Livro next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return lote.get(indice++);
+        }
+
+        private void carregar() {
+            lote.clear();
+            indice = 0;
+            leitura.lock();
+            try {
+                if (arquivo.geracao() != geracao) {
+                    throw new ConcurrentModificationException("O catálogo mapeado foi compactado ou limpo");
+                }
+                long e = arquivo.proximo(ultimo);
+                for (; e >= 0 && lote.size() < LOTE_PERCURSO; e = arquivo.proximo(e)) {
+                    lote.add(arquivo.ler(e));
+                    ultimo = e;
+                }
+                terminou = e < 0;
+            } finally {
+                leitura.unlock();
+            }
+        }
+    }
+}
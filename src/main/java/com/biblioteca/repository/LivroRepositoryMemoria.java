@@ -0,0 +1,570 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.metricas.RegistroMetricas;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Catálogo no heap: leituras sem trava sobre um mapa concorrente e
+// instantâneos ordenados, escritas com travas por listra da chave. Com
+// PersistenciaLivros, ganha um diário de escrita que recebe cada mutação
+// antes de ela valer.
+public class LivroRepositoryMemoria extends LivroRepository {
+    private static final int NUM_TRAVAS = 64;
+
+    // Leituras vão direto ao mapa concorrente; escritas seguram a trava da
+    // chave (ou das duas chaves, no caso de renomear) para que o
+    // "verifica e grava" seja atômico.
+    private final Map<String, Livro> porTitulo = new ConcurrentHashMap<>();
+    // Mesmo conteúdo de porTitulo, ordenado pela chave normalizada, como
+    // um instantâneo imutável: listarTodos() e a listagem por cursor leem o
+    // campo uma vez e percorrem essa versão sem trava e sem cópia. As
+    // escritas (já com a trava da chave) se revezam em travaIndices só
+    // para publicar a versão seguinte.
+    private volatile Instantaneo ordenados = Instantaneo.VAZIO;
+    // Índices secundários, também instantâneos ordenados pela chave do
+    // título para que as consultas filtradas usem o mesmo cursor da
+    // listagem geral. Guardam só dois arrays de referências por folha, em
+    // vez de um nó de skip list por livro.
+    private final AtomicReferenceArray<Instantaneo> porCategoria =
+            new AtomicReferenceArray<>(Categoria.values().length);
+    private final ConcurrentHashMap<String, Autor> porAutor = new ConcurrentHashMap<>();
+    private final ReentrantLock travaIndices = new ReentrantLock();
+    private final ReentrantLock[] travas = new ReentrantLock[NUM_TRAVAS];
+    private volatile DiarioLivros diario;
+    // Versão do catálogo, incrementada (com travaIndices) depois que cada
+    // escrita já está visível nos mapas e índices: quem lê a versão antes
+    // dos dados nunca associa uma versão a um conteúdo mais antigo que ela.
+    // A revisão de cada livro, a versão do catálogo na última escrita dele,
+    // fica em ordenados, ao lado do próprio livro.
+    private final AtomicReference<Revisao> revisaoCatalogo =
+            new AtomicReference<>(new Revisao(0, System.currentTimeMillis()));
+
+    // Entrada do índice por autor; nome é a grafia com que o autor entrou
+    // primeiro, a única cópia que os livros dele compartilham.
+    private record Autor(String nome, Instantaneo livros) {
+    }
+
+    // Métricas num registro próprio, que ninguém exporta.
+    public LivroRepositoryMemoria() {
+        this(new RegistroMetricas());
+    }
+
+    public LivroRepositoryMemoria(RegistroMetricas metricas) {
+        super(metricas);
+        for (int i = 0; i < NUM_TRAVAS; i++) {
+            travas[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < porCategoria.length(); i++) {
+            porCategoria.set(i, Instantaneo.VAZIO);
+        }
+    }
+
+    @Override
+    public ResultadoEscrita adicionarSeAusente(Livro livro) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(livro, "Livro não pode ser null");
+            String key = normalize(livro.getTitulo());
+            ReentrantLock trava = travaDe(key);
+            trava.lock();
+            Livro compacto;
+            long posicao;
+            try {
+                compacto = compactar(livro);
+                posicao = gravarSeAusente(key, compacto);
+                if (posicao < 0) {
+                    return new ResultadoEscrita.Duplicado(MSG_DUPLICADO + livro.getTitulo());
+                }
+                indexar(key, null, compacto);
+                for (ObservadorLivros observador : observadores) {
+                    observador.aoAdicionar(compacto);
+                }
+            } finally {
+                trava.unlock();
+            }
+            concluir(posicao);
+            return new ResultadoEscrita.Aplicada(compacto);
+        } finally {
+            tAdicionar.registrarDesde(inicio);
+        }
+    }
+
+    // Com todas as listras travadas durante o lote.
+    @Override
+    public BitSet adicionarTodos(List<Livro> livros) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(livros, "Lista de livros não pode ser null");
+            BitSet duplicados = new BitSet(livros.size());
+            executarEmLote(() -> {
+                for (int i = 0; i < livros.size(); i++) {
+                    Livro livro = compactar(Objects.requireNonNull(livros.get(i), "Livro não pode ser null"));
+                    String key = normalize(livro.getTitulo());
+                    if (gravarSeAusente(key, livro) < 0) {
+                        duplicados.set(i);
+                        continue;
+                    }
+                    indexar(key, null, livro);
+                    for (ObservadorLivros observador : observadores) {
+                        observador.aoAdicionar(livro);
+                    }
+                }
+            });
+            return duplicados;
+        } finally {
+            tAdicionarTodos.registrarDesde(inicio);
+        }
+    }
+
+    // Verifica e grava numa só sondagem do mapa quando o título não muda
+    // (replace devolve o anterior, ou null se não havia). A conferência da
+    // revisão usa a mesma trava da chave que a escrita já segura, então não
+    // custa trava nova nem segura o livro entre a leitura do cliente e a
+    // escrita.
+    @Override
+    public ResultadoEscrita substituirSePresente(String tituloAntigo, Livro novoLivro, long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(novoLivro, "Livro não pode ser null");
+            String keyAntigo = normalize(tituloAntigo);
+            String keyNovo = normalize(novoLivro.getTitulo());
+            int primeira = indiceTrava(keyAntigo);
+            int segunda = indiceTrava(keyNovo);
+            travar(primeira, segunda);
+            Livro compacto;
+            long posicao = 0;
+            try {
+                ResultadoEscrita recusa = conferirRevisao(keyAntigo, tituloAntigo, versaoEsperada);
+                if (recusa != null) {
+                    return recusa;
+                }
+                compacto = compactar(novoLivro);
+                Livro antigo;
+                Livro sobrescrito;
+                DiarioLivros d = diario;
+                if (keyAntigo.equals(keyNovo) && d == null) {
+                    antigo = porTitulo.replace(keyNovo, compacto);
+                    if (antigo == null) {
+                        return naoEncontrado(tituloAntigo);
+                    }
+                    sobrescrito = antigo;
+                    indexar(keyNovo, antigo, compacto);
+                } else if (keyAntigo.equals(keyNovo)) {
+                    // Com diário, o livro atual é lido antes para que o
+                    // registro vá para o disco antes da troca no mapa.
+                    antigo = porTitulo.get(keyNovo);
+                    if (antigo == null) {
+                        return naoEncontrado(tituloAntigo);
+                    }
+                    posicao = d.antesDeAtualizar(antigo, compacto);
+                    porTitulo.put(keyNovo, compacto);
+                    sobrescrito = antigo;
+                    indexar(keyNovo, antigo, compacto);
+                } else {
+                    antigo = porTitulo.get(keyAntigo);
+                    if (antigo == null) {
+                        return naoEncontrado(tituloAntigo);
+                    }
+                    if (d != null) {
+                        posicao = d.antesDeAtualizar(antigo, compacto);
+                    }
+                    // Grava o novo antes de remover o antigo: um leitor concorrente
+                    // nunca vê o livro "sumir" durante a renomeação.
+                    sobrescrito = porTitulo.put(keyNovo, compacto);
+                    porTitulo.remove(keyAntigo);
+                    renomear(keyAntigo, antigo, keyNovo, sobrescrito, compacto);
+                }
+                for (ObservadorLivros observador : observadores) {
+                    if (sobrescrito != null && sobrescrito != antigo) {
+                        observador.aoRemover(sobrescrito);
+                    }
+                    observador.aoAtualizar(antigo, compacto);
+                }
+            } finally {
+                destravar(primeira, segunda);
+            }
+            concluir(posicao);
+            return new ResultadoEscrita.Aplicada(compacto);
+        } finally {
+            tAtualizar.registrarDesde(inicio);
+        }
+    }
+
+    // Numa só sondagem do mapa, sem diário.
+    @Override
+    public ResultadoEscrita removerSePresente(String titulo, long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            String key = normalize(titulo);
+            ReentrantLock trava = travaDe(key);
+            trava.lock();
+            Livro removido;
+            long posicao = 0;
+            try {
+                ResultadoEscrita recusa = conferirRevisao(key, titulo, versaoEsperada);
+                if (recusa != null) {
+                    return recusa;
+                }
+                DiarioLivros d = diario;
+                if (d != null) {
+                    Livro atual = porTitulo.get(key);
+                    if (atual == null) {
+                        return naoEncontrado(titulo);
+                    }
+                    posicao = d.antesDeRemover(atual);
+                }
+                removido = apagar(key);
+                if (removido == null) {
+                    return naoEncontrado(titulo);
+                }
+                for (ObservadorLivros observador : observadores) {
+                    observador.aoRemover(removido);
+                }
+            } finally {
+                trava.unlock();
+            }
+            concluir(posicao);
+            return new ResultadoEscrita.Aplicada(removido);
+        } finally {
+            tRemover.registrarDesde(inicio);
+        }
+    }
+    @Override
+    public Livro buscarPorTitulo(String titulo) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(titulo, "Título obrigatório");
+            // Quem manda o título já normalizado (o link de uma listagem,
+            // por exemplo) consulta o mapa sem alocar nada; os outros pagam a
+            // cópia normalizada. O mapa tem String dos dois lados.
+            Livro livro = porTitulo.get(ChaveTitulo.normalizado(titulo) ? titulo : normalize(titulo));
+            return livro != null ? livro : LivroNulo.INSTANCE;
+        } finally {
+            tBuscar.registrarDesde(inicio);
+        }
+    }
+    @Override
+    public List<Livro> listarTodos() {
+        long inicio = System.nanoTime();
+        try {
+            return ordenados;
+        } finally {
+            tListarTodos.registrarDesde(inicio);
+        }
+    }
+    @Override
+    public Iterable<Livro> percorrerTodos() {
+        return ordenados;
+    }
+    @Override
+    public Pagina listarPagina(FiltroLivros filtro, String cursor, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            Objects.requireNonNull(filtro, "Filtro não pode ser null");
+            if (limite <= 0) {
+                throw new IllegalArgumentException("Limite deve ser positivo: " + limite);
+            }
+            // O cursor é a própria chave do último item entregue: continua
+            // válido mesmo que outros livros sejam inseridos ou removidos
+            // entre as páginas.
+            String apos = cursor == null ? null : decodificarCursor(cursor);
+            // Com autor e categoria, percorre o índice do autor (o menor dos
+            // dois na prática) e descarta as outras categorias.
+            Categoria categoriaResidual = filtro.autor() != null ? filtro.categoria() : null;
+            List<Livro> livros = new ArrayList<>(Math.min(limite, 256));
+            String ultimaChave = null;
+            Iterator<Map.Entry<String, Livro>> it = percorrer(filtro, apos);
+            while (livros.size() < limite && it.hasNext()) {
+                Map.Entry<String, Livro> entrada = it.next();
+                if (categoriaResidual != null && entrada.getValue().getCategoria() != categoriaResidual) {
+                    continue;
+                }
+                livros.add(entrada.getValue());
+                ultimaChave = entrada.getKey();
+            }
+            String proximo = it.hasNext() ? codificarCursor(ultimaChave) : null;
+            return new Pagina(Collections.unmodifiableList(livros), proximo);
+        } finally {
+            tListarPagina.registrarDesde(inicio);
+        }
+    }
+    @Override
+    public void limpar() {
+        long inicio = System.nanoTime();
+        try {
+            long posicao = 0;
+            travarTodas();
+            try {
+                DiarioLivros d = diario;
+                if (d != null) {
+                    posicao = d.antesDeLimpar();
+                }
+                porTitulo.clear();
+                limparIndices();
+                observadores.forEach(ObservadorLivros::aoLimpar);
+            } finally {
+                destravarTodas();
+            }
+            concluir(posicao);
+        } finally {
+            tLimpar.registrarDesde(inicio);
+        }
+    }
+    // Liga (ou, com null, desliga) o diário de escrita. Troca com todas as
+    // listras travadas, para nenhuma escrita ficar metade dentro e metade
+    // fora do diário.
+    public void registrarDiario(DiarioLivros diario) {
+        travarTodas();
+        try {
+            this.diario = diario;
+        } finally {
+            destravarTodas();
+        }
+    }
+
+    @Override
+    void concluirArmazenamento(long posicao) {
+        DiarioLivros d = diario;
+        if (d != null) {
+            d.aoConcluir(posicao);
+        }
+    }
+
+    @Override
+    long posicaoArmazenamento() {
+        DiarioLivros d = diario;
+        return d != null ? d.posicao() : 0;
+    }
+
+    private Iterator<Map.Entry<String, Livro>> percorrer(FiltroLivros filtro, String apos) {
+        Instantaneo fonte;
+        if (filtro.autor() != null) {
+            Autor autor = porAutor.get(normalize(filtro.autor()));
+            fonte = autor != null ? autor.livros() : Instantaneo.VAZIO;
+        } else if (filtro.categoria() != null) {
+            fonte = porCategoria.get(filtro.categoria().ordinal());
+        } else {
+            fonte = ordenados;
+        }
+        return fonte.entradasApos(apos);
+    }
+
+    // Autores se repetem muito no acervo, e cada livro lido de um import ou
+    // do diário chega com a sua própria cópia do nome: se o autor já está no
+    // índice, o livro guardado passa a apontar para o nome que já está lá.
+    private Livro compactar(Livro livro) {
+        Autor autor = porAutor.get(normalize(livro.getAutor()));
+        if (autor == null || autor.nome() == livro.getAutor() || !autor.nome().equals(livro.getAutor())) {
+            return livro;
+        }
+        return new Livro(livro.getTitulo(), autor.nome(), livro.getCategoria());
+    }
+
+    // null se a escrita pode seguir. Com a trava da chave em mãos: nenhuma
+    // outra escrita no livro publica revisão nova até soltá-la.
+    private ResultadoEscrita conferirRevisao(String key, String titulo, long versaoEsperada) {
+        if (versaoEsperada == QUALQUER_REVISAO) {
+            return null;
+        }
+        Revisao atual = ordenados.revisaoDe(key);
+        if (atual == null) {
+            return naoEncontrado(titulo);
+        }
+        return atual.versao() == versaoEsperada ? null : modificado(titulo);
+    }
+
+    // Chamado sempre com a trava da chave em mãos. Com diário, o registro
+    // vai antes do mapa: se o diário falhar, o livro não entra. Devolve -1
+    // se a chave já existe; senão, a posição do diário depois do registro
+    // (0 sem diário).
+    private long gravarSeAusente(String key, Livro livro) {
+        DiarioLivros d = diario;
+        if (d == null) {
+            return porTitulo.putIfAbsent(key, livro) == null ? 0 : -1;
+        }
+        if (porTitulo.containsKey(key)) {
+            return -1;
+        }
+        long posicao = d.antesDeAdicionar(livro);
+        porTitulo.put(key, livro);
+        return posicao;
+    }
+
+    // Chamado sempre com a trava da chave em mãos.
+    private Livro apagar(String key) {
+        Livro anterior = porTitulo.remove(key);
+        if (anterior != null) {
+            desindexar(key, anterior);
+        }
+        return anterior;
+    }
+
+    // Os métodos abaixo publicam as árvores (uma de cada vez, em
+    // travaIndices) depois que porTitulo já mudou, e avançam a versão do
+    // catálogo uma única vez, no fim. anterior é o livro que estava na
+    // mesma chave, se havia.
+    private void indexar(String key, Livro anterior, Livro livro) {
+        travaIndices.lock();
+        try {
+            Revisao revisao = proximaRevisao();
+            inserirNosIndices(key, anterior, livro, revisao);
+            revisaoCatalogo.set(revisao);
+        } finally {
+            travaIndices.unlock();
+        }
+    }
+
+    private void desindexar(String key, Livro livro) {
+        travaIndices.lock();
+        try {
+            retirarDosIndices(key, livro);
+            revisaoCatalogo.set(proximaRevisao());
+        } finally {
+            travaIndices.unlock();
+        }
+    }
+
+    private void renomear(String keyAntigo, Livro antigo, String keyNovo, Livro anterior, Livro livro) {
+        travaIndices.lock();
+        try {
+            Revisao revisao = proximaRevisao();
+            inserirNosIndices(keyNovo, anterior, livro, revisao);
+            retirarDosIndices(keyAntigo, antigo);
+            revisaoCatalogo.set(revisao);
+        } finally {
+            travaIndices.unlock();
+        }
+    }
+
+    private void limparIndices() {
+        travaIndices.lock();
+        try {
+            ordenados = Instantaneo.VAZIO;
+            for (int i = 0; i < porCategoria.length(); i++) {
+                porCategoria.set(i, Instantaneo.VAZIO);
+            }
+            porAutor.clear();
+            revisaoCatalogo.set(proximaRevisao());
+        } finally {
+            travaIndices.unlock();
+        }
+    }
+
+    // Daqui para baixo, só com travaIndices em mãos. Quando a categoria ou
+    // o autor não mudam, a entrada é trocada no lugar, sem uma versão
+    // intermediária em que o livro some do índice.
+    private void inserirNosIndices(String key, Livro anterior, Livro livro, Revisao revisao) {
+        ordenados = ordenados.com(key, livro, revisao);
+        if (anterior != null && anterior.getCategoria() != livro.getCategoria()) {
+            retirarDaCategoria(key, anterior.getCategoria());
+        }
+        int categoria = livro.getCategoria().ordinal();
+        porCategoria.set(categoria, porCategoria.get(categoria).com(key, livro));
+        String autor = normalize(livro.getAutor());
+        if (anterior != null && !normalize(anterior.getAutor()).equals(autor)) {
+            retirarDoAutor(key, normalize(anterior.getAutor()));
+        }
+        Autor atual = porAutor.get(autor);
+        porAutor.put(autor, atual == null
+                ? new Autor(livro.getAutor(), Instantaneo.VAZIO.com(key, livro))
+                : new Autor(atual.nome(), atual.livros().com(key, livro)));
+    }
+
+    private void retirarDosIndices(String key, Livro livro) {
+        ordenados = ordenados.sem(key);
+        retirarDaCategoria(key, livro.getCategoria());
+        retirarDoAutor(key, normalize(livro.getAutor()));
+    }
+
+    private void retirarDaCategoria(String key, Categoria categoria) {
+        porCategoria.set(categoria.ordinal(), porCategoria.get(categoria.ordinal()).sem(key));
+    }
+
+    private void retirarDoAutor(String key, String autor) {
+        Autor atual = porAutor.get(autor);
+        if (atual == null) {
+            return;
+        }
+        Instantaneo restantes = atual.livros().sem(key);
+        if (restantes.isEmpty()) {
+            porAutor.remove(autor);
+        } else {
+            porAutor.put(autor, new Autor(atual.nome(), restantes));
+        }
+    }
+
+    @Override
+    public int tamanho() {
+        return porTitulo.size();
+    }
+
+    @Override
+    public boolean emMemoria() {
+        return true;
+    }
+
+    @Override
+    public Revisao revisaoCatalogo() {
+        return revisaoCatalogo.get();
+    }
+
+    @Override
+    public Revisao revisaoDe(String titulo) {
+        Objects.requireNonNull(titulo, "Título obrigatório");
+        return ChaveTitulo.aplicavel(titulo)
+                ? ordenados.revisaoDoTitulo(titulo)
+                : ordenados.revisaoDe(normalize(titulo));
+    }
+
+    // Só com travaIndices em mãos.
+    private Revisao proximaRevisao() {
+        Revisao atual = revisaoCatalogo.get();
+        return new Revisao(atual.versao() + 1, Math.max(System.currentTimeMillis(), atual.modificadoEm()));
+    }
+
+    private ReentrantLock travaDe(String key) {
+        return travas[indiceTrava(key)];
+    }
+
+    private static int indiceTrava(String key) {
+        int h = key.hashCode();
+        return ((h ^ (h >>> 16)) & 0x7fffffff) % NUM_TRAVAS;
+    }
+
+    // Sempre trava na ordem crescente de índice para evitar deadlock entre
+    // duas renomeações cruzadas.
+    private void travar(int a, int b) {
+        travas[Math.min(a, b)].lock();
+        if (a != b) {
+            travas[Math.max(a, b)].lock();
+        }
+    }
+
+    private void destravar(int a, int b) {
+        if (a != b) {
+            travas[Math.max(a, b)].unlock();
+        }
+        travas[Math.min(a, b)].unlock();
+    }
+
+    @Override
+    void travarTodas() {
+        for (ReentrantLock trava : travas) {
+            trava.lock();
+        }
+    }
+
+    @Override
+    void destravarTodas() {
+        for (int i = NUM_TRAVAS - 1; i >= 0; i--) {
+            travas[i].unlock();
+        }
+    }
+}
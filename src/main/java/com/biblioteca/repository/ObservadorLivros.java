@@ -0,0 +1,24 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Livro;
+
+// Recebe as mutações do LivroRepository já aplicadas, ainda sob a trava de
+// escrita da chave envolvida. Mutações de chaves diferentes chegam em
+// paralelo, então implementações precisam ser thread-safe e rápidas.
+// aoConcluir roda depois, já sem trava, na mesma thread da escrita.
+public interface ObservadorLivros {
+    default void aoAdicionar(Livro livro) {
+    }
+
+    default void aoAtualizar(Livro antigo, Livro novo) {
+    }
+
+    default void aoRemover(Livro livro) {
+    }
+
+    default void aoLimpar() {
+    }
+
+    default void aoConcluir() {
+    }
+}
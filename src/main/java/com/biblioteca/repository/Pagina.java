@@ -0,0 +1,11 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Livro;
+
+import java.util.List;
+
+public record Pagina(List<Livro> livros, String proximoCursor) {
+    public boolean temProxima() {
+        return proximoCursor != null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.exception.LivroDuplicadoException;
+import com.biblioteca.exception.LivroModificadoException;
+import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.model.Livro;
+
+// Desfecho de uma escrita sem exceção: livro ausente ou título repetido são
+// respostas comuns (um 404 ou 409), não erros, e não pagam a montagem e o
+// desempilhamento de uma exceção. As mensagens já vêm prontas para o
+// cliente.
+public sealed interface ResultadoEscrita {
+
+    // livro é o que ficou gravado ou, numa remoção, o que saiu.
+    record Aplicada(Livro livro) implements ResultadoEscrita {
+    }
+
+    record NaoEncontrado(String mensagem) implements ResultadoEscrita {
+    }
+
+    record Duplicado(String mensagem) implements ResultadoEscrita {
+    }
+
+    // A escrita condicional achou o livro numa revisão diferente da
+    // esperada: outro cliente gravou no meio (um 412).
+    record Modificado(String mensagem) implements ResultadoEscrita {
+        private static final String MSG_MODIFICADO = "Livro modificado desde a revisão informada: ";
+
+        // A mesma mensagem para o repositório e para o If-Match que o
+        // controller recusa antes de chegar a ele.
+        public static Modificado de(String titulo) {
+            return new Modificado(MSG_MODIFICADO + titulo);
+        }
+    }
+
+    // Para as APIs que continuam lançando exceção.
+    default Livro ouLancar() {
+        return switch (this) {
+            case Aplicada a -> a.livro();
+            case NaoEncontrado n -> throw new LivroNaoEncontradoException(n.mensagem());
+            case Duplicado d -> throw new LivroDuplicadoException(d.mensagem());
+            case Modificado m -> throw new LivroModificadoException(m.mensagem());
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package com.biblioteca.repository;
+
+// Versão do catálogo no momento da escrita e o instante dela (epoch em ms).
+// As versões só crescem, então servem de validador para respostas em cache.
+public record Revisao(long versao, long modificadoEm) {
+}
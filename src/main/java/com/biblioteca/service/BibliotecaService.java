@@ -1,60 +1,276 @@
 package com.biblioteca.service;
 
+import com.biblioteca.busca.IndiceBusca;
+import com.biblioteca.busca.IndiceSugestoes;
+import com.biblioteca.busca.ResultadoBusca;
+import com.biblioteca.dto.LeitorLivros;
 import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.exception.RecursoIndisponivelException;
+import com.biblioteca.metricas.RegistroMetricas;
 import com.biblioteca.model.Livro;
 import com.biblioteca.model.LivroNulo;
+import com.biblioteca.repository.FiltroLivros;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.ObservadorLivros;
+import com.biblioteca.repository.Pagina;
+import com.biblioteca.repository.ResultadoEscrita;
+import com.biblioteca.repository.Revisao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BibliotecaService {
+    public static final String PROP_AMOSTRAGEM_DEBUG = "biblioteca.log.amostragem";
+
+    private static final Logger LOG_PADRAO = LoggerFactory.getLogger(BibliotecaService.class);
     private static final String MSG_NAO_ENCONTRADO = "Livro não encontrado: ";
     private static final String MSG_NAO_ENCONTRADO_ATUALIZAR = "Livro não encontrado para atualizar: ";
     private static final String MSG_NAO_ENCONTRADO_REMOVER = "Livro não encontrado para remover: ";
+    private static final String MSG_SEM_INDICES = "Catálogo fora do heap, sem índice de ";
 
+    private final Logger log;
     private final LivroRepository repository;
+    // null quando o catálogo fica fora do heap: os índices guardam
+    // referências aos livros e, montados a partir do arquivo mapeado,
+    // trariam o acervo inteiro para a memória (e leriam o arquivo todo na
+    // partida).
+    private final IndiceBusca indiceBusca;
+    private final IndiceSugestoes indiceSugestoes;
+    // A cada N listagens, com DEBUG ligado, registra também os livros
+    // devolvidos. Zero desliga a amostragem.
+    private final int amostragemDebug;
+    private final AtomicLong listagens = new AtomicLong();
+    // Quando presente, as escritas passam pela fila de lotes em vez de irem
+    // direto ao repositório.
+    private final PipelineEscrita pipeline;
 
+    // Sem registro de métricas, os medidores vão para um registro próprio
+    // que ninguém exporta.
     public BibliotecaService(LivroRepository repository) {
+        this(repository, new RegistroMetricas());
+    }
+
+    public BibliotecaService(LivroRepository repository, int amostragemDebug) {
+        this(repository, amostragemDebug, null, new RegistroMetricas(), LOG_PADRAO);
+    }
+
+    // Para os testes da amostragem, com um logger cujo nível eles controlam.
+    BibliotecaService(LivroRepository repository, int amostragemDebug, Logger log) {
+        this(repository, amostragemDebug, null, new RegistroMetricas(), log);
+    }
+
+    public BibliotecaService(LivroRepository repository, PipelineEscrita pipeline) {
+        this(repository, pipeline, new RegistroMetricas());
+    }
+
+    public BibliotecaService(LivroRepository repository, RegistroMetricas metricas) {
+        this(repository, Integer.getInteger(PROP_AMOSTRAGEM_DEBUG, 0), null, metricas, LOG_PADRAO);
+    }
+
+    public BibliotecaService(LivroRepository repository, PipelineEscrita pipeline, RegistroMetricas metricas) {
+        this(repository, Integer.getInteger(PROP_AMOSTRAGEM_DEBUG, 0), Objects.requireNonNull(pipeline), metricas,
+                LOG_PADRAO);
+    }
+
+    private BibliotecaService(LivroRepository repository, int amostragemDebug, PipelineEscrita pipeline,
+                              RegistroMetricas metricas, Logger log) {
+        if (amostragemDebug < 0) {
+            throw new IllegalArgumentException("Amostragem não pode ser negativa: " + amostragemDebug);
+        }
+        this.log = Objects.requireNonNull(log);
         this.repository = Objects.requireNonNull(repository);
+        this.amostragemDebug = amostragemDebug;
+        this.pipeline = pipeline;
+        if (repository.emMemoria()) {
+            indiceBusca = new IndiceBusca();
+            indiceSugestoes = new IndiceSugestoes();
+            repository.registrarObservador(indiceBusca);
+            repository.registrarObservador(indiceSugestoes);
+        } else {
+            indiceBusca = null;
+            indiceSugestoes = null;
+        }
+        registrarMedidores(Objects.requireNonNull(metricas));
     }
 
+    // As versões que lançam exceção ficam para quem chama o serviço como
+    // biblioteca; a API HTTP usa as tentar*, que devolvem o desfecho.
     public void adicionarLivro(Livro livro) {
-        repository.adicionar(Objects.requireNonNull(livro));
+        tentarAdicionar(livro).ouLancar();
     }
 
     public void atualizarLivro(String tituloAntigo, Livro novoLivro) {
-        var existente = repository.buscarPorTitulo(tituloAntigo);
-        if (existente instanceof LivroNulo) {
-            throw new LivroNaoEncontradoException(MSG_NAO_ENCONTRADO_ATUALIZAR + tituloAntigo);
-        }
-        repository.atualizar(tituloAntigo, Objects.requireNonNull(novoLivro));
+        tentarAtualizar(tituloAntigo, novoLivro).ouLancar();
     }
 
     public void removerLivro(String titulo) {
-        var existente = repository.buscarPorTitulo(titulo);
-        if (existente instanceof LivroNulo) {
-            throw new LivroNaoEncontradoException(MSG_NAO_ENCONTRADO_REMOVER + titulo);
+        tentarRemover(titulo).ouLancar();
+    }
+
+    public ResultadoEscrita tentarAdicionar(Livro livro) {
+        Objects.requireNonNull(livro);
+        ResultadoEscrita resultado = pipeline != null
+                ? pipeline.tentarAdicionar(livro)
+                : repository.adicionarSeAusente(livro);
+        if (resultado instanceof ResultadoEscrita.Aplicada) {
+            log.debug("operacao=adicionar titulo={}", livro.getTitulo());
+        }
+        return resultado;
+    }
+
+    // Sem consulta prévia: o repositório verifica e grava na mesma
+    // operação, então não há janela entre "existe" e "atualiza".
+    public ResultadoEscrita tentarAtualizar(String tituloAntigo, Livro novoLivro) {
+        return tentarAtualizar(tituloAntigo, novoLivro, LivroRepository.QUALQUER_REVISAO);
+    }
+
+    // Com versaoEsperada, só grava se o livro ainda estiver nessa revisão
+    // (a do ETag lido pelo cliente); senão volta Modificado.
+    public ResultadoEscrita tentarAtualizar(String tituloAntigo, Livro novoLivro, long versaoEsperada) {
+        Objects.requireNonNull(novoLivro);
+        ResultadoEscrita resultado = pipeline != null
+                ? pipeline.tentarAtualizar(tituloAntigo, novoLivro, versaoEsperada)
+                : repository.substituirSePresente(tituloAntigo, novoLivro, versaoEsperada);
+        if (resultado instanceof ResultadoEscrita.NaoEncontrado) {
+            return new ResultadoEscrita.NaoEncontrado(MSG_NAO_ENCONTRADO_ATUALIZAR + tituloAntigo);
+        }
+        if (resultado instanceof ResultadoEscrita.Aplicada) {
+            log.debug("operacao=atualizar titulo={} novoTitulo={}", tituloAntigo, novoLivro.getTitulo());
         }
-        repository.remover(titulo);
+        return resultado;
+    }
+
+    public ResultadoEscrita tentarRemover(String titulo) {
+        return tentarRemover(titulo, LivroRepository.QUALQUER_REVISAO);
+    }
+
+    public ResultadoEscrita tentarRemover(String titulo, long versaoEsperada) {
+        ResultadoEscrita resultado = pipeline != null
+                ? pipeline.tentarRemover(titulo, versaoEsperada)
+                : repository.removerSePresente(titulo, versaoEsperada);
+        if (resultado instanceof ResultadoEscrita.NaoEncontrado) {
+            return new ResultadoEscrita.NaoEncontrado(MSG_NAO_ENCONTRADO_REMOVER + titulo);
+        }
+        if (resultado instanceof ResultadoEscrita.Aplicada) {
+            log.debug("operacao=remover titulo={}", titulo);
+        }
+        return resultado;
+    }
+
+    // Importação em massa: não passa pelo pipeline de escrita porque já
+    // chega em lotes, cada um aplicado com uma única confirmação.
+    public RelatorioImportacao importarLivros(LeitorLivros.Formato formato, InputStream entrada) throws IOException {
+        ImportacaoLivros importacao = new ImportacaoLivros(repository);
+        long inicio = System.nanoTime();
+        Objects.requireNonNull(formato).ler(Objects.requireNonNull(entrada), importacao);
+        RelatorioImportacao relatorio = importacao.concluir();
+        log.info("operacao=importar formato={} importados={} rejeitados={} ms={}", formato,
+                relatorio.importados(), relatorio.rejeitados(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        return relatorio;
     }
 
     public Livro buscarLivro(String titulo) {
         var livro = repository.buscarPorTitulo(titulo);
         if (livro instanceof LivroNulo) {
-            throw new LivroNaoEncontradoException(MSG_NAO_ENCONTRADO + titulo);
+            throw new LivroNaoEncontradoException(mensagemNaoEncontrado(titulo));
         }
         return livro;
     }
 
+    // LivroNulo.INSTANCE em vez de exceção quando não há livro com o título.
+    public Livro localizarLivro(String titulo) {
+        return repository.buscarPorTitulo(titulo);
+    }
+
+    public static String mensagemNaoEncontrado(String titulo) {
+        return MSG_NAO_ENCONTRADO + titulo;
+    }
+
     public List<Livro> listarLivros() {
         var livros = repository.listarTodos();
-        livros.forEach(System.out::println);
+        log.debug("operacao=listar total={}", livros.size());
+        if (deveAmostrar()) {
+            livros.forEach(livro -> log.debug("operacao=listar amostra={}", livro));
+        }
         return Collections.unmodifiableList(livros);
     }
 
+    public Iterable<Livro> percorrerLivros() {
+        return repository.percorrerTodos();
+    }
+
+    // Para caches de leitura que precisam saber de cada escrita; sem a
+    // carga inicial do catálogo, que um cache vazio não precisa.
+    public void registrarObservador(ObservadorLivros observador) {
+        repository.registrarObservador(observador, false);
+    }
+
+    // Revisões para validar GETs condicionais sem tocar nos dados.
+    public Revisao revisaoCatalogo() {
+        return repository.revisaoCatalogo();
+    }
+
+    public Revisao revisaoLivro(String titulo) {
+        return repository.revisaoDe(titulo);
+    }
+
+    public Pagina listarPagina(String cursor, int limite) {
+        return repository.listarPagina(cursor, limite);
+    }
+
+    public Pagina listarPagina(FiltroLivros filtro, String cursor, int limite) {
+        return repository.listarPagina(filtro, cursor, limite);
+    }
+
+    public List<ResultadoBusca> pesquisar(String consulta, int limite) {
+        if (indiceBusca == null) {
+            throw new RecursoIndisponivelException(MSG_SEM_INDICES + "busca");
+        }
+        return indiceBusca.pesquisar(Objects.requireNonNull(consulta), limite);
+    }
+
+    public List<String> sugerir(IndiceSugestoes.Campo campo, String prefixo, int limite) {
+        if (indiceSugestoes == null) {
+            throw new RecursoIndisponivelException(MSG_SEM_INDICES + "sugestões");
+        }
+        return indiceSugestoes.sugerir(Objects.requireNonNull(campo), Objects.requireNonNull(prefixo), limite);
+    }
+
     public void limparBase() {
         repository.limpar();
+        log.info("operacao=limpar");
+    }
+
+    // Tamanho do catálogo e dos índices em memória, lidos a cada coleta.
+    private void registrarMedidores(RegistroMetricas registro) {
+        registro.medidor("biblioteca_catalogo_livros", "Livros no catálogo.", repository::tamanho);
+        if (indiceBusca == null) {
+            return;
+        }
+        registro.medidor("biblioteca_indice_busca_termos", "Termos distintos no índice de busca.",
+                indiceBusca::totalTermos);
+        registro.medidor("biblioteca_indice_busca_postagens", "Pares termo-livro no índice de busca.",
+                indiceBusca::totalPostagens);
+        for (IndiceSugestoes.Campo campo : IndiceSugestoes.Campo.values()) {
+            registro.medidor("biblioteca_indice_sugestoes_nos", "Nós da árvore de prefixos das sugestões.",
+                    () -> indiceSugestoes.totalNos(campo), "campo", campo.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // O contador só é tocado com DEBUG ligado, para não virar ponto de
+    // contenção entre as listagens em produção.
+    private boolean deveAmostrar() {
+        return amostragemDebug > 0
+                && log.isDebugEnabled()
+                && listagens.incrementAndGet() % amostragemDebug == 0;
     }
 }
@@ -0,0 +1,66 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.LeitorLivros;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Recebe os livros do LeitorLivros e os insere em lotes de tamanho fixo,
+// de modo que a memória usada não depende do tamanho do arquivo. O
+// relatório guarda só os primeiros erros; os demais são apenas contados.
+public class ImportacaoLivros implements LeitorLivros.Destino {
+    static final int TAMANHO_LOTE = 1_000;
+    static final int MAX_ERROS_RELATADOS = 1_000;
+    private static final String MSG_DUPLICADO = "Já existe livro com título: ";
+
+    private final LivroRepository repository;
+    private final List<Livro> lote = new ArrayList<>(TAMANHO_LOTE);
+    private final long[] linhasDoLote = new long[TAMANHO_LOTE];
+    private final List<RelatorioImportacao.Erro> erros = new ArrayList<>();
+    private long importados;
+    private long rejeitados;
+
+    ImportacaoLivros(LivroRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void livro(long linha, Livro livro) {
+        linhasDoLote[lote.size()] = linha;
+        lote.add(livro);
+        if (lote.size() == TAMANHO_LOTE) {
+            descarregar();
+        }
+    }
+
+    @Override
+    public void erro(long linha, String mensagem) {
+        rejeitados++;
+        if (erros.size() < MAX_ERROS_RELATADOS) {
+            erros.add(new RelatorioImportacao.Erro(linha, mensagem));
+        }
+    }
+
+    public RelatorioImportacao concluir() {
+        descarregar();
+        // Duplicados só aparecem no descarregamento, então a lista pode
+        // ter saído da ordem das linhas.
+        erros.sort((a, b) -> Long.compare(a.linha(), b.linha()));
+        return new RelatorioImportacao(importados, rejeitados, List.copyOf(erros), rejeitados > erros.size());
+    }
+
+    private void descarregar() {
+        if (lote.isEmpty()) {
+            return;
+        }
+        BitSet duplicados = repository.adicionarTodos(lote);
+        importados += lote.size() - duplicados.cardinality();
+        for (int i = duplicados.nextSetBit(0); i >= 0; i = duplicados.nextSetBit(i + 1)) {
+            erro(linhasDoLote[i], MSG_DUPLICADO + lote.get(i).getTitulo());
+        }
+        lote.clear();
+    }
+}
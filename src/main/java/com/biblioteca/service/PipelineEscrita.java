@@ -0,0 +1,223 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.ResultadoEscrita;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+// Fila de escritas à frente do repositório. Uma única thread junta as
+// mutações que chegam dentro de uma janela (ou até o lote encher), aplica
+// o lote com LivroRepository.executarEmLote e só então libera cada
+// requisição. Com o catálogo persistente, o lote inteiro custa um fsync.
+public class PipelineEscrita implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PipelineEscrita.class);
+    // De quanto em quanto tempo o aplicador ocioso confere se foi fechado.
+    private static final long ESPERA_OCIOSA_MS = 50;
+    // Quanto close() espera o aplicador esvaziar a fila.
+    private static final long ESPERA_FECHAMENTO_S = 30;
+
+    public record Opcoes(int maxLote, Duration maxLatencia, int capacidadeFila) {
+        public static final Opcoes PADRAO = new Opcoes(256, Duration.ofMillis(1), 16_384);
+
+        public Opcoes {
+            Objects.requireNonNull(maxLatencia, "Latência máxima obrigatória");
+            if (maxLote <= 0 || capacidadeFila <= 0 || maxLatencia.isNegative()) {
+                throw new IllegalArgumentException("Opções de pipeline inválidas");
+            }
+        }
+    }
+
+    private sealed interface Mutacao {
+        CompletableFuture<ResultadoEscrita> concluida();
+    }
+
+    private record Adicao(Livro livro, CompletableFuture<ResultadoEscrita> concluida) implements Mutacao {
+    }
+
+    private record Atualizacao(String tituloAntigo, Livro novo, long versaoEsperada,
+                                CompletableFuture<ResultadoEscrita> concluida) implements Mutacao {
+    }
+
+    private record Remocao(String titulo, long versaoEsperada, CompletableFuture<ResultadoEscrita> concluida) implements Mutacao {
+    }
+
+    private final LivroRepository repository;
+    private final Opcoes opcoes;
+    private final BlockingQueue<Mutacao> fila;
+    private final Thread aplicador;
+    private volatile boolean fechado;
+
+    public PipelineEscrita(LivroRepository repository, Opcoes opcoes) {
+        this.repository = Objects.requireNonNull(repository);
+        this.opcoes = Objects.requireNonNull(opcoes);
+        this.fila = new ArrayBlockingQueue<>(opcoes.capacidadeFila());
+        this.aplicador = Thread.ofPlatform().daemon().name("pipeline-escrita").start(this::aplicarLotes);
+    }
+
+    public void adicionar(Livro livro) {
+        tentarAdicionar(livro).ouLancar();
+    }
+
+    // Título repetido volta como Duplicado, sem exceção.
+    public ResultadoEscrita tentarAdicionar(Livro livro) {
+        return submeter(new Adicao(livro, new CompletableFuture<>()));
+    }
+
+    public void atualizar(String tituloAntigo, Livro novo) {
+        tentarAtualizar(tituloAntigo, novo).ouLancar();
+    }
+
+    public ResultadoEscrita tentarAtualizar(String tituloAntigo, Livro novo) {
+        return tentarAtualizar(tituloAntigo, novo, LivroRepository.QUALQUER_REVISAO);
+    }
+
+    // Condicional, como LivroRepository.substituirSePresente com revisão.
+    public ResultadoEscrita tentarAtualizar(String tituloAntigo, Livro novo, long versaoEsperada) {
+        return submeter(new Atualizacao(tituloAntigo, novo, versaoEsperada, new CompletableFuture<>()));
+    }
+
+    // Como LivroRepository.remover: título ausente não é erro.
+    public void remover(String titulo) {
+        tentarRemover(titulo);
+    }
+
+    public ResultadoEscrita tentarRemover(String titulo) {
+        return tentarRemover(titulo, LivroRepository.QUALQUER_REVISAO);
+    }
+
+    public ResultadoEscrita tentarRemover(String titulo, long versaoEsperada) {
+        return submeter(new Remocao(titulo, versaoEsperada, new CompletableFuture<>()));
+    }
+
+    // Recusa novas escritas e espera o aplicador terminar o lote atual e
+    // esvaziar a fila. Não interrompe o aplicador: no meio de um
+    // FileChannel.write ou force do diário, a interrupção fecharia o canal
+    // (ClosedByInterruptException) com o lote já aplicado na memória.
+    @Override
+    public void close() {
+        fechado = true;
+        try {
+            aplicador.join(TimeUnit.SECONDS.toMillis(ESPERA_FECHAMENTO_S));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (aplicador.isAlive()) {
+            log.warn("operacao=fechar pendentes={} aplicador ainda ativo", fila.size());
+        }
+    }
+
+    // Bloqueia até o lote da mutação ser aplicado (e, se houver diário,
+    // confirmado em disco); erros da mutação são relançados aqui.
+    private ResultadoEscrita submeter(Mutacao mutacao) {
+        if (fechado) {
+            throw new IllegalStateException("Pipeline de escrita fechado");
+        }
+        try {
+            fila.put(mutacao);
+            // close() pode ter começado entre a verificação acima e o put, e
+            // o aplicador já ter saído com a fila vazia. Se a mutação ainda
+            // está na fila, ninguém mais vai pegá-la; se não está, foi o
+            // aplicador que a pegou e ele vai concluí-la.
+            if (fechado && fila.remove(mutacao)) {
+                throw new IllegalStateException("Pipeline de escrita fechado");
+            }
+            return mutacao.concluida().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o pipeline de escrita", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // Só sai depois de fechado e com a fila vazia: o que já estava na fila
+    // quando close() foi chamado ainda é aplicado.
+    private void aplicarLotes() {
+        List<Mutacao> lote = new ArrayList<>(opcoes.maxLote());
+        while (true) {
+            try {
+                Mutacao primeira = fila.poll(ESPERA_OCIOSA_MS, TimeUnit.MILLISECONDS);
+                if (primeira == null) {
+                    if (fechado) {
+                        return;
+                    }
+                    continue;
+                }
+                lote.add(primeira);
+                long prazo = System.nanoTime() + opcoes.maxLatencia().toNanos();
+                while (lote.size() < opcoes.maxLote()) {
+                    if (fila.drainTo(lote, opcoes.maxLote() - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = prazo - System.nanoTime();
+                    Mutacao proxima = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (proxima == null) {
+                        break;
+                    }
+                    lote.add(proxima);
+                }
+            } catch (InterruptedException e) {
+                // Ninguém deveria interromper o aplicador; o que já foi
+                // tirado da fila é aplicado, agora sem a interrupção pendente.
+                log.warn("operacao=aplicarLotes aplicador interrompido");
+            }
+            if (lote.isEmpty()) {
+                continue;
+            }
+            aplicar(lote);
+            lote.clear();
+        }
+    }
+
+    private void aplicar(List<Mutacao> lote) {
+        RuntimeException[] erros = new RuntimeException[lote.size()];
+        ResultadoEscrita[] resultados = new ResultadoEscrita[lote.size()];
+        try {
+            repository.executarEmLote(() -> {
+                for (int i = 0; i < lote.size(); i++) {
+                    try {
+                        resultados[i] = executar(lote.get(i));
+                    } catch (RuntimeException e) {
+                        erros[i] = e;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Falha na confirmação do lote (diário de escrita, por exemplo):
+            // nenhuma mutação do lote pode ser dada como concluída.
+            log.error("operacao=aplicarLote tamanho={} erro={}", lote.size(), e.toString());
+            lote.forEach(m -> m.concluida().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < lote.size(); i++) {
+            if (erros[i] != null) {
+                lote.get(i).concluida().completeExceptionally(erros[i]);
+            } else {
+                lote.get(i).concluida().complete(resultados[i]);
+            }
+        }
+        log.debug("operacao=aplicarLote tamanho={}", lote.size());
+    }
+
+    private ResultadoEscrita executar(Mutacao mutacao) {
+        return switch (mutacao) {
+            case Adicao a -> repository.adicionarSeAusente(a.livro());
+            case Atualizacao a -> repository.substituirSePresente(a.tituloAntigo(), a.novo(), a.versaoEsperada());
+            case Remocao r -> repository.removerSePresente(r.titulo(), r.versaoEsperada());
+        };
+    }
+}
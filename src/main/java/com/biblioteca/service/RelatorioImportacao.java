@@ -0,0 +1,9 @@
+package com.biblioteca.service;
+
+import java.util.List;
+
+public record RelatorioImportacao(long importados, long rejeitados, List<Erro> erros, boolean errosOmitidos) {
+
+    public record Erro(long linha, String mensagem) {
+    }
+}
@@ -0,0 +1,337 @@
+package com.biblioteca;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BibliotecaWebApplicationTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void deveAtenderRequisicoesNoTipoDeThreadConfigurado(boolean threadsVirtuais) throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, threadsVirtuais);
+        app.get("/thread", ctx -> ctx.result(String.valueOf(Thread.currentThread().isVirtual())));
+        app.start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            HttpResponse<String> thread = cliente.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + app.port() + "/thread")).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> livros = cliente.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + app.port() + "/api/livros")).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(thread.body()).isEqualTo(String.valueOf(threadsVirtuais));
+            assertThat(livros.statusCode()).isEqualTo(200);
+            assertThat(livros.body()).isEqualTo("[]");
+        } finally {
+            app.stop();
+        }
+    }
+
+    @Test
+    void deveResponderNaoModificadoEnquantoOCatalogoNaoMuda() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port() + "/api/livros";
+            cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado\",\"categoria\":\"FICCAO\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            HttpResponse<String> lista = cliente.send(HttpRequest.newBuilder(URI.create(base)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String etag = lista.headers().firstValue("ETag").orElseThrow();
+            HttpResponse<String> repetida = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> livro = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-None-Match", "W/" + etag).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(lista.statusCode()).isEqualTo(200);
+            assertThat(repetida.statusCode()).isEqualTo(304);
+            assertThat(repetida.body()).isEmpty();
+            assertThat(livro.statusCode()).isEqualTo(200);
+            String etagLivro = livro.headers().firstValue("ETag").orElseThrow();
+
+            cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro")).DELETE().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> aposRemover = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> livroRemovido = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-None-Match", etagLivro).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(aposRemover.statusCode()).isEqualTo(200);
+            assertThat(aposRemover.body()).isEqualTo("[]");
+            assertThat(livroRemovido.statusCode()).isEqualTo(404);
+        } finally {
+            app.stop();
+        }
+    }
+
+    @Test
+    void etagDeveSepararAsCodificacoesDaMesmaRevisao() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port() + "/api/livros";
+            cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado\",\"categoria\":\"FICCAO\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            String identidade = cliente.send(HttpRequest.newBuilder(URI.create(base)).build(),
+                    HttpResponse.BodyHandlers.ofString()).headers().firstValue("ETag").orElseThrow();
+            HttpResponse<byte[]> comGzip = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+            String etagGzip = comGzip.headers().firstValue("ETag").orElseThrow();
+            HttpResponse<byte[]> identidadeComGzip = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .header("Accept-Encoding", "gzip").header("If-None-Match", identidade).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            HttpResponse<byte[]> gzipRepetido = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .header("Accept-Encoding", "gzip").header("If-None-Match", etagGzip).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+
+            assertThat(identidade).isEqualTo("\"c1\"");
+            assertThat(etagGzip).isEqualTo("\"c1-gzip\"");
+            assertThat(identidadeComGzip.statusCode()).isEqualTo(200);
+            assertThat(gzipRepetido.statusCode()).isEqualTo(304);
+
+            String etagLivro = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray())
+                    .headers().firstValue("ETag").orElseThrow();
+            HttpResponse<String> remocao = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-Match", etagLivro).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(etagLivro).isEqualTo("\"l1-gzip\"");
+            assertThat(remocao.statusCode()).isEqualTo(200);
+        } finally {
+            app.stop();
+        }
+    }
+
+    @Test
+    void deveResponderConflitoENaoEncontradoComMensagem() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port() + "/api/livros";
+            String corpo = "{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado\",\"categoria\":\"FICCAO\"}";
+            HttpResponse<String> criado = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo)).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> duplicado = cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo)).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> buscaAusente = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Outro"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> atualizaAusente = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Outro"))
+                    .PUT(HttpRequest.BodyPublishers.ofString(corpo)).build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> removeAusente = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Outro"))
+                    .DELETE().build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(criado.statusCode()).isEqualTo(200);
+            assertThat(duplicado.statusCode()).isEqualTo(409);
+            assertThat(duplicado.body()).isEqualTo("{\"error\":\"Já existe livro com título: Dom Casmurro\"}");
+            assertThat(buscaAusente.statusCode()).isEqualTo(404);
+            assertThat(buscaAusente.body()).isEqualTo("{\"error\":\"Livro não encontrado: Outro\"}");
+            assertThat(atualizaAusente.statusCode()).isEqualTo(404);
+            assertThat(atualizaAusente.body()).contains("Livro não encontrado para atualizar: Outro");
+            assertThat(removeAusente.statusCode()).isEqualTo(404);
+            assertThat(removeAusente.body()).contains("Livro não encontrado para remover: Outro");
+        } finally {
+            app.stop();
+        }
+    }
+
+    @Test
+    void escritasComIfMatchDevemFalharSeOLivroMudou() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port() + "/api/livros";
+            cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado\",\"categoria\":\"FICCAO\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            String etag = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro")).build(),
+                    HttpResponse.BodyHandlers.ofString()).headers().firstValue("ETag").orElseThrow();
+
+            String edicao = "{\"titulo\":\"Dom Casmurro\",\"autor\":\"%s\",\"categoria\":\"FICCAO\"}";
+            HttpResponse<String> primeira = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-Match", etag)
+                    .PUT(HttpRequest.BodyPublishers.ofString(edicao.formatted("Primeiro"))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> segunda = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-Match", etag)
+                    .PUT(HttpRequest.BodyPublishers.ofString(edicao.formatted("Segundo"))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> remocaoVelha = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-Match", etag).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> atual = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> remocao = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-Match", "\"c1\", W/" + atual.headers().firstValue("ETag").orElseThrow())
+                    .DELETE().build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> ausente = cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .header("If-Match", "*").DELETE().build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(primeira.statusCode()).isEqualTo(200);
+            assertThat(segunda.statusCode()).isEqualTo(412);
+            assertThat(segunda.body()).isEqualTo("{\"error\":\"Livro modificado desde a revisão informada: Dom Casmurro\"}");
+            assertThat(remocaoVelha.statusCode()).isEqualTo(412);
+            assertThat(atual.body()).contains("Primeiro");
+            assertThat(remocao.statusCode()).isEqualTo(200);
+            assertThat(ausente.statusCode()).isEqualTo(412);
+        } finally {
+            app.stop();
+        }
+    }
+
+    @Test
+    void rotasDoCatalogoNaoDevemEsconderLivrosComOMesmoNome() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port() + "/api/livros";
+            for (String titulo : new String[]{"export", "search", "suggest", "changes"}) {
+                cliente.send(HttpRequest.newBuilder(URI.create(base))
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"titulo\":\"%s\",\"autor\":\"Autor\",\"categoria\":\"FICCAO\"}".formatted(titulo)))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> livro = cliente.send(HttpRequest.newBuilder(URI.create(base + "/" + titulo)).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertThat(livro.statusCode()).as(titulo).isEqualTo(200);
+                assertThat(livro.body()).as(titulo).contains("\"titulo\":\"" + titulo + "\"");
+            }
+
+            HttpResponse<String> exportacao = cliente.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + app.port() + "/api/catalogo/export")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(exportacao.statusCode()).isEqualTo(200);
+            assertThat(exportacao.body().lines()).hasSize(4);
+        } finally {
+            app.stop();
+        }
+    }
+
+    @Test
+    void fluxoDeMudancasDeveEntregarEscritasERetomarPeloUltimoId() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port() + "/api/livros";
+            String mudancas = "http://localhost:" + app.port() + "/api/catalogo/changes";
+            BlockingQueue<String[]> eventos = assinar(cliente, mudancas, null);
+            String[] recarregar = eventos.poll(5, TimeUnit.SECONDS);
+            assertThat(recarregar[1]).isEqualTo("recarregar");
+
+            String corpo = "{\"titulo\":\"Dom Casmurro\",\"autor\":\"%s\",\"categoria\":\"FICCAO\"}";
+            cliente.send(HttpRequest.newBuilder(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo.formatted("Machado"))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro"))
+                    .PUT(HttpRequest.BodyPublishers.ofString(corpo.formatted("Assis"))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            cliente.send(HttpRequest.newBuilder(URI.create(base + "/Dom%20Casmurro")).DELETE().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String[] adicionado = eventos.poll(5, TimeUnit.SECONDS);
+            String[] atualizado = eventos.poll(5, TimeUnit.SECONDS);
+            String[] removido = eventos.poll(5, TimeUnit.SECONDS);
+
+            assertThat(adicionado[1]).isEqualTo("adicionado");
+            assertThat(Long.parseLong(adicionado[0])).isEqualTo(Long.parseLong(recarregar[0]) + 1);
+            assertThat(adicionado[2]).contains("\"tipo\":\"ADICIONADO\"", "\"autor\":\"Machado\"");
+            assertThat(atualizado[1]).isEqualTo("atualizado");
+            assertThat(atualizado[2]).contains("\"tituloAntigo\":\"Dom Casmurro\"", "\"autor\":\"Assis\"");
+            assertThat(removido[1]).isEqualTo("removido");
+
+            BlockingQueue<String[]> retomados = assinar(cliente, mudancas + "?since=0", adicionado[0]);
+            assertThat(retomados.poll(5, TimeUnit.SECONDS)).isEqualTo(atualizado);
+            assertThat(retomados.poll(5, TimeUnit.SECONDS)).isEqualTo(removido);
+        } finally {
+            app.stop();
+        }
+    }
+
+    // Cada evento vira {id, event, data}, lidos numa thread à parte.
+    private static BlockingQueue<String[]> assinar(HttpClient cliente, String url, String ultimoId) {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create(url))
+                .header("Accept", "text/event-stream")
+                .header("Accept-Encoding", "gzip");
+        if (ultimoId != null) {
+            requisicao.header("Last-Event-ID", ultimoId);
+        }
+        BlockingQueue<String[]> eventos = new LinkedBlockingQueue<>();
+        cliente.sendAsync(requisicao.build(), HttpResponse.BodyHandlers.ofLines()).thenAccept(resposta -> {
+            String[] atual = new String[3];
+            for (String linha : (Iterable<String>) resposta.body()::iterator) {
+                if (linha.isEmpty() && atual[1] != null) {
+                    eventos.add(atual);
+                    atual = new String[3];
+                } else if (linha.startsWith("id:")) {
+                    atual[0] = linha.substring(3).trim();
+                } else if (linha.startsWith("event:")) {
+                    atual[1] = linha.substring(6).trim();
+                } else if (linha.startsWith("data:")) {
+                    atual[2] = linha.substring(5).trim();
+                }
+            }
+        });
+        return eventos;
+    }
+
+    @Test
+    void deveServirEstaticosPrecomprimidosComNomesPorHash() throws Exception {
+        Javalin app = BibliotecaWebApplication.createApp(0, false).start(0);
+        try {
+            HttpClient cliente = HttpClient.newHttpClient();
+            String base = "http://localhost:" + app.port();
+            HttpResponse<byte[]> pagina = cliente.send(HttpRequest.newBuilder(URI.create(base + "/lista.html"))
+                    .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+            String html;
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(pagina.body()))) {
+                html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            Matcher css = Pattern.compile("href=\"(/css/listagem\\.[0-9a-f]{12}\\.css)\"").matcher(html);
+
+            assertThat(pagina.statusCode()).isEqualTo(200);
+            assertThat(pagina.headers().firstValue("Content-Encoding")).hasValue("gzip");
+            assertThat(pagina.headers().firstValue("Cache-Control")).hasValue("no-cache");
+            assertThat(css.find()).isTrue();
+
+            String etag = pagina.headers().firstValue("ETag").orElseThrow();
+            assertThat(etag).endsWith("-gzip\"");
+            for (String seNenhum : new String[]{"W/" + etag, "\"outro\", " + etag, "*"}) {
+                HttpResponse<byte[]> revalidada = cliente.send(HttpRequest.newBuilder(URI.create(base + "/lista.html"))
+                        .header("Accept-Encoding", "gzip").header("If-None-Match", seNenhum).build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                assertThat(revalidada.statusCode()).as(seNenhum).isEqualTo(304);
+            }
+            HttpResponse<byte[]> outraCodificacao = cliente.send(HttpRequest.newBuilder(URI.create(base + "/lista.html"))
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(outraCodificacao.statusCode()).isEqualTo(200);
+
+            HttpResponse<String> estilo = cliente.send(HttpRequest.newBuilder(URI.create(base + css.group(1))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(estilo.statusCode()).isEqualTo(200);
+            assertThat(estilo.headers().firstValue("Cache-Control")).hasValue("public, max-age=31536000, immutable");
+            assertThat(estilo.headers().firstValue("Content-Type").orElseThrow()).startsWith("text/css");
+            assertThat(estilo.body()).contains("listagem.css");
+        } finally {
+            app.stop();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.biblioteca.busca;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndiceBuscaTest {
+
+    private LivroRepository repository;
+    private IndiceBusca indice;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LivroRepositoryMemoria();
+        repository.adicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+        repository.adicionar(new Livro("Memórias Póstumas de Brás Cubas", "Machado de Assis", Categoria.ROMANCE));
+        repository.adicionar(new Livro("Ficção Científica Brasileira", "Vários", Categoria.FICCAO));
+        repository.adicionar(new Livro("O Cortiço", "Aluísio Azevedo", Categoria.ROMANCE));
+        indice = new IndiceBusca();
+        repository.registrarObservador(indice);
+    }
+
+    @Test
+    @DisplayName("Deve indexar o catálogo existente ao ser registrado")
+    void deveIndexarCatalogoExistente() {
+        assertThat(indice.totalDocumentos()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Deve encontrar ignorando acentos e caixa")
+    void deveEncontrarIgnorandoAcentos() {
+        assertThat(titulos(indice.pesquisar("FICCAO cientifica", 10)))
+                .containsExactly("Ficção Científica Brasileira");
+        assertThat(titulos(indice.pesquisar("cortiço ", 10))).containsExactly("O Cortiço");
+    }
+
+    @Test
+    @DisplayName("Deve priorizar título sobre autor")
+    void devePriorizarTituloSobreAutor() {
+        repository.adicionar(new Livro("Biografia de Machado", "Outro", Categoria.HISTORIA));
+
+        List<ResultadoBusca> resultados = indice.pesquisar("machado ", 10);
+
+        assertThat(resultados).hasSize(3);
+        assertThat(resultados.get(0).livro().getTitulo()).isEqualTo("Biografia de Machado");
+        assertThat(resultados).isSortedAccordingTo((a, b) -> Double.compare(b.pontuacao(), a.pontuacao()));
+    }
+
+    @Test
+    @DisplayName("Deve completar a última palavra como prefixo")
+    void deveCompletarUltimaPalavraComoPrefixo() {
+        assertThat(titulos(indice.pesquisar("memorias pos", 10)))
+                .containsExactly("Memórias Póstumas de Brás Cubas");
+        assertThat(indice.pesquisar("pos ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve acompanhar atualizações, remoções e limpeza do repositório")
+    void deveAcompanharMutacoes() {
+        repository.atualizar("Dom Casmurro", new Livro("Quincas Borba", "Machado de Assis", Categoria.ROMANCE));
+        repository.remover("O Cortiço");
+
+        assertThat(indice.pesquisar("casmurro", 10)).isEmpty();
+        assertThat(indice.pesquisar("azevedo", 10)).isEmpty();
+        assertThat(titulos(indice.pesquisar("quincas", 10))).containsExactly("Quincas Borba");
+        assertThat(indice.totalDocumentos()).isEqualTo(3);
+
+        repository.limpar();
+        assertThat(indice.pesquisar("machado", 10)).isEmpty();
+        assertThat(indice.totalTermos()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o limite e rejeitar limite inválido")
+    void deveRespeitarLimite() {
+        assertThat(indice.pesquisar("machado assis", 1)).hasSize(1);
+        assertThat(indice.pesquisar("   ", 5)).isEmpty();
+        assertThatThrownBy(() -> indice.pesquisar("machado", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Tokenizador deve dobrar acentos e separar palavras")
+    void tokenizadorDeveDobrarAcentos() {
+        assertThat(Tokenizador.tokens("  Ação & Aventura: Vol. 2 ")).containsExactly("acao", "aventura", "vol", "2");
+        assertThat(Tokenizador.dobrar("Não classificado")).isEqualTo("nao classificado");
+    }
+
+    private static List<String> titulos(List<ResultadoBusca> resultados) {
+        return resultados.stream().map(r -> r.livro().getTitulo()).toList();
+    }
+}
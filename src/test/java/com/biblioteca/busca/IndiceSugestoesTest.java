@@ -0,0 +1,101 @@
+package com.biblioteca.busca;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.biblioteca.busca.IndiceSugestoes.Campo.AUTOR;
+import static com.biblioteca.busca.IndiceSugestoes.Campo.TITULO;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndiceSugestoesTest {
+
+    private LivroRepository repository;
+    private IndiceSugestoes indice;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LivroRepositoryMemoria();
+        indice = new IndiceSugestoes();
+        repository.registrarObservador(indice);
+        repository.adicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+        repository.adicionar(new Livro("Dom Quixote", "Miguel de Cervantes", Categoria.FICCAO));
+        repository.adicionar(new Livro("Domínio Público", "Machado de Assis", Categoria.HISTORIA));
+        repository.adicionar(new Livro("Memórias Póstumas", "Machado de Assis", Categoria.ROMANCE));
+        repository.adicionar(new Livro("Macunaíma", "Mário de Andrade", Categoria.ROMANCE));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir títulos por prefixo, mais curtos primeiro")
+    void deveSugerirTitulosPorPrefixo() {
+        assertThat(indice.sugerir(TITULO, "dom", 10))
+                .containsExactly("Dom Quixote", "Dom Casmurro", "Domínio Público");
+        assertThat(indice.sugerir(TITULO, "DOM C", 10)).containsExactly("Dom Casmurro");
+        assertThat(indice.sugerir(TITULO, "domin", 10)).containsExactly("Domínio Público");
+        assertThat(indice.sugerir(TITULO, "xyz", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Só os nós internos guardam lista dos melhores própria")
+    void listasMelhoresSoNosNosInternos() {
+        // Raiz, "dom", "dom " e "m"; as folhas reaproveitam as entradas.
+        assertThat(indice.totalNos(TITULO)).isEqualTo(9);
+        assertThat(indice.totalListasMelhores(TITULO)).isEqualTo(4);
+
+        repository.limpar();
+        assertThat(indice.totalListasMelhores(TITULO)).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve sugerir autores mais frequentes primeiro")
+    void deveSugerirAutoresMaisFrequentesPrimeiro() {
+        assertThat(indice.sugerir(AUTOR, "m", 10))
+                .containsExactly("Machado de Assis", "Mário de Andrade", "Miguel de Cervantes");
+        assertThat(indice.sugerir(AUTOR, "m", 1)).containsExactly("Machado de Assis");
+    }
+
+    @Test
+    @DisplayName("Deve acompanhar atualização e remoção, compactando a árvore")
+    void deveAcompanharMutacoes() {
+        repository.remover("Dom Quixote");
+        repository.atualizar("Dom Casmurro", new Livro("Quincas Borba", "Machado de Assis", Categoria.ROMANCE));
+
+        assertThat(indice.sugerir(TITULO, "dom", 10)).containsExactly("Domínio Público");
+        assertThat(indice.sugerir(TITULO, "q", 10)).containsExactly("Quincas Borba");
+        assertThat(indice.sugerir(AUTOR, "mi", 10)).isEmpty();
+
+        repository.limpar();
+        assertThat(indice.sugerir(TITULO, "", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Árvore deve voltar ao tamanho mínimo após remover tudo")
+    void arvoreDeveVoltarAoTamanhoMinimo() {
+        ArvorePrefixos arvore = new ArvorePrefixos();
+        arvore.adicionar("abc", "ABC");
+        arvore.adicionar("abd", "ABD");
+        arvore.adicionar("ab", "AB");
+        assertThat(arvore.sugerir("ab", 10)).containsExactly("AB", "ABC", "ABD");
+
+        arvore.remover("ab", "AB");
+        arvore.remover("abc", "ABC");
+        assertThat(arvore.contarNos()).isEqualTo(2);
+        assertThat(arvore.sugerir("a", 10)).containsExactly("ABD");
+
+        arvore.remover("abd", "ABD");
+        assertThat(arvore.contarNos()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar limite fora do intervalo")
+    void deveRejeitarLimiteInvalido() {
+        assertThatThrownBy(() -> indice.sugerir(TITULO, "d", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> indice.sugerir(TITULO, "d", IndiceSugestoes.LIMITE_MAXIMO + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheRespostasTest {
+
+    private final AtomicInteger serializacoes = new AtomicInteger();
+
+    private CacheRespostas.Serializador texto(String conteudo) {
+        return saida -> {
+            serializacoes.incrementAndGet();
+            saida.write(conteudo.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static Livro livro(String titulo) {
+        return new Livro(titulo, "Autor", Categoria.FICCAO);
+    }
+
+    @Test
+    void reutilizaListaEnquantoAVersaoNaoMuda() throws IOException {
+        CacheRespostas cache = new CacheRespostas(CacheRespostas.ORCAMENTO_PADRAO, OpcoesCompressao.PADRAO);
+
+        CacheRespostas.Corpo primeiro = cache.lista(1, false, texto("[1]"));
+        CacheRespostas.Corpo segundo = cache.lista(1, false, texto("[outro]"));
+        CacheRespostas.Corpo novaVersao = cache.lista(2, false, texto("[2]"));
+
+        assertThat(segundo).isSameAs(primeiro);
+        assertThat(new String(novaVersao.bytes(), StandardCharsets.UTF_8)).isEqualTo("[2]");
+        assertThat(serializacoes).hasValue(2);
+    }
+
+    @Test
+    void variantesDaListaSaoIndependentes() throws IOException {
+        CacheRespostas cache = new CacheRespostas(CacheRespostas.ORCAMENTO_PADRAO, OpcoesCompressao.PADRAO);
+
+        cache.lista(1, false, texto("[]"));
+        CacheRespostas.Corpo ndjson = cache.lista(1, true, texto(""));
+
+        assertThat(ndjson.bytes()).isEmpty();
+        assertThat(serializacoes).hasValue(2);
+    }
+
+    @Test
+    void listaMaiorQueOOrcamentoNaoEhGuardada() throws IOException {
+        CacheRespostas cache = new CacheRespostas(4 * 10, OpcoesCompressao.PADRAO);
+
+        assertThat(cache.lista(1, false, texto("x".repeat(11)))).isNull();
+        assertThat(cache.lista(1, false, texto("x".repeat(11)))).isNull();
+        assertThat(serializacoes).hasValue(1);
+    }
+
+    @Test
+    void mutacaoInvalidaOLivroEAsListas() throws IOException {
+        CacheRespostas cache = new CacheRespostas(CacheRespostas.ORCAMENTO_PADRAO, OpcoesCompressao.PADRAO);
+        Livro livro = new Livro("Dom Casmurro", "Machado", Categoria.FICCAO);
+        cache.lista(1, false, texto("[]"));
+        cache.livro(livro, 1, texto("{}"));
+
+        cache.aoRemover(new Livro("Dom Casmurro", "Machado", Categoria.FICCAO));
+        cache.lista(1, false, texto("[]"));
+        cache.livro(livro, 1, texto("{}"));
+
+        assertThat(serializacoes).hasValue(4);
+    }
+
+    @Test
+    void livroComRevisaoDiferenteEhSerializadoDeNovo() throws IOException {
+        CacheRespostas cache = new CacheRespostas(CacheRespostas.ORCAMENTO_PADRAO, OpcoesCompressao.PADRAO);
+
+        cache.livro(livro("A"), 1, texto("{}"));
+        cache.livro(livro("A"), 1, texto("{}"));
+        cache.livro(livro("A"), 2, texto("{}"));
+
+        assertThat(serializacoes).hasValue(2);
+    }
+
+    @Test
+    void expulsaOsMenosUsadosAoPassarDoOrcamento() throws IOException {
+        // 16 segmentos de 1 KiB cada
+        CacheRespostas cache = new CacheRespostas(2 * 16 * 1024, OpcoesCompressao.PADRAO);
+        for (int i = 0; i < 2000; i++) {
+            cache.livro(livro("livro " + i), 1, texto("x".repeat(100)));
+        }
+
+        assertThat(cache.bytesLivros()).isLessThanOrEqualTo(16 * 1024);
+        serializacoes.set(0);
+        cache.livro(livro("livro 1999"), 1, texto("x".repeat(100)));
+        cache.livro(livro("livro 0"), 1, texto("x".repeat(100)));
+        assertThat(serializacoes).hasValue(1);
+    }
+
+    @Test
+    void corposGrandesTambemGuardamAVersaoComprimida() throws IOException {
+        CacheRespostas cache = new CacheRespostas(CacheRespostas.ORCAMENTO_PADRAO, OpcoesCompressao.PADRAO);
+        String conteudo = "{\"titulo\":\"x\"}".repeat(500);
+
+        CacheRespostas.Corpo pequeno = cache.lista(1, true, texto("{}"));
+        CacheRespostas.Corpo grande = cache.lista(1, false, texto(conteudo));
+
+        assertThat(pequeno.gzip()).isNull();
+        assertThat(grande.gzip().length).isLessThan(grande.bytes().length);
+        if (OpcoesCompressao.brotliDisponivel()) {
+            assertThat(grande.brotli().length).isLessThan(grande.bytes().length);
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(grande.gzip()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(conteudo);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.biblioteca.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpcoesCompressaoTest {
+
+    @Test
+    void escolheACodificacaoPeloTokenEPeloPeso() {
+        assertThat(OpcoesCompressao.codificacaoAceita("gzip, deflate, br", true, true)).isEqualTo("br");
+        assertThat(OpcoesCompressao.codificacaoAceita("gzip, deflate, br", false, true)).isEqualTo("gzip");
+        assertThat(OpcoesCompressao.codificacaoAceita("br;q=0.5, gzip", true, true)).isEqualTo("gzip");
+        assertThat(OpcoesCompressao.codificacaoAceita("gzip;q=0.8, br;q=0.8", true, true)).isEqualTo("br");
+        assertThat(OpcoesCompressao.codificacaoAceita((String) null, true, true)).isNull();
+    }
+
+    @Test
+    void qZeroRecusaACodificacao() {
+        assertThat(OpcoesCompressao.codificacaoAceita("br;q=0, gzip", true, true)).isEqualTo("gzip");
+        assertThat(OpcoesCompressao.codificacaoAceita("gzip;q=0", true, true)).isNull();
+        assertThat(OpcoesCompressao.codificacaoAceita("gzip; Q=0.0", false, true)).isNull();
+        assertThat(OpcoesCompressao.codificacaoAceita("*;q=0, identity", true, true)).isNull();
+        assertThat(OpcoesCompressao.codificacaoAceita("gzip;q=abc", false, true)).isNull();
+    }
+
+    @Test
+    void naoCasaPedacosDeOutrosTokens() {
+        assertThat(OpcoesCompressao.codificacaoAceita("vbr, x-gzip-foo", true, true)).isNull();
+        assertThat(OpcoesCompressao.codificacaoAceita("identity", true, true)).isNull();
+    }
+
+    @Test
+    void curingaValeParaAsQueNaoAparecemPeloNome() {
+        assertThat(OpcoesCompressao.codificacaoAceita("*", true, true)).isEqualTo("br");
+        assertThat(OpcoesCompressao.codificacaoAceita("br;q=0, *", true, true)).isEqualTo("gzip");
+    }
+}
@@ -0,0 +1,48 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EscritorLivrosJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Livro> livros = List.of(
+            new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO),
+            new Livro("Book with \"quotes\"", "Autor", Categoria.TECNOLOGIA));
+
+    @Test
+    void deveEscreverArrayEquivalenteAosDtos() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        EscritorLivrosJson.escreverArray(livros, saida);
+
+        List<LivroDto> lidos = mapper.readValue(saida.toByteArray(), new TypeReference<>() {});
+        assertEquals(livros.stream().map(LivroDto::from).toList(), lidos);
+    }
+
+    @Test
+    void deveEscreverUmLivroPorLinhaEmNdjson() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        EscritorLivrosJson.escreverNdjson(livros, saida);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, linhas.length);
+        assertEquals(LivroDto.from(livros.get(1)), mapper.readValue(linhas[1], LivroDto.class));
+    }
+
+    @Test
+    void deveEscreverArrayVazio() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        EscritorLivrosJson.escreverArray(List.of(), saida);
+
+        assertEquals("[]", saida.toString(StandardCharsets.UTF_8));
+    }
+}
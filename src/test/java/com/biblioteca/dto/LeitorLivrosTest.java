@@ -0,0 +1,115 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LeitorLivrosTest {
+
+    private final List<Livro> livros = new ArrayList<>();
+    private final List<Long> linhasComErro = new ArrayList<>();
+    private final LeitorLivros.Destino destino = new LeitorLivros.Destino() {
+        @Override
+        public void livro(long linha, Livro livro) {
+            livros.add(livro);
+        }
+
+        @Override
+        public void erro(long linha, String mensagem) {
+            linhasComErro.add(linha);
+        }
+    };
+
+    @Test
+    void deveLerNdjsonRelatandoLinhasInvalidas() throws Exception {
+        String ndjson = """
+                {"titulo":"Dom Casmurro","autor":"Machado de Assis","categoria":"FICCAO","extra":[1,2]}
+
+                {"titulo":"Quebrado",
+                {"titulo":"Sem autor","categoria":"FICCAO"}
+                {"autor":"X","titulo":"Cosmos","categoria":"ciencia"}
+                {"titulo":"T","autor":"A","categoria":"POESIA"}
+                """;
+        LeitorLivros.lerNdjson(entrada(ndjson), destino);
+
+        assertEquals(List.of(
+                new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO),
+                new Livro("Cosmos", "X", Categoria.CIENCIA)), livros);
+        assertEquals(List.of(3L, 4L, 6L), linhasComErro);
+    }
+
+    @Test
+    void deveLerCsvComAspasECabecalho() throws Exception {
+        String csv = "titulo,autor,categoria\r\n"
+                + "\"Livro, com vírgula\",Autor,FICCAO\r\n"
+                + "\"Título \"\"citado\"\"\",\"Autor\nem duas linhas\",historia\n"
+                + "só dois,campos\n"
+                + "Último,Autor,ROMANCE";
+        LeitorLivros.lerCsv(entrada(csv), destino);
+
+        assertEquals(List.of(
+                new Livro("Livro, com vírgula", "Autor", Categoria.FICCAO),
+                new Livro("Título \"citado\"", "Autor\nem duas linhas", Categoria.HISTORIA),
+                new Livro("Último", "Autor", Categoria.ROMANCE)), livros);
+        assertEquals(List.of(5L), linhasComErro);
+    }
+
+    @Test
+    void primeiraLinhaSoEhCabecalhoComTodosOsCampos() throws Exception {
+        LeitorLivros.lerCsv(entrada("Titulo,Fulano,FICCAO\nOutro,Autor,ROMANCE\n"), destino);
+
+        assertEquals(List.of(
+                new Livro("Titulo", "Fulano", Categoria.FICCAO),
+                new Livro("Outro", "Autor", Categoria.ROMANCE)), livros);
+    }
+
+    @Test
+    void deveRejeitarLinhasERegistrosLongosDemais() throws Exception {
+        String longo = "x".repeat(LeitorLivros.MAX_REGISTRO + 1);
+        String ndjson = "{\"titulo\":\"" + longo + "\",\"autor\":\"A\",\"categoria\":\"FICCAO\"}\n"
+                + "{\"titulo\":\"Curto\",\"autor\":\"A\",\"categoria\":\"FICCAO\"}\n";
+        LeitorLivros.lerNdjson(entrada(ndjson), destino);
+        String csv = "\"" + longo + "\nainda no campo\",Autor,FICCAO\nCurto CSV,Autor,FICCAO\n";
+        LeitorLivros.lerCsv(entrada(csv), destino);
+
+        assertEquals(List.of(
+                new Livro("Curto", "A", Categoria.FICCAO),
+                new Livro("Curto CSV", "Autor", Categoria.FICCAO)), livros);
+        assertEquals(List.of(1L, 1L), linhasComErro);
+    }
+
+    @Test
+    void exportacaoCsvDeveSerReimportavel() throws Exception {
+        List<Livro> originais = List.of(
+                new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO),
+                new Livro("Book with \"quotes\", commas", "Autor\r\nCRLF", Categoria.TECNOLOGIA));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        EscritorLivrosCsv.escrever(originais, saida);
+
+        LeitorLivros.lerCsv(new ByteArrayInputStream(saida.toByteArray()), destino);
+
+        assertEquals(List.of(), linhasComErro);
+        assertEquals(originais.get(0), livros.get(0));
+        assertEquals("Book with \"quotes\", commas", livros.get(1).getTitulo());
+    }
+
+    @Test
+    void deveReconhecerFormatoPeloContentType() {
+        assertEquals(LeitorLivros.Formato.NDJSON, LeitorLivros.Formato.deContentType("application/x-ndjson"));
+        assertEquals(LeitorLivros.Formato.CSV, LeitorLivros.Formato.deContentType("text/csv; charset=utf-8"));
+        assertNull(LeitorLivros.Formato.deContentType("application/json"));
+    }
+
+    private static ByteArrayInputStream entrada(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.biblioteca.eventos;
+
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BarramentoMudancasTest {
+
+    private static final long SEM_ESPERA = 0;
+
+    @Test
+    @DisplayName("Deve entregar as mutações do repositório em ordem, com sequência")
+    void deveEntregarMutacoesEmOrdem() {
+        LivroRepository repository = new LivroRepositoryMemoria();
+        BarramentoMudancas barramento = new BarramentoMudancas();
+        repository.registrarObservador(barramento, false);
+        BarramentoMudancas.Assinatura assinatura = barramento.assinar(barramento.ultimaSequencia());
+
+        Livro livro = new Livro("Dom Casmurro", "Machado", Categoria.FICCAO);
+        Livro renomeado = new Livro("Memórias Póstumas", "Machado", Categoria.FICCAO);
+        repository.adicionar(livro);
+        repository.atualizar("dom casmurro", renomeado);
+        repository.remover("Memórias Póstumas");
+        repository.limpar();
+
+        Mudanca adicionado = assinatura.proxima(SEM_ESPERA);
+        Mudanca atualizado = assinatura.proxima(SEM_ESPERA);
+        Mudanca removido = assinatura.proxima(SEM_ESPERA);
+        Mudanca limpo = assinatura.proxima(SEM_ESPERA);
+        assertThat(assinatura.precisaRecarregar()).isFalse();
+        assertThat(adicionado.tipo()).isEqualTo(Mudanca.Tipo.ADICIONADO);
+        assertThat(adicionado.livro()).isEqualTo(livro);
+        assertThat(atualizado).isEqualTo(new Mudanca(adicionado.sequencia() + 1, Mudanca.Tipo.ATUALIZADO,
+                "Dom Casmurro", renomeado));
+        assertThat(removido.tipo()).isEqualTo(Mudanca.Tipo.REMOVIDO);
+        assertThat(limpo.tipo()).isEqualTo(Mudanca.Tipo.LIMPO);
+        assertThat(limpo.sequencia()).isEqualTo(barramento.ultimaSequencia()).isEqualTo(assinatura.entregue());
+        assertThat(assinatura.proxima(SEM_ESPERA)).isNull();
+        assertThat(assinatura.ultrapassada()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve retomar de uma sequência do anel e pedir recarga fora dele")
+    void deveRetomarOuPedirRecarga() {
+        BarramentoMudancas barramento = new BarramentoMudancas(4);
+        long inicio = barramento.ultimaSequencia();
+        for (int i = 0; i < 6; i++) {
+            barramento.aoAdicionar(new Livro("T" + i, "A", Categoria.FICCAO));
+        }
+
+        BarramentoMudancas.Assinatura retomada = barramento.assinar(inicio + 2);
+        assertThat(retomada.precisaRecarregar()).isFalse();
+        assertThat(retomada.proxima(SEM_ESPERA).livro().getTitulo()).isEqualTo("T2");
+
+        for (long desde : new long[]{inicio + 1, -1, 0, barramento.ultimaSequencia() + 1}) {
+            BarramentoMudancas.Assinatura nova = barramento.assinar(desde);
+            assertThat(nova.precisaRecarregar()).isTrue();
+            assertThat(nova.entregue()).isEqualTo(barramento.ultimaSequencia());
+            assertThat(nova.proxima(SEM_ESPERA)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Assinante uma volta do anel para trás deve ser ultrapassado")
+    void assinanteLentoDeveSerUltrapassado() {
+        BarramentoMudancas barramento = new BarramentoMudancas(4);
+        BarramentoMudancas.Assinatura lenta = barramento.assinar(barramento.ultimaSequencia());
+        for (int i = 0; i < 5; i++) {
+            barramento.aoAdicionar(new Livro("T" + i, "A", Categoria.FICCAO));
+        }
+
+        assertThat(lenta.proxima(SEM_ESPERA)).isNull();
+        assertThat(lenta.ultrapassada()).isTrue();
+        assertThat(barramento.assinantes()).isEqualTo(1);
+        lenta.close();
+        assertThat(barramento.assinantes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve acordar quem espera quando a mudança chega")
+    void deveAcordarQuemEspera() throws Exception {
+        BarramentoMudancas barramento = new BarramentoMudancas();
+        BarramentoMudancas.Assinatura assinatura = barramento.assinar(barramento.ultimaSequencia());
+        CompletableFuture<Mudanca> recebida = CompletableFuture.supplyAsync(
+                () -> assinatura.proxima(TimeUnit.SECONDS.toNanos(10)));
+        Thread.sleep(50);
+
+        barramento.aoRemover(new Livro("T", "A", Categoria.FICCAO));
+
+        assertThat(recebida.get(5, TimeUnit.SECONDS).tipo()).isEqualTo(Mudanca.Tipo.REMOVIDO);
+    }
+}
@@ -0,0 +1,89 @@
+package com.biblioteca.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class RegistroMetricasTest {
+
+    private String exportar(RegistroMetricas registro) throws IOException {
+        StringWriter saida = new StringWriter();
+        registro.escrever(saida);
+        return saida.toString();
+    }
+
+    @Test
+    void contadorEhExportadoComRotulos() throws IOException {
+        RegistroMetricas registro = new RegistroMetricas();
+        Contador c = registro.contador("teste_total", "Um contador.", "tipo", "a");
+        c.incrementar();
+        c.adicionar(2);
+
+        String texto = exportar(registro);
+
+        assertThat(texto).contains("# HELP teste_total Um contador.\n")
+                .contains("# TYPE teste_total counter\n")
+                .contains("teste_total{tipo=\"a\"} 3\n");
+    }
+
+    @Test
+    void mesmaSerieDevolveMesmoContador() {
+        RegistroMetricas registro = new RegistroMetricas();
+        Contador a = registro.contador("teste_total", "Um contador.", "tipo", "a");
+
+        assertThat(registro.contador("teste_total", "Um contador.", "tipo", "a")).isSameAs(a);
+        assertThat(registro.contador("teste_total", "Um contador.", "tipo", "b")).isNotSameAs(a);
+    }
+
+    @Test
+    void histogramaExportaBaldesAcumulados() throws IOException {
+        RegistroMetricas registro = new RegistroMetricas();
+        Histograma h = registro.histograma("teste_duracao_segundos", "Uma duração.");
+        h.registrar(TimeUnit.MICROSECONDS.toNanos(1));
+        h.registrar(TimeUnit.MILLISECONDS.toNanos(3));
+        h.registrar(TimeUnit.SECONDS.toNanos(60));
+
+        String texto = exportar(registro);
+
+        assertThat(texto).contains("# TYPE teste_duracao_segundos histogram\n")
+                .contains("teste_duracao_segundos_bucket{le=\"0.000001\"} 1\n")
+                .contains("teste_duracao_segundos_bucket{le=\"10\"} 2\n")
+                .contains("teste_duracao_segundos_bucket{le=\"+Inf\"} 3\n")
+                .contains("teste_duracao_segundos_count 3\n");
+        assertThat(h.contagem()).isEqualTo(3);
+        assertThat(h.somaSegundos()).isCloseTo(60.003001, within(1e-9));
+    }
+
+    @Test
+    void medidorEhLidoNaExportacao() throws IOException {
+        RegistroMetricas registro = new RegistroMetricas();
+        long[] valor = {5};
+        registro.medidor("teste_tamanho", "Um medidor.", () -> valor[0]);
+        valor[0] = 7;
+
+        assertThat(exportar(registro)).contains("# TYPE teste_tamanho gauge\n").contains("teste_tamanho 7\n");
+    }
+
+    @Test
+    void rotulosSaoEscapados() throws IOException {
+        RegistroMetricas registro = new RegistroMetricas();
+        registro.contador("teste_total", "Um contador.", "rota", "a\"b").incrementar();
+
+        assertThat(exportar(registro)).contains("teste_total{rota=\"a\\\"b\"} 1\n");
+    }
+
+    @Test
+    void mesmoNomeComOutroTipoEhRejeitado() {
+        RegistroMetricas registro = new RegistroMetricas();
+        registro.contador("teste", "Um contador.");
+
+        assertThatThrownBy(() -> registro.histograma("teste", "Um histograma."))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.biblioteca.persistencia;
+
+import com.biblioteca.exception.RepositorioException;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiarioEscritaTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Cada registro devolve a posição do diário logo depois dele")
+    void deveDevolverPosicaoDoRegistro() throws Exception {
+        OpcoesPersistencia opcoes = OpcoesPersistencia.PADRAO.comPolitica(PoliticaFsync.POR_ESCRITA);
+        try (DiarioEscrita diario = new DiarioEscrita(diretorio, 0, opcoes, () -> { })) {
+            long primeira = diario.antesDeAdicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+            long segunda = diario.antesDeRemover(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+
+            assertThat(primeira).isPositive();
+            assertThat(segunda).isGreaterThan(primeira);
+            assertThat(diario.posicao()).isEqualTo(segunda);
+            diario.aoConcluir(segunda);
+            assertThat(Files.size(DiarioEscrita.arquivoSegmento(diretorio, 0))).isEqualTo(segunda);
+        }
+    }
+
+    @Test
+    @DisplayName("Depois de uma falha de fsync, novas escritas são recusadas")
+    void falhaDeFsyncDeveFecharODiario() throws Exception {
+        OpcoesPersistencia opcoes = OpcoesPersistencia.PADRAO.comPolitica(PoliticaFsync.POR_ESCRITA);
+        try (DiarioEscrita diario = new DiarioEscrita(diretorio, 0, opcoes, () -> { })) {
+            long posicao = diario.antesDeAdicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+
+            diario.falhouSincronizar(new IOException("disco cheio"));
+
+            assertThatThrownBy(() -> diario.antesDeAdicionar(new Livro("1984", "George Orwell", Categoria.FICCAO)))
+                    .isInstanceOf(RepositorioException.class)
+                    .hasMessageContaining("fsync");
+            assertThat(diario.posicao()).isEqualTo(posicao);
+        }
+    }
+}
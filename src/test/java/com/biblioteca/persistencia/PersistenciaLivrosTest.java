@@ -0,0 +1,180 @@
+package com.biblioteca.persistencia;
+
+import com.biblioteca.busca.ResultadoBusca;
+import com.biblioteca.exception.RepositorioException;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.BibliotecaService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistenciaLivrosTest {
+
+    @TempDir
+    Path diretorio;
+
+    @ParameterizedTest
+    @EnumSource(PoliticaFsync.class)
+    @DisplayName("Deve recuperar adições, atualizações e remoções após reabrir")
+    void deveRecuperarMutacoesAposReabrir(PoliticaFsync politica) throws Exception {
+        OpcoesPersistencia opcoes = OpcoesPersistencia.PADRAO.comPolitica(politica);
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, opcoes)) {
+            LivroRepository repo = p.repositorio();
+            repo.adicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+            repo.adicionar(new Livro("1984", "George Orwell", Categoria.FICCAO));
+            repo.adicionar(new Livro("Ficção", "Autor com acentuação", Categoria.ROMANCE));
+            repo.atualizar("1984", new Livro("Animal Farm", "George Orwell", Categoria.FICCAO));
+            repo.remover("Dom Casmurro");
+        }
+
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, opcoes)) {
+            LivroRepository repo = p.repositorio();
+            assertThat(repo.listarTodos()).containsExactly(
+                    new Livro("Animal Farm", "George Orwell", Categoria.FICCAO),
+                    new Livro("Ficção", "Autor com acentuação", Categoria.ROMANCE));
+        }
+    }
+
+    @Test
+    @DisplayName("Falha ao gravar no diário não deve aplicar a escrita na memória")
+    void falhaNoDiarioNaoDeveAplicarEscrita() throws Exception {
+        OpcoesPersistencia opcoes = OpcoesPersistencia.PADRAO.comPolitica(PoliticaFsync.INTERVALO);
+        Livro gravado = new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO);
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, opcoes)) {
+            BibliotecaService service = new BibliotecaService(p.repositorio());
+            service.adicionarLivro(gravado);
+
+            // Com a thread interrompida, FileChannel.write lança
+            // ClosedByInterruptException e fecha o canal do diário.
+            Thread.currentThread().interrupt();
+            try {
+                assertThatThrownBy(() -> service.adicionarLivro(
+                        new Livro("Memórias Póstumas", "Machado de Assis", Categoria.FICCAO)))
+                        .isInstanceOf(RepositorioException.class);
+            } finally {
+                Thread.interrupted();
+            }
+            assertThatThrownBy(() -> service.atualizarLivro("Dom Casmurro",
+                    new Livro("Dom Casmurro", "Outro", Categoria.ROMANCE)))
+                    .isInstanceOf(RepositorioException.class);
+            assertThatThrownBy(() -> service.removerLivro("Dom Casmurro")).isInstanceOf(RepositorioException.class);
+
+            assertThat(p.repositorio().buscarPorTitulo("Memórias Póstumas")).isEqualTo(LivroNulo.INSTANCE);
+            assertThat(service.listarLivros()).containsExactly(gravado);
+            assertThat(service.pesquisar("memórias", 10)).isEmpty();
+            assertThat(service.pesquisar("outro", 10)).isEmpty();
+            assertThat(service.pesquisar("casmurro", 10)).extracting(ResultadoBusca::livro).containsExactly(gravado);
+        }
+
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            assertThat(p.repositorio().listarTodos()).containsExactly(gravado);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recuperar a partir do instantâneo mais os segmentos seguintes")
+    void deveRecuperarDeInstantaneoMaisSegmentos() throws Exception {
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            LivroRepository repo = p.repositorio();
+            for (int i = 0; i < 100; i++) {
+                repo.adicionar(new Livro("Livro " + i, "Autor", Categoria.CIENCIA));
+            }
+            p.compactar();
+            repo.remover("Livro 0");
+            repo.adicionar(new Livro("Depois", "Autor", Categoria.HISTORIA));
+        }
+
+        assertThat(diretorio.resolve(PersistenciaLivros.ARQUIVO_INSTANTANEO)).exists();
+        assertThat(DiarioEscrita.arquivoSegmento(diretorio, 0)).doesNotExist();
+
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            LivroRepository repo = p.repositorio();
+            assertThat(repo.listarTodos()).hasSize(100);
+            assertThat(repo.buscarPorTitulo("Livro 0")).isInstanceOf(LivroNulo.class);
+            assertThat(repo.buscarPorTitulo("Depois").getCategoria()).isEqualTo(Categoria.HISTORIA);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve compactar sozinho quando o segmento enche")
+    void deveCompactarQuandoSegmentoEnche() throws Exception {
+        OpcoesPersistencia opcoes = OpcoesPersistencia.PADRAO.comLimiteSegmento(4 * 1024);
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, opcoes)) {
+            for (int i = 0; i < 500; i++) {
+                p.repositorio().adicionar(new Livro("Livro " + i, "Autor", Categoria.CIENCIA));
+            }
+        }
+
+        assertThat(diretorio.resolve(PersistenciaLivros.ARQUIVO_INSTANTANEO)).exists();
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, opcoes)) {
+            assertThat(p.repositorio().listarTodos()).hasSize(500);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar a cauda incompleta do último segmento")
+    void deveDescartarCaudaIncompleta() throws Exception {
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            p.repositorio().adicionar(new Livro("Inteiro", "Autor", Categoria.FICCAO));
+            p.repositorio().adicionar(new Livro("Cortado", "Autor", Categoria.FICCAO));
+        }
+        Path segmento = DiarioEscrita.arquivoSegmento(diretorio, 0);
+        long tamanho = Files.size(segmento);
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho - 3);
+        }
+
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            assertThat(p.repositorio().listarTodos()).extracting(Livro::getTitulo).containsExactly("Inteiro");
+            p.repositorio().adicionar(new Livro("Novo", "Autor", Categoria.FICCAO));
+        }
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            assertThat(p.repositorio().listarTodos()).extracting(Livro::getTitulo).containsExactly("Inteiro", "Novo");
+        }
+    }
+
+    @Test
+    @DisplayName("Escritas concorrentes em grupo devem ser todas recuperadas")
+    void escritasConcorrentesEmGrupoSaoRecuperadas() throws Exception {
+        int threads = 8;
+        int porThread = 200;
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futuros.add(executor.submit(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        p.repositorio().adicionar(new Livro("T" + thread + "-" + i, "Autor", Categoria.FICCAO));
+                    }
+                }));
+            }
+            for (Future<?> f : futuros) {
+                f.get();
+            }
+            executor.shutdown();
+        }
+
+        try (PersistenciaLivros p = PersistenciaLivros.abrir(diretorio, OpcoesPersistencia.PADRAO)) {
+            assertThat(p.repositorio().listarTodos()).hasSize(threads * porThread);
+        }
+    }
+}
@@ -27,7 +27,7 @@ class LivroRepositoryComprehensiveTest {
 
     @BeforeEach
     void setUp() {
-        repository = new LivroRepository();
+        repository = new LivroRepositoryMemoria();
         livroTeste = new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO);
     }
 
@@ -232,6 +232,137 @@ class LivroRepositoryComprehensiveTest {
         }
     }
 
+    @Nested
+    @DisplayName("Testes de Paginação")
+    class TestesPaginacao {
+
+        @Test
+        @DisplayName("Deve percorrer o catálogo inteiro em páginas ordenadas")
+        void devePercorrerCatalogoEmPaginas() {
+            for (int i = 0; i < 25; i++) {
+                repository.adicionar(new Livro("Livro %02d".formatted(i), "Autor", Categoria.FICCAO));
+            }
+
+            List<String> titulos = new java.util.ArrayList<>();
+            String cursor = null;
+            int paginas = 0;
+            do {
+                Pagina pagina = repository.listarPagina(cursor, 10);
+                pagina.livros().forEach(l -> titulos.add(l.getTitulo()));
+                cursor = pagina.proximoCursor();
+                paginas++;
+            } while (cursor != null);
+
+            assertThat(paginas).isEqualTo(3);
+            assertThat(titulos).hasSize(25).isSorted().doesNotHaveDuplicates();
+        }
+
+        @Test
+        @DisplayName("Última página não deve ter cursor")
+        void ultimaPaginaNaoDeveTerCursor() {
+            repository.adicionar(livroTeste);
+
+            Pagina pagina = repository.listarPagina(null, 10);
+
+            assertThat(pagina.livros()).containsExactly(livroTeste);
+            assertThat(pagina.temProxima()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Cursor deve continuar válido após inserções e remoções concorrentes")
+        void cursorDeveContinuarValidoAposMutacoes() {
+            repository.adicionar(new Livro("A", "Autor", Categoria.FICCAO));
+            repository.adicionar(new Livro("B", "Autor", Categoria.FICCAO));
+            repository.adicionar(new Livro("D", "Autor", Categoria.FICCAO));
+
+            Pagina primeira = repository.listarPagina(null, 2);
+            repository.remover("B");
+            repository.adicionar(new Livro("C", "Autor", Categoria.FICCAO));
+            repository.adicionar(new Livro("0", "Autor", Categoria.FICCAO));
+            Pagina segunda = repository.listarPagina(primeira.proximoCursor(), 2);
+
+            assertThat(primeira.livros()).extracting(Livro::getTitulo).containsExactly("A", "B");
+            assertThat(segunda.livros()).extracting(Livro::getTitulo).containsExactly("C", "D");
+            assertThat(segunda.temProxima()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Deve rejeitar cursor inválido e limite não positivo")
+        void deveRejeitarParametrosInvalidos() {
+            assertThatThrownBy(() -> repository.listarPagina("@@@", 10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Cursor inválido");
+            assertThatThrownBy(() -> repository.listarPagina(null, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Testes de Índices Secundários")
+    class TestesIndicesSecundarios {
+
+        @BeforeEach
+        void popular() {
+            repository.adicionar(livroTeste);
+            repository.adicionar(new Livro("Memórias Póstumas", "Machado de Assis", Categoria.ROMANCE));
+            repository.adicionar(new Livro("Quincas Borba", "  MACHADO DE ASSIS ", Categoria.ROMANCE));
+            repository.adicionar(new Livro("1984", "George Orwell", Categoria.FICCAO));
+        }
+
+        @Test
+        @DisplayName("Deve filtrar por categoria")
+        void deveFiltrarPorCategoria() {
+            Pagina pagina = repository.listarPagina(FiltroLivros.porCategoria(Categoria.FICCAO), null, 10);
+
+            assertThat(pagina.livros()).extracting(Livro::getTitulo).containsExactly("1984", "Dom Casmurro");
+        }
+
+        @Test
+        @DisplayName("Deve filtrar por autor normalizado")
+        void deveFiltrarPorAutorNormalizado() {
+            Pagina pagina = repository.listarPagina(FiltroLivros.porAutor("machado de assis"), null, 10);
+
+            assertThat(pagina.livros()).extracting(Livro::getTitulo)
+                    .containsExactly("Dom Casmurro", "Memórias Póstumas", "Quincas Borba");
+        }
+
+        @Test
+        @DisplayName("Deve combinar autor e categoria com paginação")
+        void deveCombinarAutorECategoria() {
+            FiltroLivros filtro = new FiltroLivros(Categoria.ROMANCE, "Machado de Assis");
+
+            Pagina primeira = repository.listarPagina(filtro, null, 1);
+            Pagina segunda = repository.listarPagina(filtro, primeira.proximoCursor(), 1);
+
+            assertThat(primeira.livros()).extracting(Livro::getTitulo).containsExactly("Memórias Póstumas");
+            assertThat(segunda.livros()).extracting(Livro::getTitulo).containsExactly("Quincas Borba");
+        }
+
+        @Test
+        @DisplayName("Índices devem acompanhar atualização e remoção")
+        void indicesDevemAcompanharMutacoes() {
+            repository.atualizar("Dom Casmurro", new Livro("Dom Casmurro", "Outro Autor", Categoria.HISTORIA));
+            repository.remover("1984");
+
+            assertThat(repository.listarPagina(FiltroLivros.porCategoria(Categoria.FICCAO), null, 10).livros()).isEmpty();
+            assertThat(repository.listarPagina(FiltroLivros.porAutor("George Orwell"), null, 10).livros()).isEmpty();
+            assertThat(repository.listarPagina(FiltroLivros.porAutor("Machado de Assis"), null, 10).livros())
+                    .extracting(Livro::getTitulo).containsExactly("Memórias Póstumas", "Quincas Borba");
+            assertThat(repository.listarPagina(FiltroLivros.porCategoria(Categoria.HISTORIA), null, 10).livros())
+                    .extracting(Livro::getAutor).containsExactly("Outro Autor");
+        }
+
+        @Test
+        @DisplayName("Renomear sobre título existente deve desindexar o livro sobrescrito")
+        void renomearSobreTituloExistenteDeveDesindexar() {
+            repository.atualizar("Quincas Borba", new Livro("1984", "Machado de Assis", Categoria.ROMANCE));
+
+            assertThat(repository.listarPagina(FiltroLivros.porAutor("George Orwell"), null, 10).livros()).isEmpty();
+            assertThat(repository.listarPagina(FiltroLivros.porCategoria(Categoria.ROMANCE), null, 10).livros())
+                    .extracting(Livro::getTitulo).containsExactly("1984", "Memórias Póstumas");
+        }
+    }
+
     @Nested
     @DisplayName("Testes de Limpeza")
     class TestesLimpeza {
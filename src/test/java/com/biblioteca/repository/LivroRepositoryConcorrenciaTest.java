@@ -0,0 +1,227 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.exception.LivroDuplicadoException;
+import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LivroRepositoryConcorrenciaTest {
+
+    private static final int THREADS = 16;
+
+    private LivroRepository repository;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LivroRepositoryMemoria();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("Adições concorrentes do mesmo título devem ter exatamente um vencedor")
+    void adicoesConcorrentesDoMesmoTituloTemUmVencedor() throws Exception {
+        int titulos = 500;
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger duplicados = new AtomicInteger();
+
+        executarEmParalelo(thread -> {
+            for (int i = 0; i < titulos; i++) {
+                // Variações de caixa e espaços caem na mesma chave normalizada
+                String titulo = thread % 2 == 0 ? "Livro " + i : "  LIVRO " + i + " ";
+                try {
+                    repository.adicionar(new Livro(titulo, "Autor " + thread, Categoria.FICCAO));
+                    sucessos.incrementAndGet();
+                } catch (LivroDuplicadoException e) {
+                    duplicados.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(sucessos.get()).isEqualTo(titulos);
+        assertThat(duplicados.get()).isEqualTo(titulos * (THREADS - 1));
+        assertThat(repository.listarTodos()).hasSize(titulos);
+        assertThat(titulosNormalizados(repository.listarTodos())).hasSize(titulos);
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("Adições concorrentes de títulos distintos não devem se perder")
+    void adicoesDistintasNaoSePerdem() throws Exception {
+        int porThread = 2_000;
+
+        executarEmParalelo(thread -> {
+            for (int i = 0; i < porThread; i++) {
+                repository.adicionar(new Livro("T" + thread + "-" + i, "Autor", Categoria.CIENCIA));
+            }
+        });
+
+        assertThat(repository.listarTodos()).hasSize(THREADS * porThread);
+        for (int t = 0; t < THREADS; t++) {
+            assertThat(repository.buscarPorTitulo("T" + t + "-" + (porThread - 1)))
+                    .isNotInstanceOf(LivroNulo.class);
+        }
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("Renomeações concorrentes do mesmo livro devem ser atômicas")
+    void renomeacoesConcorrentesSaoAtomicas() throws Exception {
+        repository.adicionar(new Livro("Original", "Autor", Categoria.HISTORIA));
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger naoEncontrados = new AtomicInteger();
+
+        executarEmParalelo(thread -> {
+            try {
+                repository.atualizar("Original", new Livro("Renomeado " + thread, "Autor", Categoria.HISTORIA));
+                sucessos.incrementAndGet();
+            } catch (LivroNaoEncontradoException e) {
+                naoEncontrados.incrementAndGet();
+            }
+        });
+
+        assertThat(sucessos.get()).isEqualTo(1);
+        assertThat(naoEncontrados.get()).isEqualTo(THREADS - 1);
+        assertThat(repository.listarTodos()).hasSize(1);
+        assertThat(repository.buscarPorTitulo("Original")).isInstanceOf(LivroNulo.class);
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("Remoções e substituições concorrentes devem ver cada livro uma vez")
+    void remocoesESubstituicoesConcorrentesVeemCadaLivroUmaVez() throws Exception {
+        int titulos = 500;
+        for (int i = 0; i < titulos; i++) {
+            repository.adicionar(new Livro("Livro " + i, "Autor", Categoria.CIENCIA));
+        }
+        AtomicInteger removidos = new AtomicInteger();
+        AtomicInteger substituidos = new AtomicInteger();
+
+        executarEmParalelo(thread -> {
+            for (int i = 0; i < titulos; i++) {
+                ResultadoEscrita resultado = thread % 2 == 0
+                        ? repository.removerSePresente("LIVRO " + i)
+                        : repository.substituirSePresente("Livro " + i, new Livro("Livro " + i, "Outro", Categoria.CIENCIA));
+                if (resultado instanceof ResultadoEscrita.Aplicada) {
+                    (thread % 2 == 0 ? removidos : substituidos).incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(removidos.get()).isEqualTo(titulos);
+        assertThat(repository.listarTodos()).isEmpty();
+        assertThat(repository.tamanho()).isZero();
+        assertThat(substituidos.get()).isLessThanOrEqualTo(titulos * (THREADS / 2));
+    }
+
+    @Test
+    @DisplayName("Renomeações cruzadas não devem causar deadlock nem perder livros")
+    void renomeacoesCruzadasNaoCausamDeadlock() throws Exception {
+        int pares = 200;
+        for (int i = 0; i < pares; i++) {
+            repository.adicionar(new Livro("A" + i, "Autor", Categoria.ROMANCE));
+        }
+
+        // Metade das threads renomeia A -> B e a outra metade B -> A,
+        // travando as mesmas listras em ordens opostas.
+        executarEmParalelo(thread -> {
+            for (int rodada = 0; rodada < 50; rodada++) {
+                for (int i = 0; i < pares; i++) {
+                    String de = thread % 2 == 0 ? "A" + i : "B" + i;
+                    String para = thread % 2 == 0 ? "B" + i : "A" + i;
+                    try {
+                        repository.atualizar(de, new Livro(para, "Autor", Categoria.ROMANCE));
+                    } catch (LivroNaoEncontradoException ignorado) {
+                        // a outra metade já renomeou este livro
+                    }
+                }
+            }
+        });
+
+        assertThat(repository.listarTodos()).hasSize(pares);
+        for (int i = 0; i < pares; i++) {
+            boolean temA = !(repository.buscarPorTitulo("A" + i) instanceof LivroNulo);
+            boolean temB = !(repository.buscarPorTitulo("B" + i) instanceof LivroNulo);
+            assertThat(temA ^ temB).as("livro %d deve existir sob exatamente um título", i).isTrue();
+        }
+    }
+
+    @RepeatedTest(3)
+    @DisplayName("Leituras concorrentes com escritas não devem falhar")
+    void leiturasConcorrentesComEscritas() throws Exception {
+        int operacoes = 5_000;
+
+        executarEmParalelo(thread -> {
+            for (int i = 0; i < operacoes; i++) {
+                String titulo = "Misto " + (i % 100);
+                switch ((thread + i) % 4) {
+                    case 0 -> {
+                        try {
+                            repository.adicionar(new Livro(titulo, "Autor", Categoria.TECNOLOGIA));
+                        } catch (LivroDuplicadoException ignorado) {
+                            // esperado sob contenção
+                        }
+                    }
+                    case 1 -> repository.remover(titulo);
+                    case 2 -> repository.buscarPorTitulo(titulo);
+                    default -> repository.listarTodos();
+                }
+            }
+        });
+
+        List<Livro> todos = repository.listarTodos();
+        assertThat(titulosNormalizados(todos)).hasSize(todos.size());
+        assertThat(todos.size()).isLessThanOrEqualTo(100);
+        assertThat(repository.listarPagina(FiltroLivros.porCategoria(Categoria.TECNOLOGIA), null, 1000).livros())
+                .containsExactlyElementsOf(todos);
+        assertThat(repository.listarPagina(FiltroLivros.porAutor("Autor"), null, 1000).livros())
+                .containsExactlyElementsOf(todos);
+    }
+
+    private void executarEmParalelo(TarefaPorThread tarefa) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futuros.add(executor.submit(() -> {
+                largada.await();
+                tarefa.executar(thread);
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private static Set<String> titulosNormalizados(List<Livro> livros) {
+        Set<String> titulos = new HashSet<>();
+        for (Livro livro : livros) {
+            titulos.add(livro.getTitulo().trim().toLowerCase(Locale.ROOT));
+        }
+        return titulos;
+    }
+
+    @FunctionalInterface
+    private interface TarefaPorThread {
+        void executar(int thread) throws Exception;
+    }
+}
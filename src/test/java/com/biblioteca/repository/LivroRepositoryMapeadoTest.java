@@ -0,0 +1,222 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.exception.LivroDuplicadoException;
+import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LivroRepositoryMapeadoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve recuperar adições, atualizações e remoções após reabrir")
+    void deveRecuperarMutacoesAposReabrir() throws Exception {
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            repo.adicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+            repo.adicionar(new Livro("1984", "George Orwell", Categoria.FICCAO));
+            repo.adicionar(new Livro("Ficção", "Autor com acentuação", Categoria.ROMANCE));
+            repo.atualizar("1984", new Livro("Animal Farm", "George Orwell", Categoria.FICCAO));
+            repo.remover("Dom Casmurro");
+        }
+
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            assertThat(repo.listarTodos()).containsExactly(
+                    new Livro("Ficção", "Autor com acentuação", Categoria.ROMANCE),
+                    new Livro("Animal Farm", "George Orwell", Categoria.FICCAO));
+            assertThat(repo.buscarPorTitulo("  FICÇÃO ").getAutor()).isEqualTo("Autor com acentuação");
+            assertThat(repo.buscarPorTitulo("1984")).isInstanceOf(LivroNulo.class);
+            assertThat(repo.tamanho()).isEqualTo(2);
+            assertThat(repo.revisaoCatalogo().versao()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter as regras do repositório em memória")
+    void deveManterRegrasDoRepositorio() throws Exception {
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            repo.adicionar(new Livro("Titulo", "Autor", Categoria.FICCAO));
+            assertThatThrownBy(() -> repo.adicionar(new Livro("titulo ", "Outro", Categoria.CIENCIA)))
+                    .isInstanceOf(LivroDuplicadoException.class);
+            assertThatThrownBy(() -> repo.atualizar("Nenhum", new Livro("X", "Y", Categoria.CIENCIA)))
+                    .isInstanceOf(LivroNaoEncontradoException.class);
+
+            repo.adicionar(new Livro("Outro", "Autor", Categoria.CIENCIA));
+            repo.atualizar("Outro", new Livro("Titulo", "Autor 2", Categoria.HISTORIA));
+            assertThat(repo.listarTodos()).containsExactly(new Livro("Titulo", "Autor 2", Categoria.HISTORIA));
+            assertThat(repo.revisaoDe("titulo")).isEqualTo(repo.revisaoCatalogo());
+            assertThat(repo.revisaoDe("Outro")).isNull();
+
+            long lida = repo.revisaoDe("Titulo").versao();
+            repo.atualizar("Titulo", new Livro("Titulo", "Autor 3", Categoria.HISTORIA));
+            assertThat(repo.substituirSePresente("Titulo", new Livro("Titulo", "Autor 4", Categoria.HISTORIA), lida))
+                    .isInstanceOf(ResultadoEscrita.Modificado.class);
+            assertThat(repo.removerSePresente("Titulo", lida)).isInstanceOf(ResultadoEscrita.Modificado.class);
+            assertThat(repo.buscarPorTitulo("Titulo").getAutor()).isEqualTo("Autor 3");
+            assertThat(repo.removerSePresente("Titulo", repo.revisaoDe("Titulo").versao()))
+                    .isInstanceOf(ResultadoEscrita.Aplicada.class);
+
+            assertThat(repo.adicionarTodos(List.of(
+                    new Livro("A", "Autor", Categoria.FICCAO),
+                    new Livro("Outro", "Autor", Categoria.FICCAO),
+                    new Livro("a", "Autor", Categoria.FICCAO),
+                    new Livro("OUTRO", "Autor", Categoria.FICCAO))).stream().toArray())
+                    .containsExactly(2, 3);
+
+            repo.limpar();
+            assertThat(repo.listarTodos()).isEmpty();
+            assertThat(repo.tamanho()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir o índice quando o arquivo não foi fechado")
+    void deveReconstruirIndiceSemFechamento() throws Exception {
+        LivroRepositoryMapeado semFechar = LivroRepositoryMapeado.abrir(diretorio);
+        for (int i = 0; i < 50; i++) {
+            semFechar.adicionar(new Livro("Livro " + i, "Autor", Categoria.CIENCIA));
+        }
+        semFechar.atualizar("Livro 3", new Livro("Livro 3", "Outro Autor", Categoria.CIENCIA));
+        semFechar.remover("Livro 7");
+        Files.delete(diretorio.resolve(ArquivoMapeado.INDICE));
+
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            assertThat(repo.tamanho()).isEqualTo(49);
+            assertThat(repo.buscarPorTitulo("Livro 3").getAutor()).isEqualTo("Outro Autor");
+            assertThat(repo.buscarPorTitulo("Livro 7")).isInstanceOf(LivroNulo.class);
+            assertThat(repo.revisaoDe("Livro 3").versao()).isEqualTo(51);
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve perder o livro se o processo cair logo depois de matar o registro anterior")
+    void naoDevePerderLivroAtualizadoNaQueda() throws Exception {
+        try (ArquivoMapeado arquivo = ArquivoMapeado.abrir(diretorio)) {
+            arquivo.gravar("duna", new Livro("Duna", "Frank Herbert", Categoria.FICCAO), new Revisao(1, 1));
+        }
+        // Os passos de gravar() até matar o anterior, sem o cabeçalho do fim
+        // e sem fechar: como um processo que caiu ali.
+        ArquivoMapeado semFechar = ArquivoMapeado.abrir(diretorio);
+        long anterior = semFechar.localizar("duna");
+        semFechar.acrescentar("duna", new Livro("Duna", "Outro Autor", Categoria.FICCAO), new Revisao(2, 2));
+        semFechar.matar(anterior);
+
+        try (ArquivoMapeado arquivo = ArquivoMapeado.abrir(diretorio)) {
+            long endereco = arquivo.localizar("duna");
+            assertThat(endereco).isNotNegative();
+            assertThat(arquivo.ler(endereco).getAutor()).isEqualTo("Outro Autor");
+            assertThat(arquivo.revisao(endereco).versao()).isEqualTo(2);
+            assertThat(arquivo.vivos()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recusar crescer o índice além do que um buffer mapeado endereça")
+    void deveLimitarCapacidadeDoIndice() {
+        assertThat(ArquivoMapeado.CAPACIDADE_MAXIMA * 8 + 64).isLessThanOrEqualTo(Integer.MAX_VALUE);
+        assertThat(ArquivoMapeado.capacidadePara(ArquivoMapeado.CAPACIDADE_MAXIMA / 4 - 1, 1024))
+                .isEqualTo(ArquivoMapeado.CAPACIDADE_MAXIMA);
+        assertThatThrownBy(() -> ArquivoMapeado.capacidadePara(ArquivoMapeado.CAPACIDADE_MAXIMA / 4, 1024))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cheio");
+    }
+
+    @Test
+    @DisplayName("Deve crescer o índice e compactar sem perder livros")
+    void deveCrescerIndiceECompactar() throws Exception {
+        Map<String, Livro> esperado = new LinkedHashMap<>();
+        Random aleatorio = new Random(7);
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            for (int i = 0; i < 5_000; i++) {
+                String titulo = "Livro " + aleatorio.nextInt(2_000);
+                Livro livro = new Livro(titulo, "Autor " + aleatorio.nextInt(30), Categoria.values()[i % 3]);
+                if (esperado.containsKey(titulo)) {
+                    if (aleatorio.nextBoolean()) {
+                        repo.remover(titulo);
+                        esperado.remove(titulo);
+                    } else {
+                        repo.atualizar(titulo, livro);
+                        esperado.remove(titulo);
+                        esperado.put(titulo, livro);
+                    }
+                } else {
+                    repo.adicionar(livro);
+                    esperado.put(titulo, livro);
+                }
+            }
+            assertThat(repo.listarTodos()).containsExactlyElementsOf(esperado.values());
+            repo.compactar();
+            assertThat(repo.listarTodos()).containsExactlyElementsOf(esperado.values());
+            for (Livro livro : esperado.values()) {
+                assertThat(repo.buscarPorTitulo(livro.getTitulo())).isEqualTo(livro);
+            }
+        }
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            assertThat(repo.percorrerTodos()).containsExactlyElementsOf(esperado.values());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor com filtros")
+    void devePaginarComFiltros() throws Exception {
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            List<Livro> ficcaoDoAutor = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                Livro livro = new Livro("Livro " + i, i % 2 == 0 ? "Ana" : "Bia",
+                        i % 3 == 0 ? Categoria.FICCAO : Categoria.CIENCIA);
+                repo.adicionar(livro);
+                if (livro.getAutor().equals("Ana") && livro.getCategoria() == Categoria.FICCAO) {
+                    ficcaoDoAutor.add(livro);
+                }
+            }
+            FiltroLivros filtro = new FiltroLivros(Categoria.FICCAO, " ana ");
+            List<Livro> lidos = new ArrayList<>();
+            String cursor = null;
+            do {
+                Pagina pagina = repo.listarPagina(filtro, cursor, 2);
+                lidos.addAll(pagina.livros());
+                cursor = pagina.proximoCursor();
+            } while (cursor != null);
+            assertThat(lidos).containsExactlyElementsOf(ficcaoDoAutor);
+
+            assertThatThrownBy(() -> repo.listarPagina(LivroRepository.codificarCursor("12"), 2))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Percurso deve falhar se o arquivo for compactado no meio")
+    void percursoDeveFalharAposCompactar() throws Exception {
+        try (LivroRepositoryMapeado repo = LivroRepositoryMapeado.abrir(diretorio)) {
+            for (int i = 0; i < 600; i++) {
+                repo.adicionar(new Livro("Livro " + i, "Autor", Categoria.CIENCIA));
+            }
+            Iterator<Livro> it = repo.percorrerTodos().iterator();
+            it.next();
+            repo.compactar();
+            assertThatThrownBy(() -> {
+                while (it.hasNext()) {
+                    it.next();
+                }
+            }).isInstanceOf(ConcurrentModificationException.class);
+        }
+    }
+}
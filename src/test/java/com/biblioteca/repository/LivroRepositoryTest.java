@@ -5,10 +5,14 @@ import com.biblioteca.model.Categoria;
 import com.biblioteca.model.Livro;
 import com.biblioteca.model.LivroNulo;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.Revisao;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,7 +22,7 @@ class LivroRepositoryTest {
 
     @BeforeEach
     void setUp() {
-        repository = new LivroRepository();
+        repository = new LivroRepositoryMemoria();
     }
 
     @Test
@@ -55,6 +59,78 @@ class LivroRepositoryTest {
         assertEquals(LivroNulo.INSTANCE, repository.buscarPorTitulo("Titulo"));
     }
 
+    @Test
+    void operacoesSePresenteDevemDevolverODesfecho() {
+        Livro livro = new Livro("Titulo", "Autor", Categoria.FICCAO);
+        Livro novo = new Livro("Titulo", "Outro", Categoria.CIENCIA);
+        assertEquals(new ResultadoEscrita.NaoEncontrado("Livro não encontrado: Titulo"),
+                repository.substituirSePresente("Titulo", novo));
+        assertEquals(new ResultadoEscrita.NaoEncontrado("Livro não encontrado: Titulo"),
+                repository.removerSePresente("Titulo"));
+        assertEquals(0, repository.revisaoCatalogo().versao());
+
+        assertEquals(new ResultadoEscrita.Aplicada(livro), repository.adicionarSeAusente(livro));
+        assertEquals(new ResultadoEscrita.Duplicado("Já existe livro com título: TITULO"),
+                repository.adicionarSeAusente(new Livro("TITULO", "Autor", Categoria.FICCAO)));
+        assertEquals(new ResultadoEscrita.Aplicada(novo), repository.substituirSePresente(" titulo ", novo));
+        assertEquals(new ResultadoEscrita.Aplicada(novo), repository.removerSePresente("Titulo"));
+        assertEquals(3, repository.revisaoCatalogo().versao());
+    }
+
+    @Test
+    void escritasCondicionaisSoDevemGravarNaRevisaoEsperada() {
+        repository.adicionar(new Livro("Titulo", "Autor", Categoria.FICCAO));
+        long lida = repository.revisaoDe("Titulo").versao();
+        Livro primeiro = new Livro("Titulo", "Primeiro", Categoria.FICCAO);
+        Livro segundo = new Livro("Titulo", "Segundo", Categoria.FICCAO);
+
+        assertEquals(new ResultadoEscrita.Aplicada(primeiro), repository.substituirSePresente("Titulo", primeiro, lida));
+        assertEquals(new ResultadoEscrita.Modificado("Livro modificado desde a revisão informada: Titulo"),
+                repository.substituirSePresente("Titulo", segundo, lida));
+        assertEquals(new ResultadoEscrita.Modificado("Livro modificado desde a revisão informada: titulo"),
+                repository.removerSePresente("titulo", lida));
+        assertEquals(primeiro, repository.buscarPorTitulo("Titulo"));
+
+        long atual = repository.revisaoDe("Titulo").versao();
+        assertEquals(new ResultadoEscrita.Aplicada(primeiro), repository.removerSePresente("Titulo", atual));
+        assertEquals(new ResultadoEscrita.NaoEncontrado("Livro não encontrado: Titulo"),
+                repository.removerSePresente("Titulo", atual));
+    }
+
+    @Test
+    void deveBuscarIgnorandoCaixaEEspacosDasPontas() {
+        Livro latin1 = new Livro("Ação e Reação", "Autor", Categoria.FICCAO);
+        Livro turco = new Livro("İstanbul", "Autor", Categoria.HISTORIA);
+        Livro grego = new Livro("ΟΔΥΣΣΕΙΑ", "Autor", Categoria.HISTORIA);
+        repository.adicionar(latin1);
+        repository.adicionar(turco);
+        repository.adicionar(grego);
+
+        assertEquals(latin1, repository.buscarPorTitulo("\t AÇÃO E REAÇÃO \n"));
+        assertEquals(latin1, repository.buscarPorTitulo("ação e reação"));
+        assertEquals(LivroNulo.INSTANCE, repository.buscarPorTitulo("Ação  e Reação"));
+        assertEquals(LivroNulo.INSTANCE, repository.buscarPorTitulo("Ação e Reaçã"));
+        assertEquals(turco, repository.buscarPorTitulo(" İSTANBUL"));
+        assertEquals(grego, repository.buscarPorTitulo("οδυσσεια "));
+    }
+
+    @Test
+    void buscaPeloTituloCruDeveAcharCadaLivroEmArvoreDeVariosNiveis() {
+        for (int i = 0; i < 2000; i++) {
+            repository.adicionar(new Livro("Livro " + i, "Autor", Categoria.FICCAO));
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            String titulo = (i % 2 == 0 ? " LIVRO " : "livro ") + i + "\t";
+            assertEquals("Livro " + i, repository.buscarPorTitulo(titulo).getTitulo());
+            assertEquals(repository.revisaoDe("Livro " + i), repository.revisaoDe(titulo));
+        }
+        assertEquals(LivroNulo.INSTANCE, repository.buscarPorTitulo("Livro 2000"));
+        assertEquals(LivroNulo.INSTANCE, repository.buscarPorTitulo("Livro"));
+        assertEquals(LivroNulo.INSTANCE, repository.buscarPorTitulo(""));
+        assertNull(repository.revisaoDe("Livro 10x"));
+    }
+
     @Test
     void deveListarTodosLivros() {
         Livro l1 = new Livro("T1", "A1", Categoria.FICCAO);
@@ -66,5 +142,106 @@ class LivroRepositoryTest {
         assertTrue(livros.contains(l2));
         assertEquals(2, livros.size());
     }
-}
 
+    @Test
+    void deveAvancarRevisaoDoCatalogoACadaEscrita() {
+        long inicial = repository.revisaoCatalogo().versao();
+        repository.adicionar(new Livro("T1", "A1", Categoria.FICCAO));
+        long aposAdicionar = repository.revisaoCatalogo().versao();
+        repository.atualizar("T1", new Livro("T1", "A2", Categoria.FICCAO));
+        long aposAtualizar = repository.revisaoCatalogo().versao();
+        repository.remover("T1");
+        long aposRemover = repository.revisaoCatalogo().versao();
+        repository.remover("T1");
+
+        assertTrue(inicial < aposAdicionar && aposAdicionar < aposAtualizar && aposAtualizar < aposRemover);
+        assertEquals(aposRemover, repository.revisaoCatalogo().versao());
+    }
+
+    @Test
+    void deveManterRevisaoPorLivro() {
+        repository.adicionar(new Livro("T1", "A1", Categoria.FICCAO));
+        repository.adicionar(new Livro("T2", "A2", Categoria.FICCAO));
+        Revisao t1 = repository.revisaoDe("t1");
+
+        repository.atualizar("T2", new Livro("T3", "A2", Categoria.FICCAO));
+
+        assertEquals(t1, repository.revisaoDe("T1"));
+        assertNull(repository.revisaoDe("T2"));
+        assertEquals(repository.revisaoCatalogo(), repository.revisaoDe("T3"));
+        repository.limpar();
+        assertNull(repository.revisaoDe("T1"));
+    }
+
+    @Test
+    void listaDeveSerInstantaneoQueNaoMudaComEscritasPosteriores() {
+        Livro l1 = new Livro("T1", "A1", Categoria.FICCAO);
+        Livro l2 = new Livro("T2", "A2", Categoria.CIENCIA);
+        repository.adicionar(l1);
+        repository.adicionar(l2);
+        List<Livro> antes = repository.listarTodos();
+
+        repository.remover("T1");
+        Livro l3 = new Livro("T3", "A3", Categoria.HISTORIA);
+        repository.adicionar(l3);
+        repository.atualizar("T2", new Livro("T2", "Outro", Categoria.CIENCIA));
+
+        assertEquals(List.of(l1, l2), antes);
+        assertEquals(List.of("T2", "T3"), repository.listarTodos().stream().map(Livro::getTitulo).toList());
+        assertEquals("Outro", repository.listarTodos().get(0).getAutor());
+        assertThrows(UnsupportedOperationException.class, () -> antes.add(l3));
+    }
+
+    @Test
+    void listaEPaginasDevemSeguirAOrdemDasChavesAposMuitasEscritas() {
+        // O bastante para a árvore do instantâneo ganhar alguns níveis e
+        // depois perder parte das folhas.
+        TreeMap<String, Livro> esperado = new TreeMap<>();
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String titulo = "Livro " + aleatorio.nextInt(5_000);
+            String chave = titulo.toLowerCase();
+            int operacao = aleatorio.nextInt(10);
+            if (operacao < 6 && !esperado.containsKey(chave)) {
+                Livro livro = new Livro(titulo, "Autor " + i, Categoria.FICCAO);
+                repository.adicionar(livro);
+                esperado.put(chave, livro);
+            } else if (operacao < 8 && esperado.containsKey(chave)) {
+                Livro livro = new Livro(titulo, "Autor " + i, Categoria.CIENCIA);
+                repository.atualizar(titulo, livro);
+                esperado.put(chave, livro);
+            } else {
+                repository.remover(titulo);
+                esperado.remove(chave);
+            }
+        }
+
+        List<Livro> todos = repository.listarTodos();
+        List<Livro> valores = new ArrayList<>(esperado.values());
+        assertEquals(valores, todos);
+        for (int i = 0; i < valores.size(); i += 97) {
+            assertSame(valores.get(i), todos.get(i));
+        }
+        List<Livro> paginados = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina pagina = repository.listarPagina(cursor, 37);
+            paginados.addAll(pagina.livros());
+            cursor = pagina.proximoCursor();
+        } while (cursor != null);
+        assertEquals(valores, paginados);
+    }
+
+    @Test
+    void livrosDoMesmoAutorDevemCompartilharONome() {
+        repository.adicionar(new Livro("T1", new String("Machado de Assis"), Categoria.FICCAO));
+        repository.adicionar(new Livro("T2", new String("Machado de Assis"), Categoria.ROMANCE));
+        repository.atualizar("T1", new Livro("T3", new String("Machado de Assis"), Categoria.FICCAO));
+
+        Livro t2 = repository.buscarPorTitulo("T2");
+        Livro t3 = repository.buscarPorTitulo("T3");
+        assertSame(t2.getAutor(), t3.getAutor());
+        assertEquals(new Livro("T3", "Machado de Assis", Categoria.FICCAO), t3);
+        assertEquals(List.of(t2, t3), repository.listarPagina(FiltroLivros.porAutor("machado de assis"), null, 10).livros());
+    }
+}
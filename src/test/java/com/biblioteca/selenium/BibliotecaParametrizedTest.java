@@ -2,6 +2,7 @@ package com.biblioteca.selenium;
 
 import com.biblioteca.model.Categoria;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
 import com.biblioteca.service.BibliotecaService;
 import com.biblioteca.test.config.WebDriverConfig;
 import com.biblioteca.test.pageobjects.FormularioLivroPage;
@@ -34,7 +35,7 @@ public class BibliotecaParametrizedTest {
 
     @BeforeEach
     void setUp() {
-        bibliotecaService = new BibliotecaService(new LivroRepository());
+        bibliotecaService = new BibliotecaService(new LivroRepositoryMemoria());
         bibliotecaService.limparBase();
 
         ChromeOptions options = new ChromeOptions();
@@ -1,6 +1,7 @@
 package com.biblioteca.selenium;
 
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
 import com.biblioteca.service.BibliotecaService;
 import com.biblioteca.test.config.WebDriverConfig;
 import com.biblioteca.test.pageobjects.FormularioLivroPage;
@@ -30,7 +31,7 @@ public class BibliotecaSeleniumTest {
 
     @BeforeEach
     void setUp() {
-        bibliotecaService = new BibliotecaService(new LivroRepository());
+        bibliotecaService = new BibliotecaService(new LivroRepositoryMemoria());
         bibliotecaService.limparBase();
 
         ChromeOptions options = new ChromeOptions();
@@ -1,14 +1,28 @@
 package com.biblioteca.service;
 
+import com.biblioteca.busca.IndiceSugestoes;
+import com.biblioteca.dto.LeitorLivros;
 import com.biblioteca.exception.LivroDuplicadoException;
 import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.exception.RecursoIndisponivelException;
 import com.biblioteca.model.Categoria;
 import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMapeado;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import com.biblioteca.repository.ResultadoEscrita;
 import com.biblioteca.service.BibliotecaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,7 +33,7 @@ class BibliotecaServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new BibliotecaService(new LivroRepository());
+        service = new BibliotecaService(new LivroRepositoryMemoria());
     }
 
     @Test
@@ -66,6 +80,31 @@ class BibliotecaServiceTest {
         assertThrows(LivroNaoEncontradoException.class, () -> service.removerLivro("Inexistente"));
     }
 
+    @Test
+    void deveDevolverDesfechoSemLancarExcecao() {
+        Livro livro = new Livro("Titulo", "Autor", Categoria.FICCAO);
+        assertEquals(new ResultadoEscrita.Aplicada(livro), service.tentarAdicionar(livro));
+        assertEquals(new ResultadoEscrita.Duplicado("Já existe livro com título: Titulo"),
+                service.tentarAdicionar(livro));
+        assertEquals(new ResultadoEscrita.NaoEncontrado("Livro não encontrado para atualizar: Outro"),
+                service.tentarAtualizar("Outro", livro));
+        assertEquals(new ResultadoEscrita.Aplicada(livro), service.tentarRemover("titulo"));
+        assertEquals(new ResultadoEscrita.NaoEncontrado("Livro não encontrado para remover: titulo"),
+                service.tentarRemover("titulo"));
+        assertSame(LivroNulo.INSTANCE, service.localizarLivro("titulo"));
+    }
+
+    @Test
+    void excecoesDeDesfechoNaoDevemCapturarPilha() {
+        LivroNaoEncontradoException naoEncontrado = assertThrows(LivroNaoEncontradoException.class,
+                () -> service.buscarLivro("Inexistente"));
+        assertEquals(0, naoEncontrado.getStackTrace().length);
+        service.adicionarLivro(new Livro("Titulo", "Autor", Categoria.FICCAO));
+        LivroDuplicadoException duplicado = assertThrows(LivroDuplicadoException.class,
+                () -> service.adicionarLivro(new Livro("Titulo", "Autor", Categoria.FICCAO)));
+        assertEquals(0, duplicado.getStackTrace().length);
+    }
+
     @Test
     void deveListarTodosLivros() {
         Livro l1 = new Livro("T1", "A1", Categoria.FICCAO);
@@ -77,4 +116,72 @@ class BibliotecaServiceTest {
         assertTrue(todos.contains(l1));
         assertTrue(todos.contains(l2));
     }
+
+    // Um logger só deste teste, com DEBUG ligado antes de o slf4j-simple
+    // criá-lo (é quando ele lê o nível); ele escreve no System.err da hora,
+    // então dá para capturá-lo aqui.
+    @Test
+    void deveListarComAmostragemDeDebug() {
+        String nome = BibliotecaServiceTest.class.getName() + ".amostragem";
+        System.setProperty("org.slf4j.simpleLogger.log." + nome, "debug");
+        BibliotecaService amostrado = new BibliotecaService(new LivroRepositoryMemoria(), 2,
+                LoggerFactory.getLogger(nome));
+        amostrado.adicionarLivro(new Livro("T1", "A1", Categoria.FICCAO));
+        amostrado.adicionarLivro(new Livro("T2", "A2", Categoria.CIENCIA));
+        ByteArrayOutputStream capturado = new ByteArrayOutputStream();
+        PrintStream original = System.err;
+        System.setErr(new PrintStream(capturado, true, StandardCharsets.UTF_8));
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(2, amostrado.listarLivros().size());
+            }
+        } finally {
+            System.setErr(original);
+        }
+
+        String log = capturado.toString(StandardCharsets.UTF_8);
+        assertEquals(3, log.split("operacao=listar total=", -1).length - 1);
+        // Só a segunda das três listagens é amostrada, com um registro por livro.
+        assertEquals(2, log.split("operacao=listar amostra=", -1).length - 1);
+        assertTrue(log.contains("amostra=T1"));
+    }
+
+    @Test
+    void deveRejeitarAmostragemNegativa() {
+        assertThrows(IllegalArgumentException.class, () -> new BibliotecaService(new LivroRepositoryMemoria(), -1));
+    }
+
+    @Test
+    void deveImportarEmLotesRelatandoDuplicadosEErros() throws Exception {
+        service.adicionarLivro(new Livro("Livro 10", "Autor", Categoria.FICCAO));
+        StringBuilder ndjson = new StringBuilder();
+        int total = ImportacaoLivros.TAMANHO_LOTE * 2 + 5;
+        for (int i = 0; i < total; i++) {
+            ndjson.append("{\"titulo\":\"Livro ").append(i)
+                    .append("\",\"autor\":\"Autor\",\"categoria\":\"ficcao\"}\n");
+        }
+        ndjson.append("{\"titulo\":\"Sem categoria\",\"autor\":\"Autor\"}\n");
+
+        RelatorioImportacao relatorio = service.importarLivros(LeitorLivros.Formato.NDJSON,
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(total - 1, relatorio.importados());
+        assertEquals(2, relatorio.rejeitados());
+        assertEquals(List.of(11L, total + 1L), relatorio.erros().stream().map(RelatorioImportacao.Erro::linha).toList());
+        assertFalse(relatorio.errosOmitidos());
+        assertEquals(total, service.listarLivros().size());
+    }
+
+    @Test
+    void naoDeveMontarIndicesEmMemoriaSobreOCatalogoMapeado(@TempDir Path diretorio) throws Exception {
+        try (LivroRepositoryMapeado mapeado = LivroRepositoryMapeado.abrir(diretorio)) {
+            mapeado.adicionar(new Livro("Duna", "Frank Herbert", Categoria.FICCAO));
+            BibliotecaService sobreMapeado = new BibliotecaService(mapeado);
+
+            assertEquals("Duna", sobreMapeado.buscarLivro("duna").getTitulo());
+            assertThrows(RecursoIndisponivelException.class, () -> sobreMapeado.pesquisar("duna", 10));
+            assertThrows(RecursoIndisponivelException.class,
+                    () -> sobreMapeado.sugerir(IndiceSugestoes.Campo.TITULO, "du", 10));
+        }
+    }
 }
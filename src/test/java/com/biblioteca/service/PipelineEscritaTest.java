@@ -0,0 +1,149 @@
+package com.biblioteca.service;
+
+import com.biblioteca.exception.LivroDuplicadoException;
+import com.biblioteca.exception.LivroNaoEncontradoException;
+import com.biblioteca.model.Categoria;
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroNulo;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.LivroRepositoryMemoria;
+import com.biblioteca.repository.ObservadorLivros;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineEscritaTest {
+
+    private LivroRepository repository;
+    private PipelineEscrita pipeline;
+    private final AtomicInteger conclusoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository = new LivroRepositoryMemoria();
+        repository.registrarObservador(new ObservadorLivros() {
+            @Override
+            public void aoConcluir() {
+                conclusoes.incrementAndGet();
+            }
+        });
+        pipeline = new PipelineEscrita(repository, new PipelineEscrita.Opcoes(64, Duration.ofMillis(5), 1024));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    @DisplayName("Escritas concorrentes devem ser aplicadas em lotes")
+    void escritasConcorrentesSaoAgrupadas() throws Exception {
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futuros.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 20; i++) {
+                    pipeline.adicionar(new Livro("T" + thread + "-" + i, "Autor", Categoria.CIENCIA));
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(repository.listarTodos()).hasSize(threads * 20);
+        assertThat(conclusoes.get()).isLessThan(threads * 20);
+    }
+
+    @Test
+    @DisplayName("Falha de uma escrita não deve afetar as outras do mesmo lote")
+    void falhaIsoladaPorRequisicao() {
+        pipeline.adicionar(new Livro("Dom Casmurro", "Machado de Assis", Categoria.FICCAO));
+
+        assertThatThrownBy(() -> pipeline.adicionar(new Livro("dom casmurro", "Outro", Categoria.FICCAO)))
+                .isInstanceOf(LivroDuplicadoException.class);
+        assertThatThrownBy(() -> pipeline.atualizar("Inexistente", new Livro("X", "Y", Categoria.FICCAO)))
+                .isInstanceOf(LivroNaoEncontradoException.class);
+
+        pipeline.atualizar("Dom Casmurro", new Livro("Memórias Póstumas", "Machado de Assis", Categoria.FICCAO));
+        assertThat(repository.buscarPorTitulo("Dom Casmurro")).isInstanceOf(LivroNulo.class);
+        assertThat(repository.buscarPorTitulo("Memórias Póstumas").getAutor()).isEqualTo("Machado de Assis");
+    }
+
+    @Test
+    @DisplayName("Fechar deve aplicar o lote atual e o que ainda está na fila")
+    void fecharAplicaOQueJaEstavaNaFila() throws Exception {
+        CountDownLatch dentroDoLote = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        repository.registrarObservador(new ObservadorLivros() {
+            @Override
+            public void aoAdicionar(Livro livro) {
+                if (livro.getTitulo().equals("Primeiro")) {
+                    dentroDoLote.countDown();
+                    try {
+                        liberar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<?> primeiro = executor.submit(() -> pipeline.adicionar(new Livro("Primeiro", "Autor", Categoria.FICCAO)));
+        assertThat(dentroDoLote.await(5, TimeUnit.SECONDS)).isTrue();
+        List<Future<?>> enfileirados = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int n = i;
+            enfileirados.add(executor.submit(() -> pipeline.adicionar(new Livro("Fila " + n, "Autor", Categoria.FICCAO))));
+        }
+        // As três ficam na fila enquanto o aplicador está preso no primeiro lote.
+        Thread.sleep(50);
+
+        Future<?> fechamento = executor.submit(pipeline::close);
+        Thread.sleep(50);
+        liberar.countDown();
+        fechamento.get(5, TimeUnit.SECONDS);
+
+        primeiro.get(5, TimeUnit.SECONDS);
+        for (Future<?> futuro : enfileirados) {
+            futuro.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(repository.buscarPorTitulo("Primeiro")).isNotNull();
+        for (int i = 0; i < 3; i++) {
+            assertThat(repository.buscarPorTitulo("Fila " + i).getTitulo()).isEqualTo("Fila " + i);
+        }
+        assertThatThrownBy(() -> pipeline.adicionar(new Livro("Tarde", "Autor", Categoria.HISTORIA)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Deve recusar escritas depois de fechado")
+    void recusaEscritasDepoisDeFechado() {
+        pipeline.close();
+
+        assertThatThrownBy(() -> pipeline.adicionar(new Livro("Tarde", "Autor", Categoria.HISTORIA)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}